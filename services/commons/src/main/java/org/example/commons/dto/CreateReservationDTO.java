@@ -35,4 +35,8 @@ public class CreateReservationDTO {
             @Positive(message = "Seat ID in list must be a positive number.")
                     Long
             > seatIds;
+
+    // Opcjonalne: ID tymczasowej blokady miejsc, która ma zostać zamieniona na rezerwację
+    @Size(max = 36, message = "Hold ID cannot exceed 36 characters.")
+    private String holdId;
 }
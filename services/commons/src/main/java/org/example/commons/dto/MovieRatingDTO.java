@@ -3,6 +3,7 @@ package org.example.commons.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.example.commons.enums.RatingStatus;
 
 @Data
 @NoArgsConstructor
@@ -12,4 +13,5 @@ public class MovieRatingDTO {
     private String title;
     private int releaseYear;
     private double rating;
+    private RatingStatus ratingStatus;
 }
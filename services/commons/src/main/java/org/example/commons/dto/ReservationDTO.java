@@ -23,4 +23,7 @@ public class ReservationDTO {
     private boolean ticketUsed;
     private LocalDateTime ticketUsedAt;
     private List<SeatDTO> seats;
+    private Long basketId;
+    // Tylko w żądaniu płatności koszyka: pozycje koszyka z seansem i miejscami każdej z nich
+    private List<ReservationDTO> basketItems;
 }
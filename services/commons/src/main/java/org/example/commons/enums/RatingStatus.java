@@ -0,0 +1,7 @@
+package org.example.commons.enums;
+
+public enum RatingStatus {
+    FRESH,
+    STALE,
+    MISSING
+}
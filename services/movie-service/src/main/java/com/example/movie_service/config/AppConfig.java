@@ -1,14 +1,23 @@
 package com.example.movie_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${ratings.api.connect-timeout:1s}") Duration connectTimeout,
+                                     @Value("${ratings.api.read-timeout:2s}") Duration readTimeout) {
+        // Bez limitów zawieszone połączenie blokowałoby wątek wzbogacania ocen bez końca
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
     }
 }
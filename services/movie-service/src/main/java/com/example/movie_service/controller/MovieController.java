@@ -1,5 +1,7 @@
 package com.example.movie_service.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -33,8 +35,15 @@ public class MovieController {
             @RequestParam("title")
             @NotEmpty(message = "Search title cannot be empty.")
             @Size(min = 2, max = 100, message = "Search title must be between 2 and 100 characters.")
-            String title) {
-        return movieService.getMoviesByTitleWithRatings(title);
+            String title,
+            @RequestParam(value = "page", defaultValue = "0")
+            @Min(value = 0, message = "Page must not be negative.")
+            int page,
+            @RequestParam(value = "size", defaultValue = "20")
+            @Min(value = 1, message = "Page size must be at least 1.")
+            @Max(value = 100, message = "Page size must not exceed 100.")
+            int size) {
+        return movieService.getMoviesByTitleWithRatings(title, page, size);
     }
 
     @GetMapping("/{movieId}/screenings")
@@ -1,5 +1,7 @@
 package com.example.movie_service.controller;
 
+import com.example.movie_service.dto.ScreeningPageDTO;
+import com.example.movie_service.repository.ScreeningSearchCriteria;
 import com.example.movie_service.service.ScreeningService;
 import jakarta.validation.Valid; // Dla walidacji DTO
 import jakarta.validation.constraints.NotBlank;
@@ -7,11 +9,13 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.example.commons.dto.ScreeningDTO; // Używamy DTO z commons
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated; // Dla walidacji parametrów ścieżki
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -52,6 +56,18 @@ public class ScreeningController {
     }
 
 
+    @GetMapping("/summary")
+    public ScreeningPageDTO getScreeningSummaries(
+            @RequestParam(value = "movieId", required = false) @Positive(message = "Movie ID must be positive") Long movieId,
+            @RequestParam(value = "hallId", required = false) @Positive(message = "Hall ID must be positive") Long hallId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = "50") @Positive(message = "Page size must be positive") int limit
+    ) {
+        return screeningService.getScreeningSummaries(new ScreeningSearchCriteria(movieId, hallId, from, to), after, limit);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ScreeningDTO> updateScreening(
             @PathVariable("id") @NotNull @Positive(message = "Screening ID must be positive") Long id,
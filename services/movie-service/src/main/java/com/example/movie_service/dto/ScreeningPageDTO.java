@@ -0,0 +1,16 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreeningPageDTO {
+    private List<ScreeningSummaryDTO> items;
+    // Parametr "after" dla kolejnej strony; null, gdy to ostatnia strona
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreeningSummaryDTO {
+    private Long id;
+    private LocalDateTime startTime;
+    private BigDecimal basePrice;
+    private Long movieId;
+    private String movieTitle;
+    private Long hallId;
+    private int hallNumber;
+}
@@ -1,21 +1,27 @@
 package com.example.movie_service.entity;
 
+import com.example.movie_service.search.MovieTitleIndexListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "movies")
+@EntityListeners(MovieTitleIndexListener.class)
+@Table(name = "movies", indexes = @Index(name = "idx_movies_rating_fetched_at", columnList = "rating_fetched_at"))
 public class Movie {
 
     public Movie(String title, int releaseYear) {
@@ -29,6 +35,11 @@ public class Movie {
     private String title;
     private int releaseYear;
 
+    // Ostatnio pobrana ocena; null przy braku oceny (film nieznany w serwisie ocen albo jeszcze nie pobrany)
+    private Double rating;
+    private LocalDateTime ratingFetchedAt;
+    private String ratingSource;
+
     @Override
     public String toString() {
         return "Movie{" +
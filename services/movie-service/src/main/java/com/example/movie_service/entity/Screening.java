@@ -12,6 +12,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Table(indexes = {
+        @Index(name = "idx_screening_start_time", columnList = "start_time, id"),
+        @Index(name = "idx_screening_movie_start", columnList = "movie_id, start_time"),
+        @Index(name = "idx_screening_hall_start", columnList = "hall_id, start_time")
+})
 public class Screening {
 
     public Screening(LocalDateTime startTime, BigDecimal basePrice, Movie movie, Hall hall) {
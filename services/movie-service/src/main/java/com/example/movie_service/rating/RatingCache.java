@@ -0,0 +1,298 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.exception.ExternalServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pamięć podręczna ocen filmów przed {@link RatingsClient}.
+ * <ul>
+ *     <li>TTL i ograniczony rozmiar (po przekroczeniu usuwane są wpisy najbliższe wygaśnięcia),</li>
+ *     <li>single-flight: równoległe chybienia dla jednego tytułu czekają na jedno wywołanie zewnętrzne,</li>
+ *     <li>odświeżanie z wyprzedzeniem: po {@code refresh-ahead-ratio} TTL trafienie zwraca bieżącą wartość
+ *     i zleca odświeżenie w tle,</li>
+ *     <li>"film nie istnieje" jest zapamiętywany z osobnym TTL; błędy komunikacji nie są zapamiętywane.</li>
+ * </ul>
+ * Każdy pobrany wynik trafia też do {@link RatingSnapshotStore}, z którego pamięć jest wypełniana przy starcie.
+ */
+@Component
+public class RatingCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RatingCache.class);
+
+    private final RatingsClient ratingsClient;
+    private final RatingSnapshotStore snapshotStore;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final double refreshAheadRatio;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<RatingsClient.RatingLookup>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter refreshes;
+    private final Counter evictions;
+    private final Timer upstreamLatency;
+
+    public RatingCache(RatingsClient ratingsClient,
+                       RatingSnapshotStore snapshotStore,
+                       @Value("${ratings.cache.ttl:6h}") Duration ttl,
+                       @Value("${ratings.cache.negative-ttl:24h}") Duration negativeTtl,
+                       @Value("${ratings.cache.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+                       @Value("${ratings.cache.max-size:10000}") int maxSize,
+                       @Value("${ratings.cache.refresh-threads:2}") int refreshThreads,
+                       MeterRegistry meterRegistry) {
+        this.ratingsClient = ratingsClient;
+        this.snapshotStore = snapshotStore;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.refreshAheadRatio = refreshAheadRatio;
+        this.maxSize = maxSize;
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ratings-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.negativeHits = cacheCounter(meterRegistry, "negative_hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.coalesced = cacheCounter(meterRegistry, "coalesced");
+        this.refreshes = Counter.builder("movies.ratings.cache.refreshes")
+                .description("Background refresh-ahead loads")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("movies.ratings.cache.evictions")
+                .description("Entries evicted to keep the cache within its size bound")
+                .register(meterRegistry);
+        this.upstreamLatency = Timer.builder("movies.ratings.upstream")
+                .description("Latency of external ratings API calls")
+                .register(meterRegistry);
+        Gauge.builder("movies.ratings.cache.size", entries, Map::size)
+                .description("Cached ratings (including not-found entries)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Wypełnia pamięć zapisanymi ocenami. Wpisy zachowują wiek z bazy: przeterminowane nie są trafieniem,
+     * ale {@link #peek(String)} nadal zwraca je jako ostatnią znaną ocenę.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<MovieRepository.RatingSnapshotView> snapshots = snapshotStore.loadAll();
+        for (MovieRepository.RatingSnapshotView snapshot : snapshots) {
+            boolean found = snapshot.getRating() != null;
+            long fetchedAt = snapshot.getRatingFetchedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            entries.putIfAbsent(key(snapshot.getTitle()), entry(found, found ? snapshot.getRating() : 0.0, fetchedAt));
+        }
+        LOG.info("Rating cache warmed up with {} stored ratings.", snapshots.size());
+    }
+
+    public Duration refreshAfter() {
+        return Duration.ofMillis((long) (ttlMillis * refreshAheadRatio));
+    }
+
+    public Duration negativeTtl() {
+        return Duration.ofMillis(negativeTtlMillis);
+    }
+
+    /**
+     * Ocena filmu; 0.0, jeśli serwis ocen go nie zna.
+     *
+     * @throws ExternalServiceException gdy wartości nie ma w pamięci, a serwis ocen jest niedostępny
+     */
+    public double getRating(String title) {
+        return lookup(title).rating();
+    }
+
+    /**
+     * Jak {@link #getRating(String)}, ale odróżnia "film nie istnieje" od oceny 0.0.
+     */
+    public RatingsClient.RatingLookup lookup(String title) {
+        String key = key(title);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && now < entry.expiresAt()) {
+            if (!entry.found()) {
+                negativeHits.increment();
+                return RatingsClient.RatingLookup.notFound();
+            }
+            hits.increment();
+            if (now >= entry.refreshAt()) {
+                refreshAhead(key, title);
+            }
+            return RatingsClient.RatingLookup.found(entry.rating());
+        }
+        misses.increment();
+        return await(load(key, title));
+    }
+
+    /**
+     * Pobiera ocenę z serwisu ocen (z zachowaniem single-flight), o ile wpis w pamięci minął już próg odświeżenia,
+     * i zapisuje wynik. Używane przez {@link RatingRefreshScheduler}.
+     *
+     * @throws ExternalServiceException gdy serwis ocen jest niedostępny
+     */
+    public RatingsClient.RatingLookup reload(String title) {
+        return await(load(key(title), title));
+    }
+
+    /**
+     * Ostatnia znana ocena bez względu na TTL i bez wywołania zewnętrznego; pusta, jeśli tytuł nie był
+     * jeszcze pobrany albo wpis został usunięty przy przekroczeniu limitu.
+     */
+    public Optional<RatingsClient.RatingLookup> peek(String title) {
+        Entry entry = entries.get(key(title));
+        return entry == null
+                ? Optional.empty()
+                : Optional.of(new RatingsClient.RatingLookup(entry.found(), entry.rating()));
+    }
+
+    private void refreshAhead(String key, String title) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refreshes.increment();
+                    load(key, title).join();
+                } catch (CompletionException e) {
+                    LOG.warn("Background refresh of rating for '{}' failed: {}", title, e.getCause().getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private CompletableFuture<RatingsClient.RatingLookup> load(String key, String title) {
+        CompletableFuture<RatingsClient.RatingLookup> created = new CompletableFuture<>();
+        CompletableFuture<RatingsClient.RatingLookup> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        // Poprzednie wywołanie mogło zakończyć się między odczytem wpisu a rejestracją tego
+        Entry current = entries.get(key);
+        if (current != null && System.currentTimeMillis() < current.refreshAt()) {
+            inFlight.remove(key, created);
+            created.complete(new RatingsClient.RatingLookup(current.found(), current.rating()));
+            return created;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            RatingsClient.RatingLookup lookup = ratingsClient.fetch(title);
+            store(key, lookup);
+            persist(title, lookup);
+            created.complete(lookup);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            sample.stop(upstreamLatency);
+            inFlight.remove(key, created);
+        }
+        return created;
+    }
+
+    private void store(String key, RatingsClient.RatingLookup lookup) {
+        long now = System.currentTimeMillis();
+        entries.put(key, entry(lookup.found(), lookup.rating(), now));
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+    }
+
+    // Błąd zapisu nie psuje odpowiedzi - ocena jest już w pamięci, a kolejne pobranie zapisze ją ponownie
+    private void persist(String title, RatingsClient.RatingLookup lookup) {
+        try {
+            snapshotStore.save(title, lookup, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            LOG.warn("Could not store rating snapshot for '{}': {}", title, e.getMessage());
+        }
+    }
+
+    private Entry entry(boolean found, double rating, long fetchedAt) {
+        long ttl = found ? ttlMillis : negativeTtlMillis;
+        return new Entry(found, rating, fetchedAt + (long) (ttl * refreshAheadRatio), fetchedAt + ttl);
+    }
+
+    // Wywoływane tylko po przekroczeniu limitu; usuwa ~10% wpisów, aby nie skanować mapy przy każdym zapisie
+    private synchronized void evict(long now) {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        entries.entrySet().removeIf(candidate -> candidate.getValue().expiresAt() <= now);
+        int excess = entries.size() - (int) (maxSize * 0.9);
+        if (excess > 0) {
+            entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(candidate -> candidate.getValue().expiresAt()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entries::remove);
+            evictions.increment(excess);
+        }
+    }
+
+    private static RatingsClient.RatingLookup await(CompletableFuture<RatingsClient.RatingLookup> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ExternalServiceException external) {
+                throw external;
+            }
+            throw new ExternalServiceException("Failed to load rating.", e.getCause());
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("movies.ratings.cache")
+                .description("Rating lookups by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String key(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(boolean found, double rating, long refreshAt, long expiresAt) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.entity.Movie;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.dto.MovieRatingDTO;
+import org.example.commons.enums.RatingStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Równoległe uzupełnianie listy filmów o oceny. Wywołania idą na wątkach wirtualnych, z limitem
+ * równoczesnych zapytań do serwisu ocen, limitem czasu na pojedynczą ocenę i terminem dla całej listy.
+ * Po upływie terminu odpowiedź jest składana z tego, co zdążyło wrócić: pozostałe filmy dostają ostatnią
+ * znaną ocenę ({@link RatingStatus#STALE}) albo {@link RatingStatus#MISSING}. Niedokończone wywołania
+ * kończą się w tle i zasilają {@link RatingCache} dla kolejnych żądań.
+ */
+@Component
+public class RatingEnricher {
+    private static final Logger LOG = LoggerFactory.getLogger(RatingEnricher.class);
+
+    private final RatingCache ratingCache;
+    private final Semaphore permits;
+    private final long callTimeoutMillis;
+    private final long deadlineMillis;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("ratings-enrich-", 0).factory());
+
+    private final Timer enrichmentTimer;
+    private final Counter degraded;
+
+    public RatingEnricher(RatingCache ratingCache,
+                          @Value("${ratings.enrichment.max-concurrency:8}") int maxConcurrency,
+                          @Value("${ratings.enrichment.call-timeout:1500ms}") Duration callTimeout,
+                          @Value("${ratings.enrichment.deadline:2s}") Duration deadline,
+                          MeterRegistry meterRegistry) {
+        this.ratingCache = ratingCache;
+        this.permits = new Semaphore(maxConcurrency);
+        this.callTimeoutMillis = callTimeout.toMillis();
+        this.deadlineMillis = deadline.toMillis();
+
+        this.enrichmentTimer = Timer.builder("movies.ratings.enrichment")
+                .description("Time to attach ratings to a movie list")
+                .register(meterRegistry);
+        this.degraded = Counter.builder("movies.ratings.enrichment.degraded")
+                .description("Movies returned with a stale or missing rating")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public List<MovieRatingDTO> enrich(List<Movie> movies) {
+        Timer.Sample sample = Timer.start();
+        List<CompletableFuture<RatingsClient.RatingLookup>> lookups = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            lookups.add(CompletableFuture
+                    .supplyAsync(() -> lookup(movie.getTitle()), executor)
+                    .orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS));
+        }
+
+        try {
+            CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                    .get(deadlineMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOG.warn("Rating enrichment of {} movies hit the {} ms deadline; returning partial ratings.",
+                    movies.size(), deadlineMillis);
+        } catch (ExecutionException e) {
+            // Pojedyncze błędy obsługiwane niżej, per film
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<MovieRatingDTO> result = new ArrayList<>(movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            result.add(toDto(movies.get(i), lookups.get(i)));
+        }
+        sample.stop(enrichmentTimer);
+        return result;
+    }
+
+    private RatingsClient.RatingLookup lookup(String title) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a ratings slot.", e);
+        }
+        try {
+            return ratingCache.lookup(title);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private MovieRatingDTO toDto(Movie movie, CompletableFuture<RatingsClient.RatingLookup> lookup) {
+        if (lookup.isDone() && !lookup.isCompletedExceptionally()) {
+            RatingsClient.RatingLookup rating = lookup.join();
+            if (rating.found()) {
+                return dto(movie, rating.rating(), RatingStatus.FRESH);
+            }
+            return dto(movie, 0.0, RatingStatus.MISSING);
+        }
+
+        degraded.increment();
+        if (lookup.isCompletedExceptionally()) {
+            LOG.warn("Could not fetch rating for movie '{}': {}. Falling back to last known rating.",
+                    movie.getTitle(), lookup.exceptionNow().toString());
+        }
+        return ratingCache.peek(movie.getTitle())
+                .filter(RatingsClient.RatingLookup::found)
+                .map(stale -> dto(movie, stale.rating(), RatingStatus.STALE))
+                .orElseGet(() -> dto(movie, 0.0, RatingStatus.MISSING));
+    }
+
+    private static MovieRatingDTO dto(Movie movie, double rating, RatingStatus status) {
+        return new MovieRatingDTO(movie.getId(), movie.getTitle(), movie.getReleaseYear(), rating, status);
+    }
+}
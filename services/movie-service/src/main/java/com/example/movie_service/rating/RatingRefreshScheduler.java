@@ -0,0 +1,139 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.commons.exception.ExternalServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Odświeża oceny filmów w tle przez {@link RatingCache}, zanim wpisy wygasną, tak aby ścieżka żądania trafiała
+ * w pamięć zamiast czekać na serwis ocen. W ramach limitu wywołań na minutę najpierw idą filmy najczęściej
+ * oglądane i najdawniej odświeżone (nigdy niepobrane mają pierwszeństwo). Filmy nieznane serwisowi ocen
+ * są ponawiane dopiero po {@code ratings.cache.negative-ttl}.
+ */
+@Component
+@EnableScheduling
+public class RatingRefreshScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(RatingRefreshScheduler.class);
+    private static final long BUDGET_WINDOW_MILLIS = 60_000;
+
+    private final MovieRepository movieRepository;
+    private final RatingCache ratingCache;
+    private final int budgetPerMinute;
+    // Liczba wyświetleń filmu od ostatniego odświeżenia jego oceny
+    private final Map<Long, LongAdder> demand = new ConcurrentHashMap<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    private final Counter refreshed;
+    private final Counter notFound;
+    private final Counter failed;
+
+    private long windowStart;
+    private int usedInWindow;
+
+    public RatingRefreshScheduler(MovieRepository movieRepository,
+                                  RatingCache ratingCache,
+                                  @Value("${ratings.refresh.budget-per-minute:30}") int budgetPerMinute,
+                                  MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.ratingCache = ratingCache;
+        this.budgetPerMinute = budgetPerMinute;
+
+        this.refreshed = refreshCounter(meterRegistry, "refreshed");
+        this.notFound = refreshCounter(meterRegistry, "not_found");
+        this.failed = refreshCounter(meterRegistry, "failed");
+        Gauge.builder("movies.ratings.refresh.backlog", backlog, AtomicInteger::get)
+                .description("Movies whose rating is due for a refresh")
+                .register(meterRegistry);
+    }
+
+    public void recordDemand(Collection<Long> movieIds) {
+        for (Long movieId : movieIds) {
+            demand.computeIfAbsent(movieId, id -> new LongAdder()).increment();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${ratings.refresh.initial-delay-ms:5000}",
+            fixedDelayString = "${ratings.refresh.interval-ms:10000}")
+    public synchronized void refresh() {
+        int allowance = remainingBudget();
+        if (allowance == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<MovieRepository.RatingRefreshView> due = movieRepository.findRatingRefreshViews(
+                now.minus(ratingCache.refreshAfter()), now.minus(ratingCache.negativeTtl()));
+        backlog.set(due.size());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Priorytet liczony raz - licznik wyświetleń może rosnąć w trakcie sortowania
+        List<MovieRepository.RatingRefreshView> batch = due.stream()
+                .map(movie -> new Candidate(movie, priority(movie, now)))
+                .sorted(Comparator.comparingDouble(Candidate::priority).reversed())
+                .limit(allowance)
+                .map(Candidate::movie)
+                .toList();
+        for (MovieRepository.RatingRefreshView movie : batch) {
+            usedInWindow++;
+            RatingsClient.RatingLookup lookup;
+            try {
+                lookup = ratingCache.reload(movie.getTitle());
+            } catch (ExternalServiceException e) {
+                // Serwis ocen niedostępny - reszta partii poczeka na kolejny przebieg
+                failed.increment();
+                LOG.warn("Rating refresh stopped after failure for movie '{}': {}", movie.getTitle(), e.getMessage());
+                return;
+            }
+            demand.remove(movie.getId());
+            backlog.decrementAndGet();
+            (lookup.found() ? refreshed : notFound).increment();
+        }
+    }
+
+    private int remainingBudget() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= BUDGET_WINDOW_MILLIS) {
+            windowStart = now;
+            usedInWindow = 0;
+        }
+        return Math.max(0, budgetPerMinute - usedInWindow);
+    }
+
+    // Popularność razy wiek oceny; brak oceny liczony jak wielokrotność progu odświeżenia
+    private double priority(MovieRepository.RatingRefreshView movie, LocalDateTime now) {
+        LongAdder views = demand.get(movie.getId());
+        double minutesOld = movie.getRatingFetchedAt() == null
+                ? ratingCache.refreshAfter().toMinutes() * 4.0
+                : Duration.between(movie.getRatingFetchedAt(), now).toMinutes();
+        return (1 + (views == null ? 0 : views.sum())) * (1 + minutesOld);
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("movies.ratings.refresh")
+                .description("Background rating refreshes by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Candidate(MovieRepository.RatingRefreshView movie, double priority) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.repository.MovieRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Trwała kopia {@link RatingCache} w kolumnach {@code movies.rating*}. Pamięć podręczna zapisuje tu każdy wynik
+ * pobrany z serwisu ocen (także "film nie istnieje" - jako {@code rating = null}) i wczytuje całość przy starcie,
+ * więc restart nie zaczyna od pustej pamięci.
+ */
+@Component
+public class RatingSnapshotStore {
+    public static final String SOURCE = "OMDb";
+
+    private final MovieRepository movieRepository;
+
+    public RatingSnapshotStore(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+
+    public List<MovieRepository.RatingSnapshotView> loadAll() {
+        return movieRepository.findRatingSnapshots();
+    }
+
+    public void save(String title, RatingsClient.RatingLookup lookup, LocalDateTime fetchedAt) {
+        movieRepository.updateRatingSnapshotByTitle(title.trim().toLowerCase(Locale.ROOT),
+                lookup.found() ? lookup.rating() : null, fetchedAt, SOURCE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.dto.RatingDTO;
+import org.example.commons.exception.ExternalServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Klient zewnętrznego API ocen (OMDb). Odróżnia "film nie istnieje" (wynik, który można zapamiętać)
+ * od błędu komunikacji ({@link ExternalServiceException}, którego zapamiętywać nie wolno).
+ */
+@Component
+public class RatingsClient {
+    private static final Logger LOG = LoggerFactory.getLogger(RatingsClient.class);
+
+    private final RestTemplate restTemplate;
+    private final String ratingsApiUrl;
+    private final String ratingsApiKey;
+
+    public RatingsClient(RestTemplate restTemplate,
+                         @Value("${ratings.api.url}") String ratingsApiUrl,
+                         @Value("${ratings.api.key}") String ratingsApiKey) {
+        this.restTemplate = restTemplate;
+        this.ratingsApiUrl = ratingsApiUrl;
+        this.ratingsApiKey = ratingsApiKey;
+    }
+
+    public RatingLookup fetch(String title) {
+        String url = ratingsApiUrl + "?apikey=" + ratingsApiKey + "&t=" + URLEncoder.encode(title, StandardCharsets.UTF_8);
+        ResponseEntity<RatingDTO> responseEntity;
+
+        try {
+            responseEntity = restTemplate.getForEntity(url, RatingDTO.class);
+
+            if (responseEntity.getStatusCode() == HttpStatus.OK) {
+                RatingDTO responseBody = responseEntity.getBody();
+                if (responseBody != null && "True".equalsIgnoreCase(responseBody.getResponse())) {
+                    return RatingLookup.found(parseRating(responseBody.getImdbRating()));
+                } else if (responseBody != null) {
+                    LOG.warn("OMDB API could not find movie titled '{}'. Response: {}", title, responseBody.toString());
+                    return RatingLookup.notFound();
+                } else {
+                    LOG.warn("OMDB API returned 200 OK but with null body for title '{}'", title);
+                    return RatingLookup.notFound();
+                }
+            } else {
+                LOG.warn("OMDB API returned non-OK status: {} for title '{}'", responseEntity.getStatusCode(), title);
+                throw new ExternalServiceException("External rating service returned HTTP status: " + responseEntity.getStatusCode());
+            }
+        } catch (HttpStatusCodeException e) {
+            LOG.error("HTTP error fetching rating for title '{}'. Status: {}, Response: {}",
+                    title, e.getStatusCode(), e.getResponseBodyAsString(), e);
+            throw new ExternalServiceException("HTTP error from external rating service: " + e.getStatusCode(), e);
+        } catch (RestClientException e) {
+            LOG.error("Error connecting to external rating service for title '{}': {}", title, e.getMessage(), e);
+            throw new ExternalServiceException("Communication error with external rating service.", e);
+        }
+    }
+
+    private double parseRating(String ratingStr) {
+        if (ratingStr == null) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(ratingStr);
+        } catch (NumberFormatException e) {
+            LOG.warn("Could not parse rating string: '{}'", ratingStr, e);
+            return 0.0;
+        }
+    }
+
+    public record RatingLookup(boolean found, double rating) {
+        public static RatingLookup found(double rating) {
+            return new RatingLookup(true, rating);
+        }
+
+        public static RatingLookup notFound() {
+            return new RatingLookup(false, 0.0);
+        }
+    }
+}
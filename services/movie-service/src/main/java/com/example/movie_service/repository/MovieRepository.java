@@ -2,9 +2,60 @@ package com.example.movie_service.repository;
 
 import com.example.movie_service.entity.Movie;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     List<Movie> findByTitleContainingIgnoreCase(String title);
+
+    @Query("select m.id as id, m.title as title from Movie m")
+    List<MovieTitleView> findAllTitles();
+
+    @Query("select m.title as title, m.rating as rating, m.ratingFetchedAt as ratingFetchedAt from Movie m " +
+            "where m.ratingFetchedAt is not null")
+    List<RatingSnapshotView> findRatingSnapshots();
+
+    // Nigdy niepobrane, znalezione starsze niż foundBefore i nieznalezione starsze niż notFoundBefore
+    @Query("select m.id as id, m.title as title, m.ratingFetchedAt as ratingFetchedAt from Movie m " +
+            "where m.ratingFetchedAt is null " +
+            "or (m.rating is not null and m.ratingFetchedAt < :foundBefore) " +
+            "or (m.rating is null and m.ratingFetchedAt < :notFoundBefore)")
+    List<RatingRefreshView> findRatingRefreshViews(@Param("foundBefore") LocalDateTime foundBefore,
+                                                   @Param("notFoundBefore") LocalDateTime notFoundBefore);
+
+    @Transactional
+    @Modifying
+    @Query("update Movie m set m.rating = :rating, m.ratingFetchedAt = :fetchedAt, m.ratingSource = :source " +
+            "where lower(trim(m.title)) = :title")
+    int updateRatingSnapshotByTitle(@Param("title") String normalizedTitle,
+                                    @Param("rating") Double rating,
+                                    @Param("fetchedAt") LocalDateTime fetchedAt,
+                                    @Param("source") String source);
+
+    interface MovieTitleView {
+        Long getId();
+
+        String getTitle();
+    }
+
+    interface RatingSnapshotView {
+        String getTitle();
+
+        Double getRating();
+
+        LocalDateTime getRatingFetchedAt();
+    }
+
+    interface RatingRefreshView {
+        Long getId();
+
+        String getTitle();
+
+        LocalDateTime getRatingFetchedAt();
+    }
 }
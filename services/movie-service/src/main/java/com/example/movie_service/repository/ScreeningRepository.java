@@ -5,6 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
-public interface ScreeningRepository extends JpaRepository<Screening, Long> {
+public interface ScreeningRepository extends JpaRepository<Screening, Long>, ScreeningSummaryRepository {
     List<Screening> findAllByMovieId(Long movieId);
 }
\ No newline at end of file
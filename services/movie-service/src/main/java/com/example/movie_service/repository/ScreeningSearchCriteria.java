@@ -0,0 +1,13 @@
+package com.example.movie_service.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtry listy seansów; {@code null} oznacza brak filtra. Przedział czasu rozpoczęcia jest
+ * lewostronnie domknięty: {@code [from, to)}.
+ */
+public record ScreeningSearchCriteria(Long movieId,
+                                      Long hallId,
+                                      LocalDateTime from,
+                                      LocalDateTime to) {
+}
@@ -0,0 +1,16 @@
+package com.example.movie_service.repository;
+
+import com.example.movie_service.dto.ScreeningSummaryDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ScreeningSummaryRepository {
+
+    /**
+     * Strona seansów w kolejności (startTime, id), zaczynając za seansem ({@code afterStartTime}, {@code afterId});
+     * oba {@code null} oznaczają pierwszą stronę. Film i sala są dołączane w tym samym zapytaniu jako projekcja,
+     * bez ładowania encji ani miejsc sali.
+     */
+    List<ScreeningSummaryDTO> findSummaries(ScreeningSearchCriteria criteria, LocalDateTime afterStartTime, Long afterId, int limit);
+}
@@ -0,0 +1,73 @@
+package com.example.movie_service.repository;
+
+import com.example.movie_service.dto.ScreeningSummaryDTO;
+import com.example.movie_service.entity.Hall;
+import com.example.movie_service.entity.Movie;
+import com.example.movie_service.entity.Screening;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predykaty są dokładane tylko dla podanych filtrów, aby planista mógł użyć indeksów
+ * (movie_id, start_time), (hall_id, start_time) i (start_time).
+ */
+public class ScreeningSummaryRepositoryImpl implements ScreeningSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ScreeningSummaryDTO> findSummaries(ScreeningSearchCriteria criteria, LocalDateTime afterStartTime, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ScreeningSummaryDTO> query = cb.createQuery(ScreeningSummaryDTO.class);
+        Root<Screening> screening = query.from(Screening.class);
+        Join<Screening, Movie> movie = screening.join("movie");
+        Join<Screening, Hall> hall = screening.join("hall");
+        Path<LocalDateTime> startTime = screening.get("startTime");
+        Path<Long> id = screening.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.movieId() != null) {
+            predicates.add(cb.equal(movie.get("id"), criteria.movieId()));
+        }
+        if (criteria.hallId() != null) {
+            predicates.add(cb.equal(hall.get("id"), criteria.hallId()));
+        }
+        if (criteria.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(startTime, criteria.from()));
+        }
+        if (criteria.to() != null) {
+            predicates.add(cb.lessThan(startTime, criteria.to()));
+        }
+        if (afterStartTime != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(startTime, afterStartTime),
+                    cb.and(cb.equal(startTime, afterStartTime), cb.greaterThan(id, afterId))));
+        }
+
+        query.select(cb.construct(ScreeningSummaryDTO.class,
+                        id,
+                        startTime,
+                        screening.get("basePrice"),
+                        movie.get("id"),
+                        movie.get("title"),
+                        hall.get("id"),
+                        hall.get("number")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(startTime), cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.movie_service.search;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indeks trigramowy tytułów filmów w pamięci, zastępujący {@code LIKE '%x%'} przy wyszukiwaniu.
+ * Tytuły i zapytania są normalizowane (małe litery, bez znaków diakrytycznych - także "ł"), więc
+ * "lodz" znajduje "Łódź". Wynik jest rankingowany po odsetku trigramów zapytania obecnych w tytule,
+ * co toleruje literówki; dopasowanie podciągu i krótszy tytuł mają pierwszeństwo przy remisie.
+ * Ładowany przy starcie, potem aktualizowany pojedynczymi zmianami z {@link MovieTitleIndexListener}.
+ * Ładowanie buduje nowy indeks poza blokadą i podmienia go atomowo; zmiany, które przyszły w trakcie
+ * ładowania, są na nim powtarzane, więc nie giną, nawet jeśli odczyt z bazy ich nie widział.
+ */
+@Component
+public class MovieTitleIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(MovieTitleIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private final MovieRepository movieRepository;
+    private final double minSimilarity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TitleIndex index = new TitleIndex();
+    // Zmiany z put/remove w trakcie load(); null, gdy ładowanie nie trwa
+    private List<Change> changesDuringLoad;
+    private volatile boolean ready;
+
+    public MovieTitleIndex(MovieRepository movieRepository,
+                           @Value("${movies.search.min-similarity:0.5}") double minSimilarity,
+                           MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.minSimilarity = minSimilarity;
+        Gauge.builder("movies.search.index.size", this, MovieTitleIndex::size)
+                .description("Movie titles held in the search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            changesDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TitleIndex loaded = new TitleIndex();
+        int count;
+        try {
+            List<MovieRepository.MovieTitleView> all = movieRepository.findAllTitles();
+            for (MovieRepository.MovieTitleView movie : all) {
+                loaded.index(movie.getId(), movie.getTitle());
+            }
+            count = all.size();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Odczyt z bazy mógł nie widzieć zmian zatwierdzonych w trakcie - powtórzenie jest idempotentne
+            for (Change change : changesDuringLoad) {
+                change.applyTo(loaded);
+            }
+            index = loaded;
+            changesDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Movie title index loaded with {} titles.", count);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(Long movieId, String title) {
+        apply(new Change(movieId, title));
+    }
+
+    public void remove(Long movieId) {
+        apply(new Change(movieId, null));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.titles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Identyfikatory filmów pasujących do zapytania, od najlepiej dopasowanego; strona {@code page} po {@code size}.
+     */
+    public List<Long> search(String query, int page, int size) {
+        String normalizedQuery = normalize(query);
+        Set<String> queryTrigrams = trigrams(normalizedQuery);
+        if (queryTrigrams.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int minMatches = (int) Math.ceil(queryTrigrams.size() * minSimilarity);
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Long, int[]> hits = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                Set<Long> movieIds = index.postings.get(trigram);
+                if (movieIds != null) {
+                    for (Long movieId : movieIds) {
+                        hits.computeIfAbsent(movieId, id -> new int[1])[0]++;
+                    }
+                }
+            }
+            for (Map.Entry<Long, int[]> hit : hits.entrySet()) {
+                int matched = hit.getValue()[0];
+                if (matched < minMatches) {
+                    continue;
+                }
+                IndexedTitle title = index.titles.get(hit.getKey());
+                matches.add(new Match(hit.getKey(),
+                        (double) matched / queryTrigrams.size(),
+                        title.normalized().contains(normalizedQuery),
+                        title.trigramCount()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // long - page * size może przekroczyć zakres int dla dużych numerów stron
+        long from = (long) page * size;
+        if (from >= matches.size()) {
+            return Collections.emptyList();
+        }
+        matches.sort(Comparator.comparingDouble(Match::coverage).reversed()
+                .thenComparing(Match::substring, Comparator.reverseOrder())
+                .thenComparingInt(Match::trigramCount)
+                .thenComparingLong(Match::movieId));
+        return matches.subList((int) from, (int) Math.min(from + size, matches.size())).stream()
+                .map(Match::movieId)
+                .toList();
+    }
+
+    static String normalize(String text) {
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        // "ł" nie rozkłada się w NFD na literę i znak diakrytyczny
+        folded = folded.replace('ł', 'l').replace('Ł', 'L');
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Trigramy każdego słowa z dopełnieniem spacją, aby początki i końce słów ważyły więcej
+    static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return trigrams;
+        }
+        for (String word : normalized.split(" ")) {
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    private void apply(Change change) {
+        lock.writeLock().lock();
+        try {
+            change.applyTo(index);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class TitleIndex {
+        private final Map<Long, IndexedTitle> titles = new HashMap<>();
+        private final Map<String, Set<Long>> postings = new HashMap<>();
+
+        void index(Long movieId, String title) {
+            unindex(movieId);
+            if (title == null) {
+                return;
+            }
+            String normalized = normalize(title);
+            Set<String> trigrams = trigrams(normalized);
+            titles.put(movieId, new IndexedTitle(normalized, trigrams));
+            for (String trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(movieId);
+            }
+        }
+
+        void unindex(Long movieId) {
+            IndexedTitle previous = titles.remove(movieId);
+            if (previous == null) {
+                return;
+            }
+            for (String trigram : previous.trigrams()) {
+                Set<Long> movieIds = postings.get(trigram);
+                if (movieIds != null && movieIds.remove(movieId) && movieIds.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    // Tytuł null oznacza usunięcie filmu
+    private record Change(Long movieId, String title) {
+        void applyTo(TitleIndex index) {
+            index.index(movieId, title);
+        }
+    }
+
+    private record IndexedTitle(String normalized, Set<String> trigrams) {
+        int trigramCount() {
+            return trigrams.size();
+        }
+    }
+
+    private record Match(Long movieId, double coverage, boolean substring, int trigramCount) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.movie_service.search;
+
+import com.example.movie_service.entity.Movie;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Przenosi zmiany encji {@link Movie} do {@link MovieTitleIndex} po zatwierdzeniu transakcji.
+ * Tworzony przez Hibernate przez kontener Springa; indeks jest opcjonalny (np. w testach {@code @DataJpaTest}).
+ */
+public class MovieTitleIndexListener {
+
+    private final ObjectProvider<MovieTitleIndex> titleIndex;
+
+    public MovieTitleIndexListener(ObjectProvider<MovieTitleIndex> titleIndex) {
+        this.titleIndex = titleIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Movie movie) {
+        Long movieId = movie.getId();
+        String title = movie.getTitle();
+        afterCommit(() -> titleIndex.ifAvailable(index -> index.put(movieId, title)));
+    }
+
+    @PostRemove
+    public void onRemoved(Movie movie) {
+        Long movieId = movie.getId();
+        afterCommit(() -> titleIndex.ifAvailable(index -> index.remove(movieId)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.movie_service.service;
 
+import com.example.movie_service.dto.ScreeningPageDTO;
+import com.example.movie_service.dto.ScreeningSummaryDTO;
 import com.example.movie_service.entity.Hall;
 import com.example.movie_service.entity.Movie;
 import com.example.movie_service.entity.Screening;
@@ -8,6 +10,7 @@ import com.example.movie_service.kafka.producer.ScreeningEventProducer; // Zaimp
 import com.example.movie_service.repository.HallRepository;
 import com.example.movie_service.repository.MovieRepository;
 import com.example.movie_service.repository.ScreeningRepository;
+import com.example.movie_service.repository.ScreeningSearchCriteria;
 import com.example.movie_service.repository.SeatRepository;
 import lombok.RequiredArgsConstructor;
 import org.example.commons.dto.HallDTO; // Używamy DTO z commons
@@ -20,9 +23,11 @@ import org.example.commons.events.ScreeningUpdatedEvent;
 import org.example.commons.exception.ResourceNotFoundException; // Użyj wyjątku z commons
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -40,6 +45,9 @@ public class ScreeningService {
     // SeatRepository nie jest potrzebne, jeśli Hall przechowuje swoje miejsca
     private final ScreeningEventProducer screeningEventProducer;
 
+    @Value("${movies.screenings.max-page-size:200}")
+    private int maxSummaryPageSize;
+
     @Transactional
     public ScreeningDTO createScreening(ScreeningDTO screeningRequestDTO) {
         // ... (walidacja jak poprzednio) ...
@@ -128,6 +136,36 @@ public class ScreeningService {
     }
 
 
+    /**
+     * Lista seansów bez miejsc sali (np. repertuar), stronicowana kluczem (startTime, id).
+     * Pełne {@link ScreeningDTO} z miejscami zostają dla widoku sali.
+     */
+    @Transactional(readOnly = true)
+    public ScreeningPageDTO getScreeningSummaries(ScreeningSearchCriteria criteria, String after, int limit) {
+        if (limit > maxSummaryPageSize) {
+            throw new IllegalArgumentException("Page size cannot exceed " + maxSummaryPageSize + ".");
+        }
+        LocalDateTime afterStartTime = null;
+        Long afterId = null;
+        if (after != null) {
+            int separator = after.lastIndexOf('_');
+            try {
+                afterStartTime = LocalDateTime.parse(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid page cursor: " + after);
+            }
+        }
+        // Jeden dodatkowy wiersz mówi, czy istnieje kolejna strona - bez zapytania zliczającego
+        List<ScreeningSummaryDTO> rows = screeningRepository.findSummaries(criteria, afterStartTime, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new ScreeningPageDTO(rows, null);
+        }
+        List<ScreeningSummaryDTO> page = rows.subList(0, limit);
+        ScreeningSummaryDTO last = page.get(limit - 1);
+        return new ScreeningPageDTO(page, last.getStartTime() + "_" + last.getId());
+    }
+
     @Transactional
     public ScreeningDTO updateScreening(Long screeningId, ScreeningDTO screeningUpdateDTO) {
         // ... (logika aktualizacji jak poprzednio) ...
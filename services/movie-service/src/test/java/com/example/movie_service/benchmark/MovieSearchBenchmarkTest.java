@@ -0,0 +1,99 @@
+package com.example.movie_service.benchmark;
+
+import com.example.movie_service.entity.Movie;
+import com.example.movie_service.repository.MovieRepository;
+import com.example.movie_service.search.MovieTitleIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Wyszukiwanie po tytule przy 100 tys. filmów: {@code findByTitleContainingIgnoreCase} (LIKE '%x%', pełny skan)
+ * kontra {@link MovieTitleIndex}. Uruchamiany na żądanie: {@code mvn test -Dbenchmark=true -Dtest=MovieSearchBenchmarkTest}.
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MovieSearchBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(MovieSearchBenchmarkTest.class);
+    private static final int TITLES = 100_000;
+    private static final int FLUSH_EVERY = 1_000;
+    private static final int ROUNDS = 3;
+    private static final String[] WORDS = {
+            "noc", "dzień", "miasto", "Łódź", "żółty", "księżyc", "ostatni", "powrót", "wojna", "miłość",
+            "the", "dark", "knight", "return", "river", "shadow", "empire", "star", "ocean", "silent",
+            "godfather", "inception", "matrix", "cień", "gwiazda", "wiatr", "król", "zima", "lato", "morze"};
+    private static final List<String> QUERIES = List.of(
+            "ksiezyc", "godfather", "lodz", "silent river", "powrot krola", "incepton", "zolty", "empire");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Test
+    void indexAnswersTitleSearchFasterThanLikeScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < TITLES; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            entityManager.persist(new Movie(title, 1950 + random.nextInt(75)));
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        MovieTitleIndex index = new MovieTitleIndex(movieRepository, 0.5, new SimpleMeterRegistry());
+        long loadStart = System.nanoTime();
+        index.load();
+        LOG.info("Index load: {} titles in {} ms", index.size(), Duration.ofNanos(System.nanoTime() - loadStart).toMillis());
+
+        // Rozgrzewka JIT
+        runQueries(query -> movieRepository.findByTitleContainingIgnoreCase(query));
+        runQueries(query -> index.search(query, 0, 20));
+
+        Duration like = best(query -> movieRepository.findByTitleContainingIgnoreCase(query));
+        Duration indexed = best(query -> index.search(query, 0, 20));
+        LOG.info("LIKE scan: {} queries in {} ms ({} us/query)",
+                QUERIES.size(), like.toMillis(), String.format("%.1f", like.toNanos() / 1_000.0 / QUERIES.size()));
+        LOG.info("Trigram index: {} queries in {} ms ({} us/query)",
+                QUERIES.size(), indexed.toMillis(), String.format("%.1f", indexed.toNanos() / 1_000.0 / QUERIES.size()));
+
+        assertTrue(indexed.compareTo(like) < 0, "Trigram index should beat the LIKE scan");
+    }
+
+    private Duration best(Consumer<String> search) {
+        Duration best = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            Duration time = runQueries(search);
+            if (best == null || time.compareTo(best) < 0) {
+                best = time;
+            }
+        }
+        return best;
+    }
+
+    private Duration runQueries(Consumer<String> search) {
+        long start = System.nanoTime();
+        for (String query : QUERIES) {
+            search.accept(query);
+            entityManager.clear();
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
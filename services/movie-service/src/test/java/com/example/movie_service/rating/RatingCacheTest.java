@@ -0,0 +1,194 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.commons.exception.ExternalServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RatingCacheTest {
+
+    private StubRatingsServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private RatingSnapshotStore snapshotStore;
+    private RatingCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubRatingsServer();
+        meterRegistry = new SimpleMeterRegistry();
+        snapshotStore = mock(RatingSnapshotStore.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.stop();
+        }
+        stub.close();
+    }
+
+    private RatingCache cache(Duration ttl, Duration negativeTtl, double refreshAheadRatio) {
+        RatingsClient client = new RatingsClient(new RestTemplate(), stub.url(), "test");
+        cache = new RatingCache(client, snapshotStore, ttl, negativeTtl, refreshAheadRatio, 100, 1, meterRegistry);
+        return cache;
+    }
+
+    private double cacheResults(String result) {
+        return meterRegistry.get("movies.ratings.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void concurrentMissesShareSingleUpstreamCall() throws Exception {
+        stub.rating("Inception", "8.8");
+        stub.delay(200);
+        RatingCache ratings = cache(Duration.ofHours(1), Duration.ofHours(1), 0.8);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Double>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return ratings.getRating("Inception");
+            }));
+        }
+        start.countDown();
+        for (Future<Double> result : results) {
+            assertEquals(8.8, result.get());
+        }
+        pool.shutdown();
+
+        assertEquals(1, stub.calls("Inception"));
+        assertEquals(8.8, ratings.getRating("inception "));
+        assertEquals(1, stub.calls("Inception"));
+    }
+
+    @Test
+    void unknownTitleIsCachedForNegativeTtl() throws Exception {
+        RatingCache ratings = cache(Duration.ofHours(1), Duration.ofMillis(150), 1.0);
+
+        assertEquals(0.0, ratings.getRating("Nope"));
+        assertEquals(0.0, ratings.getRating("Nope"));
+        assertEquals(1, stub.calls("Nope"));
+        assertEquals(1.0, cacheResults("negative_hit"));
+
+        Thread.sleep(200);
+        assertEquals(0.0, ratings.getRating("Nope"));
+        assertEquals(2, stub.calls("Nope"));
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws Exception {
+        stub.rating("Heat", "8.3");
+        RatingCache ratings = cache(Duration.ofMillis(150), Duration.ofMillis(150), 1.0);
+
+        assertEquals(8.3, ratings.getRating("Heat"));
+        stub.rating("Heat", "8.4");
+        assertEquals(8.3, ratings.getRating("Heat"));
+
+        Thread.sleep(200);
+        assertEquals(8.4, ratings.getRating("Heat"));
+        assertEquals(2, stub.calls("Heat"));
+    }
+
+    @Test
+    void hitPastRefreshPointServesCurrentValueAndRefreshesInBackground() throws Exception {
+        stub.rating("Alien", "8.4");
+        RatingCache ratings = cache(Duration.ofSeconds(2), Duration.ofSeconds(2), 0.1);
+
+        assertEquals(8.4, ratings.getRating("Alien"));
+        stub.rating("Alien", "8.5");
+        Thread.sleep(300);
+
+        assertEquals(8.4, ratings.getRating("Alien"));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (stub.calls("Alien") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(8.5, ratings.getRating("Alien"));
+        assertEquals(1.0, meterRegistry.get("movies.ratings.cache.refreshes").counter().count());
+    }
+
+    @Test
+    void upstreamFailuresAreNotCached() {
+        stub.rating("Up", "8.2");
+        stub.failing(true);
+        RatingCache ratings = cache(Duration.ofHours(1), Duration.ofHours(1), 0.8);
+
+        assertThrows(ExternalServiceException.class, () -> ratings.getRating("Up"));
+
+        stub.failing(false);
+        assertEquals(8.2, ratings.getRating("Up"));
+        assertEquals(2, stub.calls("Up"));
+    }
+
+    @Test
+    void loadedRatingsAreWrittenThroughToTheStore() {
+        stub.rating("Heat", "8.3");
+        RatingCache ratings = cache(Duration.ofHours(1), Duration.ofHours(1), 0.8);
+
+        ratings.getRating("Heat");
+        ratings.getRating("Nope");
+
+        verify(snapshotStore).save(eq("Heat"), eq(RatingsClient.RatingLookup.found(8.3)), any());
+        verify(snapshotStore).save(eq("Nope"), eq(RatingsClient.RatingLookup.notFound()), any());
+    }
+
+    @Test
+    void warmUpServesStoredRatingsWithoutUpstreamCalls() {
+        LocalDateTime now = LocalDateTime.now();
+        when(snapshotStore.loadAll()).thenReturn(List.of(
+                new Snapshot("Heat", 8.3, now.minusMinutes(5)),
+                new Snapshot("Nope", null, now.minusMinutes(5)),
+                new Snapshot("Alien", 8.4, now.minusDays(2))));
+        RatingCache ratings = cache(Duration.ofHours(1), Duration.ofHours(1), 0.8);
+
+        ratings.warmUp();
+
+        assertEquals(8.3, ratings.getRating("Heat"));
+        assertEquals(0.0, ratings.getRating("Nope"));
+        assertEquals(0, stub.calls("Heat") + stub.calls("Nope"));
+        // Przeterminowany wpis nie jest trafieniem, ale zostaje ostatnią znaną oceną
+        assertEquals(8.4, ratings.peek("Alien").orElseThrow().rating());
+        assertEquals(0.0, ratings.getRating("Alien"));
+        assertEquals(1, stub.calls("Alien"));
+    }
+
+    private record Snapshot(String title, Double rating, LocalDateTime fetchedAt) implements MovieRepository.RatingSnapshotView {
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public Double getRating() {
+            return rating;
+        }
+
+        @Override
+        public LocalDateTime getRatingFetchedAt() {
+            return fetchedAt;
+        }
+    }
+}
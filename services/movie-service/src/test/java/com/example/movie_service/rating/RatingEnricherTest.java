@@ -0,0 +1,107 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.entity.Movie;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.commons.dto.MovieRatingDTO;
+import org.example.commons.enums.RatingStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class RatingEnricherTest {
+
+    private StubRatingsServer stub;
+    private RatingCache cache;
+    private RatingEnricher enricher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubRatingsServer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        enricher.stop();
+        cache.stop();
+        stub.close();
+    }
+
+    private void enricher(Duration ttl, Duration callTimeout, Duration deadline) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RatingsClient client = new RatingsClient(new RestTemplate(), stub.url(), "test");
+        cache = new RatingCache(client, mock(RatingSnapshotStore.class), ttl, ttl, 1.0, 100, 1, meterRegistry);
+        enricher = new RatingEnricher(cache, 4, callTimeout, deadline, meterRegistry);
+    }
+
+    private static List<Movie> movies(String... titles) {
+        long id = 1;
+        List<Movie> movies = new ArrayList<>();
+        for (String title : titles) {
+            movies.add(new Movie(id++, title, 2000));
+        }
+        return movies;
+    }
+
+    @Test
+    void lookupsRunConcurrentlyInsteadOfOneAfterAnother() {
+        for (int i = 1; i <= 8; i++) {
+            stub.rating("Movie " + i, "7." + i);
+        }
+        stub.delay(200);
+        enricher(Duration.ofHours(1), Duration.ofSeconds(2), Duration.ofSeconds(5));
+
+        long start = System.nanoTime();
+        List<MovieRatingDTO> result = enricher.enrich(movies(
+                "Movie 1", "Movie 2", "Movie 3", "Movie 4", "Movie 5", "Movie 6", "Movie 7", "Movie 8"));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // 8 wywołań po 200 ms przy limicie 4 naraz: dwie tury zamiast ośmiu
+        assertTrue(elapsedMillis < 1200, "took " + elapsedMillis + " ms");
+        assertEquals(8, result.size());
+        assertEquals("Movie 3", result.get(2).getTitle());
+        assertEquals(7.3, result.get(2).getRating());
+        assertTrue(result.stream().allMatch(movie -> movie.getRatingStatus() == RatingStatus.FRESH));
+    }
+
+    @Test
+    void deadlineReturnsPartialResultWithMissingRating() {
+        stub.rating("Fast", "8.0");
+        stub.rating("Slow", "9.0");
+        stub.delay("Slow", 1500);
+        enricher(Duration.ofHours(1), Duration.ofSeconds(2), Duration.ofMillis(300));
+
+        long start = System.nanoTime();
+        List<MovieRatingDTO> result = enricher.enrich(movies("Fast", "Slow", "Unknown"));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 1000, "took " + elapsedMillis + " ms");
+        assertEquals(RatingStatus.FRESH, result.get(0).getRatingStatus());
+        assertEquals(8.0, result.get(0).getRating());
+        assertEquals(RatingStatus.MISSING, result.get(1).getRatingStatus());
+        assertEquals(0.0, result.get(1).getRating());
+        assertEquals(RatingStatus.MISSING, result.get(2).getRatingStatus());
+    }
+
+    @Test
+    void timedOutLookupFallsBackToLastKnownRating() throws Exception {
+        stub.rating("Heat", "8.3");
+        enricher(Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofSeconds(1));
+        assertEquals(RatingStatus.FRESH, enricher.enrich(movies("Heat")).get(0).getRatingStatus());
+
+        Thread.sleep(150);
+        stub.delay("Heat", 1000);
+        MovieRatingDTO stale = enricher.enrich(movies("Heat")).get(0);
+
+        assertEquals(RatingStatus.STALE, stale.getRatingStatus());
+        assertEquals(8.3, stale.getRating());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.movie_service.rating;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RatingRefreshSchedulerTest {
+
+    private StubRatingsServer stub;
+    private MovieRepository movieRepository;
+    private RatingSnapshotStore snapshotStore;
+    private RatingCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubRatingsServer();
+        movieRepository = mock(MovieRepository.class);
+        snapshotStore = mock(RatingSnapshotStore.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.stop();
+        }
+        stub.close();
+    }
+
+    private RatingRefreshScheduler scheduler(int budgetPerMinute) {
+        RatingsClient client = new RatingsClient(new RestTemplate(), stub.url(), "test");
+        if (cache != null) {
+            cache.stop();
+        }
+        cache = new RatingCache(client, snapshotStore, Duration.ofHours(6), Duration.ofDays(7), 0.5, 100, 1, new SimpleMeterRegistry());
+        return new RatingRefreshScheduler(movieRepository, cache, budgetPerMinute, new SimpleMeterRegistry());
+    }
+
+    private void due(View... movies) {
+        when(movieRepository.findRatingRefreshViews(any(), any())).thenReturn(List.of(movies));
+    }
+
+    @Test
+    void refreshesNoMoreThanBudgetPerMinute() {
+        due(new View(1L, "A", null), new View(2L, "B", null), new View(3L, "C", null),
+                new View(4L, "D", null), new View(5L, "E", null));
+        RatingRefreshScheduler scheduler = scheduler(3);
+
+        scheduler.refresh();
+        scheduler.refresh();
+
+        verify(snapshotStore, times(3)).save(any(), any(), any());
+    }
+
+    @Test
+    void popularAndNeverFetchedMoviesGoFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        stub.rating("Popular", "8.1");
+        stub.rating("Old", "7.0");
+        due(new View(1L, "Old", now.minusHours(7)), new View(2L, "Popular", now.minusHours(7)), new View(3L, "New", null));
+        RatingRefreshScheduler scheduler = scheduler(1);
+
+        scheduler.recordDemand(List.of(2L, 2L, 2L, 2L, 2L, 2L));
+        scheduler.refresh();
+
+        verify(snapshotStore).save(eq("Popular"), eq(RatingsClient.RatingLookup.found(8.1)), any());
+        assertEquals(0, stub.calls("New"));
+        assertEquals(0, stub.calls("Old"));
+
+        RatingRefreshScheduler fresh = scheduler(1);
+        fresh.refresh();
+        // Bez wyświetleń: nigdy niepobrana ocena wyprzedza nieaktualną
+        verify(snapshotStore).save(eq("New"), eq(RatingsClient.RatingLookup.notFound()), any());
+    }
+
+    @Test
+    void upstreamFailureStopsTheBatchWithoutTouchingSnapshots() {
+        stub.failing(true);
+        due(new View(1L, "A", null), new View(2L, "B", null));
+
+        scheduler(10).refresh();
+
+        assertEquals(1, stub.calls("A") + stub.calls("B"));
+        verify(snapshotStore, never()).save(any(), any(), any());
+    }
+
+    @Test
+    void notFoundTitlesWaitForTheNegativeTtlBeforeRetry() {
+        due();
+        LocalDateTime before = LocalDateTime.now();
+
+        scheduler(10).refresh();
+
+        ArgumentCaptor<LocalDateTime> foundBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> notFoundBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(movieRepository).findRatingRefreshViews(foundBefore.capture(), notFoundBefore.capture());
+        // Znalezione: po refresh-ahead-ratio * TTL = 3 h; nieznalezione: po negative-ttl = 7 dni
+        assertFalse(foundBefore.getValue().isBefore(before.minusHours(3)));
+        assertTrue(foundBefore.getValue().isBefore(before.minusHours(3).plusMinutes(1)));
+        assertFalse(notFoundBefore.getValue().isBefore(before.minusDays(7)));
+        assertTrue(notFoundBefore.getValue().isBefore(before.minusDays(7).plusMinutes(1)));
+    }
+
+    private record View(Long id, String title, LocalDateTime ratingFetchedAt) implements MovieRepository.RatingRefreshView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public LocalDateTime getRatingFetchedAt() {
+            return ratingFetchedAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.movie_service.rating;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimalny serwer HTTP udający API ocen (format OMDb) na potrzeby testów.
+ * Liczy wywołania per tytuł, pozwala ustawić opóźnienie odpowiedzi i zasymulować awarię.
+ */
+class StubRatingsServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, String> ratings = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, Long> titleDelays = new ConcurrentHashMap<>();
+    private volatile long delayMillis;
+    private volatile boolean failing;
+
+    StubRatingsServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    void rating(String title, String imdbRating) {
+        ratings.put(title, imdbRating);
+    }
+
+    void delay(long millis) {
+        this.delayMillis = millis;
+    }
+
+    void delay(String title, long millis) {
+        titleDelays.put(title, millis);
+    }
+
+    void failing(boolean failing) {
+        this.failing = failing;
+    }
+
+    int calls(String title) {
+        AtomicInteger counter = calls.get(title);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String title = titleParam(exchange.getRequestURI().getRawQuery());
+        calls.computeIfAbsent(title, key -> new AtomicInteger()).incrementAndGet();
+        try {
+            long delay = titleDelays.getOrDefault(title, delayMillis);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int status = 200;
+        String body;
+        if (failing) {
+            status = 503;
+            body = "{\"Response\":\"False\",\"Error\":\"Service unavailable\"}";
+        } else if (ratings.containsKey(title)) {
+            body = "{\"Title\":\"" + title + "\",\"imdbRating\":\"" + ratings.get(title) + "\",\"Response\":\"True\"}";
+        } else {
+            body = "{\"Response\":\"False\",\"Error\":\"Movie not found!\"}";
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String titleParam(String query) {
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("t=")) {
+                    return URLDecoder.decode(param.substring(2), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.movie_service.repository;
+
+import com.example.movie_service.dto.ScreeningSummaryDTO;
+import com.example.movie_service.entity.Hall;
+import com.example.movie_service.entity.Movie;
+import com.example.movie_service.entity.Screening;
+import org.example.testsupport.QueryBudget;
+import org.example.testsupport.QueryBudgetConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+class ScreeningSummaryRepositoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private ScreeningRepository screeningRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Movie inception;
+    private Hall smallHall;
+
+    @BeforeEach
+    void setUp() {
+        inception = entityManager.persist(new Movie("Inception", 2010));
+        Movie godfather = entityManager.persist(new Movie("The Godfather", 1972));
+        smallHall = entityManager.persist(new Hall(1, 5, 10));
+        Hall bigHall = entityManager.persist(new Hall(2, 10, 20));
+        // Dwa seanse o tej samej godzinie - kolejność rozstrzyga ID
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime start = BASE.plusHours(i / 2);
+            entityManager.persist(new Screening(start, new BigDecimal("25.00"), i % 3 == 0 ? godfather : inception, i % 2 == 0 ? smallHall : bigHall));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesThroughMovieScheduleByStartTimeAndId() {
+        ScreeningSearchCriteria criteria = new ScreeningSearchCriteria(inception.getId(), null, null, null);
+        QueryBudget budget = QueryBudget.measure(() -> {
+            List<ScreeningSummaryDTO> first = screeningRepository.findSummaries(criteria, null, null, 3);
+            ScreeningSummaryDTO last = first.get(2);
+            List<ScreeningSummaryDTO> second = screeningRepository.findSummaries(criteria, last.getStartTime(), last.getId(), 10);
+
+            assertEquals(3, first.size());
+            assertEquals(3, second.size());
+            assertTrue(second.stream().allMatch(row -> "Inception".equals(row.getMovieTitle())));
+            assertTrue(second.get(0).getStartTime().isAfter(last.getStartTime())
+                    || second.get(0).getId() > last.getId());
+        });
+        // Jedno zapytanie na stronę: film i sala w projekcji, bez miejsc sali
+        budget.assertExactly(2);
+    }
+
+    @Test
+    void filtersByHallAndStartWindow() {
+        List<ScreeningSummaryDTO> rows = screeningRepository.findSummaries(
+                new ScreeningSearchCriteria(null, smallHall.getId(), BASE.plusHours(1), BASE.plusHours(4)), null, null, 10);
+
+        assertEquals(3, rows.size());
+        assertTrue(rows.stream().allMatch(row -> row.getHallNumber() == 1));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.movie_service.search;
+
+import com.example.movie_service.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieTitleIndexTest {
+
+    private MovieTitleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MovieTitleIndex(mock(MovieRepository.class), 0.5, new SimpleMeterRegistry());
+        index.put(1L, "The Godfather");
+        index.put(2L, "The Godfather Part II");
+        index.put(3L, "Ziemia obiecana. Łódź");
+        index.put(4L, "Żółty szalik");
+        index.put(5L, "Inception");
+    }
+
+    @Test
+    void foldsPolishDiacriticsBothWays() {
+        assertEquals(List.of(3L), index.search("lodz", 0, 10));
+        assertEquals(List.of(4L), index.search("zolty", 0, 10));
+        assertEquals(List.of(4L), index.search("ŻÓŁTY", 0, 10));
+    }
+
+    @Test
+    void toleratesTyposAndRanksShorterExactTitlesFirst() {
+        assertEquals(List.of(5L), index.search("incepton", 0, 10));
+        assertEquals(List.of(1L, 2L), index.search("godfather", 0, 10));
+        assertTrue(index.search("matrix", 0, 10).isEmpty());
+    }
+
+    @Test
+    void pagesThroughRankedResults() {
+        assertEquals(List.of(1L), index.search("godfather", 0, 1));
+        assertEquals(List.of(2L), index.search("godfather", 1, 1));
+        assertTrue(index.search("godfather", 2, 1).isEmpty());
+        assertTrue(index.search("godfather", 21_474_837, 100).isEmpty());
+    }
+
+    @Test
+    void appliesTitleChangesAndRemovals() {
+        index.put(5L, "Interstellar");
+        assertTrue(index.search("inception", 0, 10).isEmpty());
+        assertEquals(List.of(5L), index.search("interstellar", 0, 10));
+
+        index.remove(1L);
+        assertEquals(List.of(2L), index.search("godfather", 0, 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void loadKeepsChangesMadeWhileReadingTitles() {
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        MovieTitleIndex loading = new MovieTitleIndex(movieRepository, 0.5, new SimpleMeterRegistry());
+        // Odczyt z bazy sprzed zmian, które listener przekazuje w trakcie ładowania
+        when(movieRepository.findAllTitles()).thenAnswer(invocation -> {
+            loading.put(1L, "Interstellar");
+            loading.remove(2L);
+            loading.put(3L, "Inception");
+            return List.of(new View(1L, "The Godfather"), new View(2L, "Żółty szalik"));
+        });
+
+        loading.load();
+
+        assertTrue(loading.isReady());
+        assertEquals(List.of(1L), loading.search("interstellar", 0, 10));
+        assertTrue(loading.search("godfather", 0, 10).isEmpty());
+        assertTrue(loading.search("zolty", 0, 10).isEmpty());
+        assertEquals(List.of(3L), loading.search("inception", 0, 10));
+        assertEquals(2, loading.size());
+    }
+
+    private record View(Long id, String title) implements MovieRepository.MovieTitleView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+}
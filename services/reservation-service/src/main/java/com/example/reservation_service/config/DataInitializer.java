@@ -1,12 +1,13 @@
 package com.example.reservation_service.config;
 
 import com.example.reservation_service.entity.ScreeningInfo;
-import com.example.reservation_service.entity.ScreeningSeatInfo;
+import com.example.reservation_service.layout.HallLayoutService;
 import com.example.reservation_service.repository.ScreeningInfoRepository;
-import com.example.reservation_service.repository.ScreeningSeatInfoRepository;
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.example.commons.dto.HallDTO;
+import org.example.commons.dto.SeatDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -25,7 +26,7 @@ public class DataInitializer {
     private static final Logger LOG = LoggerFactory.getLogger(DataInitializer.class);
 
     private final ScreeningInfoRepository screeningInfoRepository;
-    private final ScreeningSeatInfoRepository screeningSeatInfoRepository;
+    private final HallLayoutService hallLayoutService;
 
     // Domyślne wartości, jeśli ScreeningInfo nie dostarcza układu sali
     private static final int DEFAULT_HALL_ROWS = 10;
@@ -38,7 +39,7 @@ public class DataInitializer {
             LOG.info("ScreeningInfo data already exists. Skipping initialization.");
             return;
         }
-        LOG.info("Initializing ScreeningInfo and ScreeningSeatInfo data...");
+        LOG.info("Initializing ScreeningInfo and hall layout data...");
 
         // Definicje sal z ich układami (ID sali, liczba rzędów, liczba miejsc w rzędzie)
         // Te ID sal (1L, 2L, 3L) powinny odpowiadać `hallId` używanym w `ScreeningInfo`
@@ -83,65 +84,28 @@ public class DataInitializer {
         });
 
 
-        screeningInfoRepository.saveAll(screeningInfoList);
-        LOG.info("Saved {} ScreeningInfo records.", screeningInfoList.size());
-
-        // Mapa do generowania unikalnych "originalSeatId" per sala
-        // Klucz: hallId, Wartość: następne dostępne ID miejsca dla tej sali
-        Map<Long, Long> nextSeatIdPerHall = new HashMap<>();
-
+        // Układ każdej sali jest zapisywany raz (hall_layouts) i współdzielony przez jej seanse.
+        // W realnym systemie ID miejsc pochodzą z MovieService; tu symulujemy je jako kolejne numery w obrębie sali.
+        Map<Long, Integer> layoutVersions = new HashMap<>();
         for (ScreeningInfo screeningInfo : screeningInfoList) {
-            HallLayout layout = hallLayouts.get(screeningInfo.getHallId());
-            int rows = (layout != null) ? layout.rows : DEFAULT_HALL_ROWS;
-            int seatsPerRow = (layout != null) ? layout.seatsPerRow : DEFAULT_HALL_SEATS_PER_ROW;
-
-            // Pobierz lub zainicjuj licznik ID dla danej sali
-            // Zaczynamy ID miejsc dla danej sali od (hallId * 1000) + 1
-            // np. sala 1: 1001, 1002... sala 2: 2001, 2002...
-            long currentSeatIdCounter = nextSeatIdPerHall.computeIfAbsent(screeningInfo.getHallId(), k -> k);
-
-            List<ScreeningSeatInfo> seatInfos = new ArrayList<>();
-            // Sprawdź, czy miejsca dla tej sali (tego konkretnego screeningInfo.hallId) nie zostały już wygenerowane
-            // przez inny seans w tej samej sali w ramach tej sesji DataInitializer.
-            // To bardziej skomplikowane, jeśli wiele ScreeningInfo współdzieli ten sam hallId.
-            // Lepiej generować miejsca raz per UNIKALNE HallId.
-            // Jednak ScreeningSeatInfo jest PER ScreeningInfo, więc musimy je tworzyć dla każdego.
-            // Problem polega na tym, jak zapewnić spójne `originalSeatId` dla tych samych miejsc w tej samej sali
-            // dla różnych seansów.
-
-            // Uproszczenie: Załóżmy, że MovieService w evencie ScreeningCreatedEvent dostarczyłby
-            // listę SeatDTO z ich *prawdziwymi, globalnie unikalnymi ID* (z encji Seat w MovieService).
-            // Tutaj symulujemy, że te ID są generowane.
-            // Dla spójności, jeśli dwa ScreeningInfo używają tej samej sali (np. hallId=1),
-            // powinny mieć te same `originalSeatId` dla odpowiadających im miejsc.
-            // Poniższa logika z `nextSeatIdPerHall` nie zapewni tego idealnie, jeśli sale są współdzielone.
-
-            // Poprawiona logika generowania originalSeatId: ID miejsca jest unikalne W OBRĘBIE SALI.
-            // Tworzymy je jako kombinację hallId, rzędu i numeru miejsca dla symulacji.
-            // W realnym systemie, to `MovieService` jest właścicielem tych ID.
-            int seatId = 1;
-
-            for (int r = 1; r <= rows; r++) {
-                for (int s = 1; s <= seatsPerRow; s++) {
-                    // Symulowane originalSeatId: unikalne dla kombinacji (hallId, rząd, numer_miejsca)
-                    // To jest tylko placeholder. Prawdziwe ID przyszłyby z MovieService.
-                    long simulatedOriginalSeatId = seatId;
-
-                    seatId++;
-
-                    ScreeningSeatInfo seatInfo = ScreeningSeatInfo.builder()
-                            .originalSeatId(simulatedOriginalSeatId)
-                            .screeningInfoId(screeningInfo.getId()) // Powiązanie z konkretną kopią seansu
-                            .rowNumber(r)
-                            .seatNumber(s)
-                            .build();
-                    seatInfos.add(seatInfo);
+            Integer version = layoutVersions.computeIfAbsent(screeningInfo.getHallId(), hallId -> {
+                int rows = screeningInfo.getHallRows();
+                int seatsPerRow = screeningInfo.getHallSeatsPerRow();
+                List<SeatDTO> seats = new ArrayList<>();
+                long seatId = 1;
+                for (int r = 1; r <= rows; r++) {
+                    for (int s = 1; s <= seatsPerRow; s++) {
+                        seats.add(new SeatDTO(seatId++, r, s));
+                    }
                 }
-            }
-            screeningSeatInfoRepository.saveAll(seatInfos);
-            LOG.debug("Saved {} seat copies for screeningInfoId: {}", seatInfos.size(), screeningInfo.getId());
+                return hallLayoutService.registerLayout(
+                        new HallDTO(hallId, screeningInfo.getHallNumber(), rows, seatsPerRow), seats).version();
+            });
+            screeningInfo.setLayoutVersion(version);
         }
-        LOG.info("Finished initializing ScreeningInfo and ScreeningSeatInfo data.");
+
+        screeningInfoRepository.saveAll(screeningInfoList);
+        LOG.info("Saved {} ScreeningInfo records using {} hall layouts.", screeningInfoList.size(), layoutVersions.size());
     }
 
     // Pomocnicza klasa do przechowywania układu sali
@@ -1,16 +1,45 @@
 package com.example.reservation_service.controller;
 
+import com.example.reservation_service.dto.BasketReservationDTO;
+import com.example.reservation_service.dto.BestSeatsDTO;
+import com.example.reservation_service.dto.CreateBasketReservationDTO;
+import com.example.reservation_service.dto.CreateBestSeatHoldDTO;
+import com.example.reservation_service.dto.CreateSeatHoldDTO;
+import com.example.reservation_service.dto.JoinWaitlistDTO;
+import com.example.reservation_service.dto.ReservationPageDTO;
+import com.example.reservation_service.dto.ScreeningCancellationProgressDTO;
+import com.example.reservation_service.dto.ScreeningOccupancyDTO;
+import com.example.reservation_service.dto.SeatHoldDTO;
+import com.example.reservation_service.dto.SeatMapDTO;
+import com.example.reservation_service.dto.WaitlistEntryDTO;
+import com.example.reservation_service.idempotency.IdempotencyService;
+import com.example.reservation_service.repository.ReservationSearchCriteria;
+import com.example.reservation_service.service.ReservationSearchService;
 import com.example.reservation_service.service.ReservationService;
+import com.example.reservation_service.service.ScreeningCancellationService;
+import com.example.reservation_service.service.SeatHoldService;
+import com.example.reservation_service.service.WaitlistService;
+import com.example.reservation_service.stream.SeatMapStreamService;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.example.commons.dto.*;
+import org.example.commons.enums.ReservationStatus;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/reservations")
@@ -18,6 +47,22 @@ import java.util.List;
 @Validated
 public class ReservationController {
     private final ReservationService reservationService;
+    private final SeatHoldService seatHoldService;
+    private final SeatMapStreamService seatMapStreamService;
+    private final ScreeningCancellationService screeningCancellationService;
+    private final IdempotencyService idempotencyService;
+    private final WaitlistService waitlistService;
+    private final ReservationSearchService reservationSearchService;
+
+    @GetMapping("/screenings/occupancy")
+    public List<ScreeningOccupancyDTO> getScreeningsOccupancy(
+            @RequestParam(value = "screeningIds", required = false)
+            @Size(max = 200, message = "Cannot request more than 200 screenings at once.")
+            List<@Positive Long> screeningIds,
+            @RequestParam(value = "movieId", required = false) @Positive(message = "Movie ID must be a positive number.") Long movieId,
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return reservationService.getOccupancy(screeningIds, movieId, date);
+    }
 
     @GetMapping("/screenings/{screeningId}/seats/availability")
     public List<SeatDTO> getReservedSeatsByScreeningId(
@@ -28,10 +73,145 @@ public class ReservationController {
         return reservationService.getReservedSeatsByScreeningId(screeningId);
     }
 
+    @GetMapping("/screenings/{screeningId}/seats/bitmap")
+    public SeatMapDTO getSeatMap(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId,
+            @RequestParam(value = "epoch", required = false) String epoch,
+            @RequestParam(value = "since", required = false) Long since) {
+        return reservationService.getSeatMap(screeningId, epoch, since);
+    }
+
+    @GetMapping(value = "/screenings/{screeningId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatMap(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId) {
+        return seatMapStreamService.subscribe(screeningId, () -> reservationService.getSeatMap(screeningId, null, null));
+    }
+
+    @GetMapping("/screenings/{screeningId}/seats/best-available")
+    public BestSeatsDTO getBestAvailableSeats(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId,
+            @RequestParam("count") @Positive(message = "Seat count must be a positive number.") int count,
+            @RequestParam(value = "preferredRow", required = false) @Positive(message = "Preferred row must be a positive number.") Integer preferredRow) {
+        return seatHoldService.findBestSeats(screeningId, count, preferredRow);
+    }
+
+    @PostMapping("/screenings/{screeningId}/waitlist")
+    @ResponseStatus(HttpStatus.CREATED)
+    public WaitlistEntryDTO joinWaitlist(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId,
+            @Valid @RequestBody JoinWaitlistDTO request) {
+        return waitlistService.join(screeningId, request);
+    }
+
+    @GetMapping("/waitlist/{entryId}")
+    public WaitlistEntryDTO getWaitlistEntry(
+            @PathVariable("entryId")
+            @NotNull(message = "Waitlist entry ID cannot be null.")
+            @Positive(message = "Waitlist entry ID must be a positive number.")
+            Long entryId) {
+        return waitlistService.getEntry(entryId);
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void leaveWaitlist(
+            @PathVariable("entryId")
+            @NotNull(message = "Waitlist entry ID cannot be null.")
+            @Positive(message = "Waitlist entry ID must be a positive number.")
+            Long entryId) {
+        waitlistService.leave(entryId);
+    }
+
+    @PutMapping("/screenings/{screeningId}/seats/blocked")
+    public List<Long> updateBlockedSeats(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId,
+            @RequestBody @NotNull(message = "Seat IDs cannot be null.") List<@NotNull @Positive Long> seatIds) {
+        return reservationService.updateBlockedSeats(screeningId, seatIds);
+    }
+
+    @GetMapping("/screenings/{screeningId}/cancellation")
+    public ScreeningCancellationProgressDTO getScreeningCancellationProgress(
+            @PathVariable("screeningId")
+            @NotNull(message = "Screening ID cannot be null.")
+            @Positive(message = "Screening ID must be a positive number.")
+            Long screeningId) {
+        return screeningCancellationService.getProgress(screeningId);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ReservationDTO createReservation(@Valid @RequestBody CreateReservationDTO request) {
-        return reservationService.createReservation(request);
+    public ReservationDTO createReservation(
+            @Valid @RequestBody CreateReservationDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return reservationService.createReservation(request);
+        }
+        return idempotencyService.execute(idempotencyKey, request, () -> reservationService.createReservation(request));
+    }
+
+    @PostMapping("/baskets")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BasketReservationDTO createBasketReservation(@Valid @RequestBody CreateBasketReservationDTO request) {
+        return reservationService.createBasket(request);
+    }
+
+    @PostMapping("/holds")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SeatHoldDTO createSeatHold(@Valid @RequestBody CreateSeatHoldDTO request) {
+        return seatHoldService.createHold(request);
+    }
+
+    @PostMapping("/holds/best-available")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SeatHoldDTO createBestAvailableSeatHold(@Valid @RequestBody CreateBestSeatHoldDTO request) {
+        return seatHoldService.createBestAvailableHold(request);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void releaseSeatHold(
+            @PathVariable("holdId")
+            @NotBlank(message = "Hold ID cannot be blank.")
+            String holdId) {
+        seatHoldService.releaseHold(holdId);
+    }
+
+    @GetMapping("/search")
+    public ReservationPageDTO searchReservations(
+            @RequestParam(value = "screeningId", required = false) @Positive(message = "Screening ID must be a positive number.") Long screeningId,
+            @RequestParam(value = "status", required = false) Set<ReservationStatus> statuses,
+            @RequestParam(value = "customerEmail", required = false) String customerEmail,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "50") @Positive(message = "Page size must be a positive number.") int limit) {
+        return reservationSearchService.search(new ReservationSearchCriteria(screeningId, statuses, customerEmail, from, to), after, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody exportReservations(
+            @RequestParam(value = "screeningId", required = false) @Positive(message = "Screening ID must be a positive number.") Long screeningId,
+            @RequestParam(value = "status", required = false) Set<ReservationStatus> statuses,
+            @RequestParam(value = "customerEmail", required = false) String customerEmail,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ReservationSearchCriteria criteria = new ReservationSearchCriteria(screeningId, statuses, customerEmail, from, to);
+        return output -> reservationSearchService.export(criteria, output);
     }
 
     @GetMapping("/{id}")
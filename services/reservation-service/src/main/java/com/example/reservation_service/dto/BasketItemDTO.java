@@ -0,0 +1,29 @@
+package com.example.reservation_service.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketItemDTO {
+
+    @NotNull(message = "Screening ID cannot be null.")
+    @Positive(message = "Screening ID must be a positive number.")
+    private Long screeningId;
+
+    @NotEmpty(message = "Seat IDs list cannot be empty.")
+    private List<
+            @NotNull(message = "Seat ID in list cannot be null.")
+            @Positive(message = "Seat ID in list must be a positive number.")
+                    Long
+            > seatIds;
+
+    // Opcjonalne: ID tymczasowej blokady miejsc tego seansu
+    @Size(max = 36, message = "Hold ID cannot exceed 36 characters.")
+    private String holdId;
+}
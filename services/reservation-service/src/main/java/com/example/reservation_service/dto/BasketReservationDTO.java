@@ -0,0 +1,20 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.commons.dto.ReservationDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketReservationDTO {
+    private Long basketId;
+    // Rezerwacja, pod której ID payment-service prowadzi wspólną płatność koszyka
+    private Long paymentReservationId;
+    private BigDecimal totalAmount;
+    private List<ReservationDTO> reservations;
+}
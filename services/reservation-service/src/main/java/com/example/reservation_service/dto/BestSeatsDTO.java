@@ -0,0 +1,16 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestSeatsDTO {
+    private Long screeningId;
+    private Integer rowNumber;
+    private List<Long> seatIds;
+}
@@ -0,0 +1,28 @@
+package com.example.reservation_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateBasketReservationDTO {
+
+    @NotBlank(message = "Customer name cannot be blank.")
+    @Size(min = 2, max = 100, message = "Customer name must be between 2 and 100 characters.")
+    private String customerName;
+
+    @NotBlank(message = "Customer email cannot be blank.")
+    @Email(message = "Customer email should be a valid email address.")
+    @Size(max = 100, message = "Customer email cannot exceed 100 characters.")
+    private String customerEmail;
+
+    @NotEmpty(message = "Basket cannot be empty.")
+    @Size(max = 10, message = "Basket cannot contain more than 10 screenings.")
+    private List<@Valid @NotNull(message = "Basket item cannot be null.") BasketItemDTO> items;
+}
@@ -0,0 +1,26 @@
+package com.example.reservation_service.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateBestSeatHoldDTO {
+
+    @NotNull(message = "Screening ID cannot be null.")
+    @Positive(message = "Screening ID must be a positive number.")
+    private Long screeningId;
+
+    @NotNull(message = "Seat count cannot be null.")
+    @Positive(message = "Seat count must be a positive number.")
+    private Integer seatCount;
+
+    @Positive(message = "Preferred row must be a positive number.")
+    private Integer preferredRow;
+
+    @Positive(message = "Hold duration must be a positive number of seconds.")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,28 @@
+package com.example.reservation_service.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateSeatHoldDTO {
+
+    @NotNull(message = "Screening ID cannot be null.")
+    @Positive(message = "Screening ID must be a positive number.")
+    private Long screeningId;
+
+    @NotEmpty(message = "Seat IDs list cannot be empty.")
+    private List<
+            @NotNull(message = "Seat ID in list cannot be null.")
+            @Positive(message = "Seat ID in list must be a positive number.")
+                    Long
+            > seatIds;
+
+    @Positive(message = "Hold duration must be a positive number of seconds.")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,25 @@
+package com.example.reservation_service.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JoinWaitlistDTO {
+
+    @NotBlank(message = "Customer name cannot be blank.")
+    @Size(min = 2, max = 100, message = "Customer name must be between 2 and 100 characters.")
+    private String customerName;
+
+    @NotBlank(message = "Customer email cannot be blank.")
+    @Email(message = "Customer email should be a valid email address.")
+    @Size(max = 100, message = "Customer email cannot exceed 100 characters.")
+    private String customerEmail;
+
+    @NotNull(message = "Seat count cannot be null.")
+    @Positive(message = "Seat count must be a positive number.")
+    private Integer seatCount;
+}
@@ -0,0 +1,16 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationPageDTO {
+    private List<ReservationSummaryDTO> items;
+    // Parametr "after" dla kolejnej strony; null, gdy to ostatnia strona
+    private Long nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.commons.enums.ReservationStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationSummaryDTO {
+    private Long id;
+    private Long screeningId;
+    private String customerName;
+    private String customerEmail;
+    private LocalDateTime reservationTime;
+    private ReservationStatus status;
+    private BigDecimal totalAmount;
+    private boolean ticketUsed;
+    private Long basketId;
+}
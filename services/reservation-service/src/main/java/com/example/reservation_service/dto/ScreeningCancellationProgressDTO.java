@@ -0,0 +1,19 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreeningCancellationProgressDTO {
+    private Long screeningId;
+    private String status;
+    private long cancelledReservations;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
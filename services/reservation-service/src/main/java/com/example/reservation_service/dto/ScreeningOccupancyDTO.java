@@ -0,0 +1,20 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreeningOccupancyDTO {
+    private Long screeningId;
+    private Long movieId;
+    private LocalDateTime startTime;
+    private int totalSeats;
+    private int availableSeats;
+    // Wersja mapy miejsc - pozwala pobrać zmiany endpointem /seats/bitmap?since=
+    private long version;
+}
@@ -0,0 +1,14 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatChangeDTO {
+    private int rowNumber;
+    private int seatNumber;
+    private boolean reserved;
+}
@@ -0,0 +1,18 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldDTO {
+    private String holdId;
+    private Long screeningId;
+    private List<Long> seatIds;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.example.reservation_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeatMapDTO {
+    public static final String ENCODING_BITSET_BASE64 = "bitset-base64";
+
+    private Long screeningId;
+    // Przekazywana z powrotem razem z since; inna epoka (przebudowana mapa, inna instancja) oznacza pełną mapę
+    private String epoch;
+    private long version;
+    private int rows;
+    private int seatsPerRow;
+    private String encoding;
+    // Pełna mapa (gdy delta == false): bit (rząd-1) * seatsPerRow + (miejsce-1) ustawiony = miejsce zajęte
+    private String bitmap;
+    private boolean delta;
+    private List<SeatChangeDTO> changes;
+}
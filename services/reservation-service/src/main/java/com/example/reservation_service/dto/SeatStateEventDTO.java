@@ -0,0 +1,19 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.commons.dto.SeatDTO;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatStateEventDTO {
+    private Long screeningId;
+    private String epoch;
+    private long version;
+    private String state;
+    private List<SeatDTO> seats;
+}
@@ -0,0 +1,24 @@
+package com.example.reservation_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntryDTO {
+    private Long id;
+    private Long screeningId;
+    private String status;
+    private int seatCount;
+    // Pozycja w kolejce (od 1); tylko dla statusu WAITING
+    private Long position;
+    // Oferta: blokada miejsc do zamiany na rezerwację przed offerExpiresAt
+    private String holdId;
+    private List<Long> seatIds;
+    private LocalDateTime offerExpiresAt;
+}
@@ -0,0 +1,73 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Niezmienny układ sali współdzielony przez wszystkie seanse w tej sali. Każda zmiana układu
+ * (np. inne ID miejsc z MovieService) tworzy nową wersję; seanse wskazują wersję, z którą zostały utworzone.
+ * Klucz główny (hall_id, version) rozstrzyga wyścig dwóch instancji o ten sam numer wersji - nowa wersja
+ * jest zawsze wstawiana INSERT-em, nigdy scalana z istniejącym wierszem.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "hall_layouts")
+@IdClass(HallLayout.Key.class)
+public class HallLayout implements Persistable<HallLayout.Key> {
+    @Id
+    private Long hallId;
+
+    @Id
+    private Integer version;
+
+    @Column(name = "row_count", nullable = false)
+    private int rows;
+
+    @Column(nullable = false)
+    private int seatsPerRow;
+
+    // ID miejsc z MovieService rząd po rzędzie (8 bajtów na pozycję, 0 = brak miejsca)
+    @Lob
+    @Column(nullable = false)
+    private byte[] seatIds;
+
+    private LocalDateTime createdAt;
+
+    @Transient
+    @Builder.Default
+    private boolean newLayout = true;
+
+    @Override
+    public Key getId() {
+        return new Key(hallId, version);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newLayout;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newLayout = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long hallId;
+        private Integer version;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wynik żądania utworzenia rezerwacji zapamiętany pod kluczem z nagłówka Idempotency-Key.
+ * Klucz jest zajmowany (INSERT) na początku transakcji rezerwacji, a odpowiedź uzupełniana przed jej zatwierdzeniem.
+ * {@link Persistable#isNew()} wymusza {@code persist} zamiast {@code merge}, więc o zwycięzcy wyścigu
+ * o ten sam klucz decyduje klucz główny.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    // SHA-256 treści żądania - ten sam klucz z inną treścią jest odrzucany
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    private Long reservationId;
+
+    // null, dopóki transakcja, która zajęła klucz, nie utworzy rezerwacji
+    @Lob
+    private String response;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wiadomość Kafka zapisana w tej samej transakcji co zmiana rezerwacji; publikowana po zatwierdzeniu przez {@code OutboxRelay}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_unpublished", columnList = "published_at, id")
+})
+public class OutboxEvent {
+    @Id
+    // Relay publikuje w kolejności id. IDENTITY nadaje id przy INSERT, nie przy COMMIT, więc równoległe
+    // transakcje mogą zatwierdzać się w innej kolejności - porządek jest gwarantowany tylko w obrębie agregatu,
+    // którego zapisy serializuje blokada seansu. Sekwencja z pulą nie dawałaby nawet tego: id z puli innej
+    // instancji może być mniejsze od id wcześniejszego zdarzenia tego samego agregatu
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    // Klucz partycji Kafka - zdarzenia tego samego agregatu trafiają do jednej partycji w kolejności zapisu
+    @Column(name = "aggregate_key", nullable = false)
+    private String aggregateKey;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+}
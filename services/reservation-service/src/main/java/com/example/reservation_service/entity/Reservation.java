@@ -3,6 +3,7 @@ package com.example.reservation_service.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.example.commons.enums.ReservationStatus;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,10 +15,17 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_status_time", columnList = "status, reservation_time"),
+        @Index(name = "idx_reservations_basket", columnList = "basket_id"),
+        @Index(name = "idx_reservations_screening_id", columnList = "screening_id, id"),
+        @Index(name = "idx_reservations_email_id", columnList = "customer_email, id")
+})
 public class Reservation {
+    // Sekwencja z pulą identyfikatorów - przy IDENTITY każdy insert szedł osobno i od razu
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
     private Long id;
 
     private Long screeningId;
@@ -33,7 +41,12 @@ public class Reservation {
     private boolean ticketUsed = false;
     private LocalDateTime ticketUsedAt;
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-    @JoinColumn(name = "reservation_id")
+    // ReservationBasket; rezerwacje z jednego koszyka dzielą płatność
+    private Long basketId;
+
+    // Kolumnę reservation_id ustawia ReservedSeat - bez dodatkowego UPDATE na każde miejsce po insercie.
+    // Miejsca listy rezerwacji (np. paczki anulowania) są doczytywane po 50 rezerwacji w jednym zapytaniu.
+    @BatchSize(size = 50)
+    @OneToMany(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<ReservedSeat> seats = new ArrayList<>();
 }
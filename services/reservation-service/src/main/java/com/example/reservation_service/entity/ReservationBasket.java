@@ -0,0 +1,34 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Koszyk rezerwacji na kilka seansów opłacanych jedną płatnością. Rezerwacje wskazują go przez {@code basketId};
+ * płatność jest prowadzona pod ID rezerwacji {@code paymentReservationId}, bo payment-service zna tylko rezerwacje.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "reservation_baskets")
+public class ReservationBasket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_baskets_seq")
+    @SequenceGenerator(name = "reservation_baskets_seq", sequenceName = "reservation_baskets_seq", allocationSize = 50)
+    private Long id;
+
+    private String customerEmail;
+    private BigDecimal totalAmount;
+    private Long paymentReservationId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
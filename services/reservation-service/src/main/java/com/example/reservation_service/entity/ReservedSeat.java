@@ -11,7 +11,8 @@ import lombok.*;
 @Table(name = "reserved_seats")
 public class ReservedSeat {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reserved_seats_seq")
+    @SequenceGenerator(name = "reserved_seats_seq", sequenceName = "reserved_seats_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
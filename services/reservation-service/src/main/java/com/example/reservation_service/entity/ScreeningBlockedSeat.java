@@ -0,0 +1,38 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Miejsce wyłączone ze sprzedaży dla konkretnego seansu (nadpisanie układu sali).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "screening_blocked_seats")
+@IdClass(ScreeningBlockedSeat.Key.class)
+public class ScreeningBlockedSeat {
+    @Id
+    private Long screeningId;
+
+    @Id
+    private Long seatId;
+
+    private LocalDateTime blockedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long screeningId;
+        private Long seatId;
+    }
+}
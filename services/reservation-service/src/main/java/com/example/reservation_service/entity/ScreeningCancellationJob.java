@@ -0,0 +1,45 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Postęp anulowania rezerwacji odwołanego seansu. Kursor {@code lastReservationId} pozwala
+ * wznowić przetwarzanie po restarcie instancji od ostatniej zatwierdzonej paczki.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "screening_cancellation_jobs")
+public class ScreeningCancellationJob {
+    @Id
+    private Long screeningId;
+
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private long lastReservationId;
+
+    @Column(nullable = false)
+    private long processedCount;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+}
@@ -3,6 +3,7 @@ package com.example.reservation_service.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,7 +18,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "screening_info")
+@Table(name = "screening_info", indexes = {
+        @Index(name = "idx_screening_info_start_time", columnList = "start_time"),
+        @Index(name = "idx_screening_info_movie_start", columnList = "movie_id, start_time")
+})
 public class ScreeningInfo {
     @Id
     private Long id;
@@ -48,6 +52,9 @@ public class ScreeningInfo {
 
     private boolean isActive = true;
 
+    // Wersja układu sali (hall_layouts); null = najnowsza wersja dla hallId
+    private Integer layoutVersion;
+
     public ScreeningInfo(Long id, LocalDateTime startTime, BigDecimal basePrice, Long movieId, String movieTitle, Long hallId, int hallNumber) {
         this.id = id;
         this.startTime = startTime;
@@ -67,6 +74,7 @@ public class ScreeningInfo {
         this.hallId = screeningInfo.hallId;
         this.hallNumber = screeningInfo.hallNumber;
         this.isActive = screeningInfo.isActive;
+        this.layoutVersion = screeningInfo.layoutVersion;
     }
 
     public ScreeningInfo(Long id, LocalDateTime startTime, BigDecimal basePrice, Long movieId, String movieTitle, Long hallId, int hallNumber, int hallRows, int hallSeatsPerRow) {
@@ -0,0 +1,72 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Aktywne zajęcie miejsca na seans. Klucz główny (screening_id, seat_id) gwarantuje,
+ * że dane miejsce może być zajęte tylko przez jedną aktywną rezerwację lub blokadę tymczasową (hold).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@IdClass(SeatClaim.Key.class)
+@Table(name = "seat_claims", indexes = {
+        @Index(name = "idx_seat_claims_reservation", columnList = "reservation_id"),
+        @Index(name = "idx_seat_claims_hold", columnList = "hold_id")
+})
+public class SeatClaim implements Persistable<SeatClaim.Key> {
+    @Id
+    @Column(name = "screening_id")
+    private Long screeningId;
+
+    @Id
+    @Column(name = "seat_id")
+    private Long seatId;
+
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    private LocalDateTime claimedAt;
+
+    // Ustawione tylko dla tymczasowych blokad (hold), dopóki nie zostaną zamienione na rezerwację
+    @Column(name = "hold_id", length = 36)
+    private String holdId;
+
+    private LocalDateTime expiresAt;
+
+    // Zawsze INSERT (bez SELECT-a z merge); duplikat kończy się naruszeniem klucza
+    @Transient
+    @Builder.Default
+    private boolean newClaim = true;
+
+    @Override
+    public Key getId() {
+        return new Key(screeningId, seatId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newClaim;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newClaim = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long screeningId;
+        private Long seatId;
+    }
+}
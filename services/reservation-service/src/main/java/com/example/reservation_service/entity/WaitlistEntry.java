@@ -0,0 +1,56 @@
+package com.example.reservation_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Miejsce w kolejce oczekujących na wyprzedany seans. Kolejność obsługi wyznacza {@code id} (FIFO).
+ * Oferta to tymczasowa blokada miejsc ({@code holdId}), którą klient zamienia na rezerwację.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+        @Index(name = "idx_waitlist_screening_status", columnList = "screening_id, status, id"),
+        @Index(name = "idx_waitlist_hold", columnList = "hold_id")
+})
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_entries_seq")
+    @SequenceGenerator(name = "waitlist_entries_seq", sequenceName = "waitlist_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long screeningId;
+
+    private String customerName;
+    private String customerEmail;
+
+    @Column(nullable = false)
+    private int seatCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(length = 36)
+    private String holdId;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime offerExpiresAt;
+
+    public enum Status {
+        WAITING,
+        OFFERED,
+        ACCEPTED,
+        EXPIRED,
+        CANCELLED
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.reservation_service.expiry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Terminy wygaśnięcia rezerwacji PENDING_PAYMENT jako kopiec minimalny (najbliższy termin na szczycie).
+ * Wpisy nie są usuwane przy potwierdzeniu płatności - status jest sprawdzany w bazie w momencie wygaśnięcia;
+ * zwolnione rezerwacje (anulowane, wygaszone) są usuwane przez {@link #forget}.
+ */
+@Component
+public class ReservationExpiryIndex {
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::deadlineMillis));
+    private final Duration paymentTimeout;
+
+    public ReservationExpiryIndex(@Value("${reservation.expiry.payment-timeout-minutes:20}") long paymentTimeoutMinutes,
+                                  MeterRegistry meterRegistry) {
+        this.paymentTimeout = Duration.ofMinutes(paymentTimeoutMinutes);
+        Gauge.builder("reservation.expiry.tracked", this, ReservationExpiryIndex::size)
+                .description("Pending reservations tracked by the expiry index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dodaje rezerwację po zatwierdzeniu bieżącej transakcji (lub od razu, jeśli transakcji nie ma).
+     */
+    public void track(Long reservationId, LocalDateTime reservationTime) {
+        Deadline deadline = deadlineFor(reservationId, reservationTime);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(deadline);
+                }
+            });
+        } else {
+            add(deadline);
+        }
+    }
+
+    /**
+     * Zastępuje zawartość wynikiem pełnego odczytu z bazy. Wpisy dodane w trakcie odczytu (nieobecne w wyniku)
+     * są zachowywane - nadmiarowy wpis jest nieszkodliwy, bo wygaśnięcie sprawdza status rezerwacji.
+     */
+    public synchronized void replaceAll(List<Deadline> entries) {
+        Set<Long> reloaded = entries.stream().map(Deadline::reservationId).collect(Collectors.toSet());
+        List<Deadline> retained = deadlines.stream()
+                .filter(deadline -> !reloaded.contains(deadline.reservationId()))
+                .collect(Collectors.toList());
+        deadlines.clear();
+        deadlines.addAll(entries);
+        deadlines.addAll(retained);
+    }
+
+    /**
+     * Zdejmuje co najwyżej {@code limit} wpisów z terminem nie późniejszym niż {@code nowMillis}.
+     */
+    public synchronized List<Deadline> pollDue(long nowMillis, int limit) {
+        List<Deadline> due = new ArrayList<>();
+        while (due.size() < limit && !deadlines.isEmpty() && deadlines.peek().deadlineMillis() <= nowMillis) {
+            due.add(deadlines.poll());
+        }
+        return due;
+    }
+
+    /**
+     * Usuwa terminy rozstrzygniętych rezerwacji po zatwierdzeniu bieżącej transakcji (lub od razu).
+     */
+    public void forget(Set<Long> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(reservationIds);
+                }
+            });
+        } else {
+            remove(reservationIds);
+        }
+    }
+
+    public synchronized void addAll(List<Deadline> entries) {
+        deadlines.addAll(entries);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    public Deadline deadlineFor(Long reservationId, LocalDateTime reservationTime) {
+        return new Deadline(reservationId, toMillis(reservationTime.plus(paymentTimeout)), 0);
+    }
+
+    private synchronized void add(Deadline deadline) {
+        deadlines.add(deadline);
+    }
+
+    private synchronized void remove(Set<Long> reservationIds) {
+        deadlines.removeIf(deadline -> reservationIds.contains(deadline.reservationId()));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @param attempts nieudane próby wygaszenia - ponowienie jest planowane z nowym terminem
+     */
+    public record Deadline(Long reservationId, long deadlineMillis, int attempts) {
+        public Deadline retryAt(long retryMillis) {
+            return new Deadline(reservationId, retryMillis, attempts + 1);
+        }
+    }
+}
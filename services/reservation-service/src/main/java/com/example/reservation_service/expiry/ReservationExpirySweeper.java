@@ -0,0 +1,168 @@
+package com.example.reservation_service.expiry;
+
+import com.example.reservation_service.repository.ReservationRepository;
+import com.example.reservation_service.service.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.enums.ReservationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Wygasza nieopłacone rezerwacje niezależnie od payment-service. Terminy pochodzą z {@link ReservationExpiryIndex},
+ * odbudowywanego przy starcie i okresowo (rezerwacje utworzone przez inne instancje) z indeksowanego zapytania.
+ * Przebiegi działają na własnym wątku, więc nie blokują zadań {@code @Scheduled}. Partia, której nie udało się
+ * wygasić, jest ponawiana pojedynczo; rezerwacja, która nie wygasa po {@code reservation.expiry.max-attempts}
+ * próbach, jest odkładana (log ERROR i licznik) do następnej resynchronizacji indeksu.
+ */
+@Component
+public class ReservationExpirySweeper {
+    private static final Logger LOG = LoggerFactory.getLogger(ReservationExpirySweeper.class);
+
+    private final ReservationExpiryIndex expiryIndex;
+    private final ReservationRepository reservationRepository;
+    private final ReservationService reservationService;
+    private final DistributionSummary batchSizes;
+    private final Timer sweepLag;
+    private final Counter expiredCounter;
+    private final Counter deadLetteredCounter;
+
+    @Value("${reservation.expiry.batch-size:100}")
+    private int batchSize;
+
+    @Value("${reservation.expiry.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${reservation.expiry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${reservation.expiry.retry-delay-ms:10000}")
+    private long retryDelayMillis;
+
+    private ScheduledExecutorService sweepExecutor;
+
+    public ReservationExpirySweeper(ReservationExpiryIndex expiryIndex,
+                                    ReservationRepository reservationRepository,
+                                    ReservationService reservationService,
+                                    MeterRegistry meterRegistry) {
+        this.expiryIndex = expiryIndex;
+        this.reservationRepository = reservationRepository;
+        this.reservationService = reservationService;
+        this.batchSizes = DistributionSummary.builder("reservation.expiry.batch.size")
+                .description("Reservations examined per expiry batch")
+                .register(meterRegistry);
+        this.sweepLag = Timer.builder("reservation.expiry.lag")
+                .description("Delay between a reservation's payment deadline and its expiry")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("reservation.expiry.expired")
+                .description("Reservations expired by the sweeper")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("reservation.expiry.dead_lettered")
+                .description("Reservations the sweeper gave up on after repeated failures")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweepExecutor.scheduleWithFixedDelay(this::sweepSafely, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweepExecutor.shutdownNow();
+    }
+
+    // Wyjątek przerwałby kolejne uruchomienia w ScheduledExecutorService
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            LOG.error("Reservation expiry sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${reservation.expiry.resync-interval-ms:300000}",
+            fixedDelayString = "${reservation.expiry.resync-interval-ms:300000}")
+    public void resync() {
+        List<ReservationExpiryIndex.Deadline> deadlines = reservationRepository.findDeadlinesByStatus(ReservationStatus.PENDING_PAYMENT)
+                .stream()
+                .map(view -> expiryIndex.deadlineFor(view.getId(), view.getReservationTime()))
+                .collect(Collectors.toList());
+        expiryIndex.replaceAll(deadlines);
+        LOG.info("Expiry index loaded with {} pending reservations.", deadlines.size());
+    }
+
+    public void sweep() {
+        List<ReservationExpiryIndex.Deadline> due;
+        do {
+            long now = System.currentTimeMillis();
+            due = expiryIndex.pollDue(now, batchSize);
+            if (due.isEmpty()) {
+                return;
+            }
+            int expired = expire(due, now);
+            batchSizes.record(due.size());
+            expiredCounter.increment(expired);
+            due.forEach(deadline -> sweepLag.record(Math.max(0, now - deadline.deadlineMillis()), TimeUnit.MILLISECONDS));
+            if (expired > 0) {
+                LOG.info("Expired {} of {} due reservations.", expired, due.size());
+            }
+        } while (due.size() == batchSize);
+    }
+
+    private int expire(List<ReservationExpiryIndex.Deadline> due, long now) {
+        List<Long> ids = due.stream().map(ReservationExpiryIndex.Deadline::reservationId).collect(Collectors.toList());
+        try {
+            return reservationService.expireReservations(ids);
+        } catch (RuntimeException e) {
+            if (due.size() == 1) {
+                retryLater(due.get(0), now, e);
+                return 0;
+            }
+            // Jedna wadliwa rezerwacja nie może blokować całej partii
+            LOG.warn("Failed to expire batch of {} reservations: {}. Retrying them one by one.", due.size(), e.getMessage());
+        }
+        int expired = 0;
+        for (ReservationExpiryIndex.Deadline deadline : due) {
+            try {
+                expired += reservationService.expireReservations(List.of(deadline.reservationId()));
+            } catch (RuntimeException e) {
+                retryLater(deadline, now, e);
+            }
+        }
+        return expired;
+    }
+
+    private void retryLater(ReservationExpiryIndex.Deadline deadline, long now, RuntimeException e) {
+        int attempts = deadline.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            deadLetteredCounter.increment();
+            LOG.error("Giving up on expiring reservation {} after {} attempts. It will be picked up again by the next resync: {}",
+                    deadline.reservationId(), attempts, e.getMessage(), e);
+            return;
+        }
+        expiryIndex.addAll(List.of(deadline.retryAt(now + retryDelayMillis * attempts)));
+        LOG.warn("Failed to expire reservation {} (attempt {} of {}): {}", deadline.reservationId(), attempts, maxAttempts, e.getMessage());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.reservation_service.hold;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchiczne koło czasowe: dodanie, anulowanie i wygaśnięcie wpisu kosztują O(1).
+ * Poziom 0 ma rozdzielczość {@code tickMillis}, każdy kolejny poziom jest {@code wheelSize} razy
+ * "wolniejszy"; wpisy z wyższych poziomów są przenoszone (kaskadowo) niżej, gdy zbliża się ich termin.
+ * Klasa nie ma własnego wątku - czas przesuwa wywołujący przez {@link #advance(long)}.
+ */
+public class HierarchicalTimingWheel<K> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] spans;
+    private final Bucket<K>[][] buckets;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration.");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.spans = new long[levels];
+        this.buckets = new Bucket[levels][wheelSize];
+        long span = 1;
+        for (int level = 0; level < levels; level++) {
+            spans[level] = span;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new Bucket<>();
+            }
+            span = Math.multiplyExact(span, wheelSize);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Planuje (lub przeplanowuje) wygaśnięcie klucza na {@code deadlineMillis}.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        Entry<K> entry = new Entry<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        entries.put(key, entry);
+        place(entry);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        return true;
+    }
+
+    /**
+     * Przesuwa koło do {@code nowMillis} i zwraca klucze, których termin minął.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = spans.length - 1; level >= 1; level--) {
+                if (currentTick % spans[level] == 0) {
+                    Bucket<K> bucket = buckets[level][(int) ((currentTick / spans[level]) % wheelSize)];
+                    for (Entry<K> entry : bucket.drain()) {
+                        if (entry.deadlineTick <= currentTick) {
+                            // Termin przypada na bieżący tick - slot poziomu 0 jest opróżniany poniżej
+                            buckets[0][(int) (currentTick % wheelSize)].add(entry);
+                        } else {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+            for (Entry<K> entry : buckets[0][(int) (currentTick % wheelSize)].drain()) {
+                if (entry.deadlineTick <= currentTick) {
+                    entries.remove(entry.key);
+                    expired.add(entry.key);
+                } else {
+                    place(entry);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void place(Entry<K> entry) {
+        long tick = Math.max(entry.deadlineTick, currentTick + 1);
+        int top = spans.length - 1;
+        for (int level = 0; level <= top; level++) {
+            long distance = tick / spans[level] - currentTick / spans[level];
+            if (distance < wheelSize) {
+                buckets[level][(int) ((tick / spans[level]) % wheelSize)].add(entry);
+                return;
+            }
+        }
+        // Poza zasięgiem koła - ostatni slot najwyższego poziomu, wpis zostanie przeplanowany przy kaskadzie
+        buckets[top][(int) ((currentTick / spans[top] + wheelSize - 1) % wheelSize)].add(entry);
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long deadlineTick;
+        private Bucket<K> bucket;
+        private Entry<K> prev;
+        private Entry<K> next;
+
+        private Entry(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private static final class Bucket<K> {
+        private Entry<K> head;
+
+        private void add(Entry<K> entry) {
+            entry.bucket = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        private void remove(Entry<K> entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        private List<Entry<K>> drain() {
+            List<Entry<K>> drained = new ArrayList<>();
+            Entry<K> entry = head;
+            while (entry != null) {
+                Entry<K> next = entry.next;
+                entry.bucket = null;
+                entry.prev = null;
+                entry.next = null;
+                drained.add(entry);
+                entry = next;
+            }
+            head = null;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.reservation_service.idempotency;
+
+import com.example.reservation_service.entity.IdempotencyRecord;
+import com.example.reservation_service.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.commons.dto.CreateReservationDTO;
+import org.example.commons.dto.ReservationDTO;
+import org.example.commons.exception.ReservationConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Obsługa nagłówka Idempotency-Key dla tworzenia rezerwacji. Powtórzone żądanie dostaje oryginalną odpowiedź
+ * bez ponownego sprawdzania miejsc; równoległe duplikaty w tej instancji czekają na jedno wykonanie, a między
+ * instancjami rozstrzyga INSERT klucza wykonany przed utworzeniem rezerwacji, w tej samej transakcji.
+ * Odpowiedzi są trzymane w ograniczonym cache (LRU z TTL), a trwale w tabeli idempotency_keys.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> cache;
+
+    @Value("${reservation.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${reservation.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${reservation.idempotency.cache-size:10000}") int cacheSize) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public ReservationDTO execute(String key, CreateReservationDTO request, Supplier<ReservationDTO> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+        }
+        String requestHash = hash(request);
+
+        CachedResponse cached = getCached(key);
+        if (cached != null) {
+            return replay(key, requestHash, cached.requestHash(), cached.response());
+        }
+
+        InFlight current = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight existing = inFlight.putIfAbsent(key, current);
+        if (existing != null) {
+            return awaitDuplicate(key, requestHash, existing);
+        }
+
+        try {
+            ReservationDTO response = findStored(key)
+                    .map(record -> replay(key, requestHash, record.getRequestHash(), deserialize(record.getResponse())))
+                    .orElseGet(() -> executeOnce(key, requestHash, action));
+            putCached(key, new CachedResponse(requestHash, response, LocalDateTime.now().plusHours(ttlHours)));
+            current.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            current.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, current);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        int removed = recordRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            LOG.info("Removed {} expired idempotency keys.", removed);
+        }
+    }
+
+    // Zapisana, ważna odpowiedź; wygasły rekord (jeszcze nieusunięty przez purgeExpired) jest usuwany, by zwolnić klucz
+    private Optional<IdempotencyRecord> findStored(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> stored = recordRepository.findById(key);
+        if (stored.isPresent() && !stored.get().getExpiresAt().isAfter(now)) {
+            recordRepository.deleteExpiredKey(key, now);
+            LOG.info("Idempotency key {} has expired. Handling the request as a new one.", key);
+            return Optional.empty();
+        }
+        return stored;
+    }
+
+    private ReservationDTO executeOnce(String key, String requestHash, Supplier<ReservationDTO> action) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        try {
+            return transactionTemplate.execute(status -> {
+                // Klucz jest zajmowany przed rezerwacją: równoległa transakcja z tym samym kluczem czeka na blokadzie
+                // klucza głównego i po naszym zatwierdzeniu dostaje naruszenie unikalności zamiast tworzyć drugą rezerwację
+                LocalDateTime now = LocalDateTime.now();
+                IdempotencyRecord record = recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .key(key)
+                        .requestHash(requestHash)
+                        .createdAt(now)
+                        .expiresAt(now.plusHours(ttlHours))
+                        .build());
+                claimed.set(true);
+                ReservationDTO response = action.get();
+                record.setReservationId(response.getId());
+                record.setResponse(serialize(response));
+                return response;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (claimed.get()) {
+                throw e;
+            }
+            // Ten sam klucz zajęła i zatwierdziła inna instancja - nasza transakcja nic nie zapisała
+            IdempotencyRecord record = recordRepository.findById(key)
+                    .filter(stored -> stored.getResponse() != null)
+                    .orElseThrow(() -> stillProcessing(key));
+            LOG.info("Idempotency key {} was completed concurrently by another instance.", key);
+            return replay(key, requestHash, record.getRequestHash(), deserialize(record.getResponse()));
+        } catch (ConcurrencyFailureException e) {
+            if (claimed.get()) {
+                throw e;
+            }
+            // Transakcja trzymająca klucz nie skończyła się w limicie oczekiwania na blokadę
+            throw stillProcessing(key);
+        }
+    }
+
+    private ReservationDTO awaitDuplicate(String key, String requestHash, InFlight existing) {
+        if (!existing.requestHash().equals(requestHash)) {
+            throw keyReused(key);
+        }
+        try {
+            LOG.info("Request with idempotency key {} is already in progress. Waiting for its result.", key);
+            return existing.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw stillProcessing(key);
+        } catch (TimeoutException e) {
+            throw stillProcessing(key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ReservationDTO replay(String key, String requestHash, String originalHash, ReservationDTO response) {
+        if (!originalHash.equals(requestHash)) {
+            throw keyReused(key);
+        }
+        LOG.info("Replaying reservation {} for idempotency key {}.", response.getId(), key);
+        return response;
+    }
+
+    private ReservationConflictException stillProcessing(String key) {
+        return new ReservationConflictException("Request with Idempotency-Key " + key + " is still being processed.");
+    }
+
+    private ReservationConflictException keyReused(String key) {
+        return new ReservationConflictException("Idempotency-Key " + key + " was already used with a different request.");
+    }
+
+    private synchronized CachedResponse getCached(String key) {
+        CachedResponse cached = cache.get(key);
+        if (cached != null && cached.expiresAt().isBefore(LocalDateTime.now())) {
+            cache.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void putCached(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    private String hash(CreateReservationDTO request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint reservation request", e);
+        }
+    }
+
+    private String serialize(ReservationDTO response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize reservation " + response.getId(), e);
+        }
+    }
+
+    private ReservationDTO deserialize(String response) {
+        try {
+            return objectMapper.readValue(response, ReservationDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<ReservationDTO> result) {
+    }
+
+    private record CachedResponse(String requestHash, ReservationDTO response, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.reservation_service.inventory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Zajętość miejsc jednego seansu jako bitmapa (rząd-po-rzędzie).
+ * Bit ustawiony = miejsce zajęte przez aktywną rezerwację lub wyłączone ze sprzedaży (blokada seansu,
+ * pozycja bez miejsca w układzie sali). Wyłączonych miejsc nie zwalnia {@link #release}.
+ */
+public class ScreeningSeatMap {
+    private static final int CHANGE_LOG_SIZE = 1024;
+
+    private final Long screeningId;
+    private final int rows;
+    private final int seatsPerRow;
+    private final long[] words;
+    private final long[] blocked;
+    // Najdłuższy ciąg wolnych miejsc w każdym rzędzie, aktualizowany przy każdej zmianie bitu
+    private final int[] longestFreeRun;
+    private int reservedCount;
+    // Liczniki utrzymywane przyrostowo: ustawione bity oraz miejsca wyłączone ze sprzedaży
+    private int takenCount;
+    private int blockedCount;
+
+    // Wersje porównywalne są tylko w obrębie jednej mapy: po przebudowie lub na innej instancji numeracja
+    // może się pokrywać, więc klient przekazuje epokę razem z wersją
+    private final String epoch = UUID.randomUUID().toString();
+    // Wersja rośnie przy każdej zmianie
+    private long version = System.currentTimeMillis();
+    private final int[] changeIndexes = new int[CHANGE_LOG_SIZE];
+    private final boolean[] changeTaken = new boolean[CHANGE_LOG_SIZE];
+    private long changeCount;
+    private Snapshot snapshot;
+
+    public ScreeningSeatMap(Long screeningId, int rows, int seatsPerRow) {
+        if (rows <= 0 || seatsPerRow <= 0) {
+            throw new IllegalArgumentException("Invalid hall layout " + rows + "x" + seatsPerRow + " for screening " + screeningId);
+        }
+        this.screeningId = screeningId;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.words = new long[(rows * seatsPerRow + 63) >>> 6];
+        this.blocked = new long[words.length];
+        this.longestFreeRun = new int[rows];
+        Arrays.fill(longestFreeRun, seatsPerRow);
+    }
+
+    public Long getScreeningId() {
+        return screeningId;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int capacity() {
+        return rows * seatsPerRow;
+    }
+
+    public synchronized int getReservedCount() {
+        return reservedCount;
+    }
+
+    /**
+     * Miejsca w sprzedaży: siatka sali bez przejść i miejsc zablokowanych dla seansu.
+     */
+    public synchronized int getSellableCount() {
+        return capacity() - blockedCount;
+    }
+
+    /**
+     * Wolne miejsca (bez rezerwacji, blokad tymczasowych i wyłączeń ze sprzedaży).
+     */
+    public synchronized int getAvailableCount() {
+        return capacity() - takenCount;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Cała mapa jako bitset (little-endian, bit = rząd * seatsPerRow + miejsce) zakodowany w base64.
+     * Kodowanie jest wykonywane raz na wersję i współdzielone przez wszystkie zapytania.
+     */
+    public synchronized Snapshot snapshot() {
+        if (snapshot == null || snapshot.version() != version) {
+            ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (long word : words) {
+                buffer.putLong(word);
+            }
+            int usedBytes = (capacity() + 7) >>> 3;
+            snapshot = new Snapshot(version, Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), usedBytes)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Zmiany po wersji {@code sinceVersion}; {@code null}, jeśli wersja pochodzi z innej epoki (innej mapy)
+     * albo dziennik zmian już jej nie obejmuje - wtedy klient potrzebuje pełnej mapy.
+     */
+    public synchronized List<SeatChange> changesSince(String sinceEpoch, long sinceVersion) {
+        if (!epoch.equals(sinceEpoch) || sinceVersion > version) {
+            return null;
+        }
+        long available = Math.min(changeCount, CHANGE_LOG_SIZE);
+        long missing = version - sinceVersion;
+        if (missing > available) {
+            return null;
+        }
+        List<SeatChange> changes = new ArrayList<>((int) missing);
+        for (long v = sinceVersion + 1; v <= version; v++) {
+            int slot = (int) (v % CHANGE_LOG_SIZE);
+            int index = changeIndexes[slot];
+            changes.add(new SeatChange(v, index / seatsPerRow + 1, index % seatsPerRow + 1, changeTaken[slot]));
+        }
+        return changes;
+    }
+
+    public int indexOf(int rowNumber, int seatNumber) {
+        if (rowNumber < 1 || rowNumber > rows || seatNumber < 1 || seatNumber > seatsPerRow) {
+            throw new IllegalArgumentException("Seat " + rowNumber + "/" + seatNumber + " is outside of hall layout "
+                    + rows + "x" + seatsPerRow + " for screening " + screeningId);
+        }
+        return (rowNumber - 1) * seatsPerRow + (seatNumber - 1);
+    }
+
+    public synchronized boolean isTaken(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Zajmuje wszystkie podane miejsca albo żadne.
+     *
+     * @return pozycje (indeksy w {@code seats}) miejsc już zajętych; pusta lista oznacza sukces
+     */
+    public synchronized List<Integer> tryClaim(List<SeatPosition> seats) {
+        List<Integer> conflicts = new ArrayList<>();
+        int[] indexes = new int[seats.size()];
+        for (int i = 0; i < seats.size(); i++) {
+            indexes[i] = indexOf(seats.get(i).rowNumber(), seats.get(i).seatNumber());
+            if (isTaken(indexes[i])) {
+                conflicts.add(i);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            return conflicts;
+        }
+        for (int index : indexes) {
+            set(index);
+        }
+        return conflicts;
+    }
+
+    public synchronized void mark(int rowNumber, int seatNumber) {
+        set(indexOf(rowNumber, seatNumber));
+    }
+
+    public synchronized void block(int rowNumber, int seatNumber) {
+        int index = indexOf(rowNumber, seatNumber);
+        if (!isBlocked(index)) {
+            blocked[index >>> 6] |= 1L << index;
+            blockedCount++;
+        }
+        // Zablokowane miejsca nie wliczają się do liczby rezerwacji
+        if (!isTaken(index)) {
+            words[index >>> 6] |= 1L << index;
+            takenCount++;
+            recordChange(index, true);
+        }
+    }
+
+    public synchronized boolean isBlocked(int index) {
+        return (blocked[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public synchronized void release(List<SeatPosition> seats) {
+        for (SeatPosition seat : seats) {
+            int index = indexOf(seat.rowNumber(), seat.seatNumber());
+            if (isTaken(index) && !isBlocked(index)) {
+                words[index >>> 6] &= ~(1L << index);
+                reservedCount--;
+                takenCount--;
+                recordChange(index, false);
+            }
+        }
+    }
+
+    /**
+     * Najlepszy ciąg {@code count} sąsiednich wolnych miejsc w jednym rzędzie. Niższy wynik jest lepszy:
+     * odległość od preferowanego rzędu (ważona {@code rowWeight}) plus odległość środka ciągu od środka rzędu,
+     * obie znormalizowane do wymiarów sali. Rzędy bez wystarczająco długiego ciągu są pomijane bez skanowania.
+     *
+     * @param preferredRow preferowany rząd (numerowany od 1)
+     * @return pierwsze miejsce znalezionego ciągu albo {@code null}, jeśli żaden rząd go nie mieści
+     */
+    public synchronized RunCandidate findBestRun(int count, int preferredRow, double rowWeight) {
+        if (count <= 0 || count > seatsPerRow) {
+            return null;
+        }
+        int preferredIndex = Math.min(Math.max(preferredRow, 1), rows) - 1;
+        double rowCenter = (seatsPerRow - 1) / 2.0;
+        RunCandidate best = null;
+        // Rzędy w kolejności rosnącej odległości od preferowanego; dalszych nie warto sprawdzać,
+        // gdy sama kara za rząd przekracza najlepszy dotychczasowy wynik
+        for (int distance = 0; distance < rows; distance++) {
+            double rowPenalty = rowWeight * distance / rows;
+            if (best != null && rowPenalty >= best.score()) {
+                break;
+            }
+            int[] candidateRows = distance == 0
+                    ? new int[]{preferredIndex}
+                    : new int[]{preferredIndex - distance, preferredIndex + distance};
+            for (int row : candidateRows) {
+                if (row < 0 || row >= rows || longestFreeRun[row] < count) {
+                    continue;
+                }
+                RunCandidate candidate = bestRunInRow(row, count, rowCenter, rowPenalty);
+                if (candidate != null && (best == null || candidate.score() < best.score())) {
+                    best = candidate;
+                }
+            }
+        }
+        return best;
+    }
+
+    private RunCandidate bestRunInRow(int row, int count, double rowCenter, double rowPenalty) {
+        int base = row * seatsPerRow;
+        RunCandidate best = null;
+        int seat = 0;
+        while (seat < seatsPerRow) {
+            if (isTaken(base + seat)) {
+                seat++;
+                continue;
+            }
+            int runStart = seat;
+            while (seat < seatsPerRow && !isTaken(base + seat)) {
+                seat++;
+            }
+            int lastStart = seat - count;
+            if (lastStart >= runStart) {
+                // Okno w ciągu najbliższe środkowi rzędu
+                int idealStart = (int) Math.round(rowCenter - (count - 1) / 2.0);
+                int start = Math.min(Math.max(idealStart, runStart), lastStart);
+                double offset = Math.abs(start + (count - 1) / 2.0 - rowCenter) / seatsPerRow;
+                double score = rowPenalty + offset;
+                if (best == null || score < best.score()) {
+                    best = new RunCandidate(row + 1, start + 1, score);
+                }
+            }
+        }
+        return best;
+    }
+
+    private void updateLongestFreeRun(int row) {
+        int base = row * seatsPerRow;
+        int longest = 0;
+        int current = 0;
+        for (int seat = 0; seat < seatsPerRow; seat++) {
+            current = isTaken(base + seat) ? 0 : current + 1;
+            longest = Math.max(longest, current);
+        }
+        longestFreeRun[row] = longest;
+    }
+
+    private void set(int index) {
+        if (!isTaken(index)) {
+            words[index >>> 6] |= 1L << index;
+            reservedCount++;
+            takenCount++;
+            recordChange(index, true);
+        }
+    }
+
+    private void recordChange(int index, boolean taken) {
+        updateLongestFreeRun(index / seatsPerRow);
+        version++;
+        int slot = (int) (version % CHANGE_LOG_SIZE);
+        changeIndexes[slot] = index;
+        changeTaken[slot] = taken;
+        changeCount++;
+    }
+
+    public record Snapshot(long version, String bitmap) {
+    }
+
+    /**
+     * Ciąg miejsc od {@code firstSeatNumber} w rzędzie {@code rowNumber} (numeracja od 1).
+     */
+    public record RunCandidate(int rowNumber, int firstSeatNumber, double score) {
+    }
+
+    public record SeatChange(long version, int rowNumber, int seatNumber, boolean taken) {
+    }
+}
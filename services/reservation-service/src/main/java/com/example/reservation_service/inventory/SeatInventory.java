@@ -0,0 +1,218 @@
+package com.example.reservation_service.inventory;
+
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.repository.ReservedSeatRepository;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import lombok.RequiredArgsConstructor;
+import org.example.commons.enums.ReservationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Pamięciowy indeks zajętości miejsc per seans. Służy do szybkiego odrzucania konfliktów
+ * bez zapytań do bazy; źródłem prawdy pozostają tabele reserved_seats i seat_claims (niewygasłe blokady
+ * tymczasowe, których wygaśnięcie po restarcie planuje ponownie {@code SeatHoldService}).
+ */
+@Component
+@RequiredArgsConstructor
+public class SeatInventory {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatInventory.class);
+    public static final List<ReservationStatus> ACTIVE_STATUSES = List.of(ReservationStatus.PENDING_PAYMENT, ReservationStatus.CONFIRMED);
+
+    private final ScreeningInfoRepository screeningInfoRepository;
+    private final HallLayoutService hallLayoutService;
+    private final ReservedSeatRepository reservedSeatRepository;
+    private final SeatClaimRepository seatClaimRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<Long, ScreeningSeatMap> seatMaps = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        seatMaps.clear();
+        Map<Long, ScreeningInfo> screenings = screeningInfoRepository.findAll().stream()
+                .filter(ScreeningInfo::isActive)
+                .collect(Collectors.toMap(ScreeningInfo::getId, screening -> screening));
+        Map<Long, List<Long>> heldSeatIds = seatClaimRepository.findHeldSeats(LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(SeatClaimRepository.HeldSeatView::getScreeningId,
+                        Collectors.mapping(SeatClaimRepository.HeldSeatView::getSeatId, Collectors.toList())));
+        screenings.values().forEach(screening -> seatMaps.put(screening.getId(),
+                createSeatMap(screening, heldSeatIds.getOrDefault(screening.getId(), List.of()))));
+
+        int loaded = 0;
+        for (ReservedSeatRepository.ActiveSeatView seat : reservedSeatRepository.findActiveSeats(ACTIVE_STATUSES)) {
+            ScreeningSeatMap seatMap = seatMaps.get(seat.getScreeningId());
+            if (seatMap != null) {
+                seatMap.mark(seat.getRowNumber(), seat.getSeatNumber());
+                loaded++;
+            }
+        }
+        int held = heldSeatIds.entrySet().stream()
+                .filter(screening -> seatMaps.containsKey(screening.getKey()))
+                .mapToInt(screening -> screening.getValue().size())
+                .sum();
+        LOG.info("Seat inventory rebuilt for {} screenings ({} reserved seats, {} held seats).", seatMaps.size(), loaded, held);
+    }
+
+    public ScreeningSeatMap getSeatMap(ScreeningInfo screeningInfo) {
+        return seatMaps.computeIfAbsent(screeningInfo.getId(), id -> loadSeatMap(screeningInfo));
+    }
+
+    /**
+     * Mapa seansu tylko wtedy, gdy jest już w pamięci - bez zapytania do bazy.
+     */
+    public Optional<ScreeningSeatMap> findLoadedSeatMap(Long screeningId) {
+        return Optional.ofNullable(seatMaps.get(screeningId));
+    }
+
+    public Optional<ScreeningSeatMap> findSeatMap(Long screeningId) {
+        ScreeningSeatMap seatMap = seatMaps.get(screeningId);
+        if (seatMap != null) {
+            return Optional.of(seatMap);
+        }
+        return screeningInfoRepository.findById(screeningId)
+                .filter(ScreeningInfo::isActive)
+                .map(this::getSeatMap);
+    }
+
+    public boolean isTaken(ScreeningInfo screeningInfo, SeatPosition seat) {
+        ScreeningSeatMap seatMap = getSeatMap(screeningInfo);
+        return seatMap.isTaken(seatMap.indexOf(seat.rowNumber(), seat.seatNumber()));
+    }
+
+    /**
+     * Zajmuje miejsca w indeksie. Jeśli bieżąca transakcja zostanie wycofana, miejsca są zwalniane;
+     * po zatwierdzeniu publikowane jest {@link SeatStateChangedEvent} ze stanem {@code state}.
+     *
+     * @return miejsca, które są już zajęte; pusta lista oznacza, że wszystkie zostały zajęte
+     */
+    public List<SeatPosition> tryReserve(ScreeningInfo screeningInfo, List<SeatPosition> seats, SeatState state) {
+        ScreeningSeatMap seatMap = getSeatMap(screeningInfo);
+        List<Integer> conflicts = seatMap.tryClaim(seats);
+        if (!conflicts.isEmpty()) {
+            return conflicts.stream().map(seats::get).collect(Collectors.toList());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    // Przed zwolnieniem blokady seansu, aby kolejny zapis widział aktualny stan
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        seatMap.release(seats);
+                    } else {
+                        publish(seatMap, state, seats);
+                    }
+                }
+            });
+        } else {
+            publish(seatMap, state, seats);
+        }
+        return List.of();
+    }
+
+    /**
+     * Zwalnia miejsca po zatwierdzeniu bieżącej transakcji (lub od razu, jeśli transakcji nie ma).
+     */
+    public void release(Long screeningId, List<SeatPosition> seats) {
+        if (seats.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            ScreeningSeatMap seatMap = seatMaps.get(screeningId);
+            if (seatMap != null) {
+                seatMap.release(seats);
+                publish(seatMap, SeatState.RELEASED, seats);
+            }
+        });
+    }
+
+    /**
+     * Miejsca zajęte już w indeksie (np. przez blokadę tymczasową) przechodzą w inny stan.
+     */
+    public void changeState(Long screeningId, List<SeatPosition> seats, SeatState state) {
+        afterCommit(() -> {
+            ScreeningSeatMap seatMap = seatMaps.get(screeningId);
+            if (seatMap != null) {
+                publish(seatMap, state, seats);
+            }
+        });
+    }
+
+    private void publish(ScreeningSeatMap seatMap, SeatState state, List<SeatPosition> seats) {
+        eventPublisher.publishEvent(new SeatStateChangedEvent(seatMap.getScreeningId(), seatMap.getEpoch(), seatMap.getVersion(), state, seats));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Usuwa mapę seansu po zatwierdzeniu bieżącej transakcji; kolejne użycie wczyta ją na nowo.
+     */
+    public void evict(Long screeningId) {
+        afterCommit(() -> seatMaps.remove(screeningId));
+    }
+
+    private ScreeningSeatMap loadSeatMap(ScreeningInfo screeningInfo) {
+        ScreeningSeatMap seatMap = createSeatMap(screeningInfo,
+                seatClaimRepository.findHeldSeatIds(screeningInfo.getId(), LocalDateTime.now()));
+        reservedSeatRepository.findActiveSeatsByScreeningId(screeningInfo.getId(), ACTIVE_STATUSES)
+                .forEach(seat -> seatMap.mark(seat.getRowNumber(), seat.getSeatNumber()));
+        return seatMap;
+    }
+
+    private ScreeningSeatMap createSeatMap(ScreeningInfo screeningInfo, Collection<Long> heldSeatIds) {
+        Optional<SeatLayout> layout = hallLayoutService.findLayout(screeningInfo);
+        if (layout.isEmpty()) {
+            LOG.warn("Screening {} has no hall layout. Using {}x{} from the screening copy.",
+                    screeningInfo.getId(), screeningInfo.getHallRows(), screeningInfo.getHallSeatsPerRow());
+            return new ScreeningSeatMap(screeningInfo.getId(),
+                    Math.max(screeningInfo.getHallRows(), 1), Math.max(screeningInfo.getHallSeatsPerRow(), 1));
+        }
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(screeningInfo.getId(), layout.get().getRows(), layout.get().getSeatsPerRow());
+        // Pozycje bez miejsca i miejsca zablokowane dla seansu są na stałe niedostępne
+        layout.get().gaps().forEach(gap -> seatMap.block(gap.rowNumber(), gap.seatNumber()));
+        layout.get().positions(hallLayoutService.getBlockedSeatIds(screeningInfo.getId()))
+                .forEach(seat -> seatMap.block(seat.rowNumber(), seat.seatNumber()));
+        // Blokady tymczasowe odwołują się do ID miejsc, więc bez układu sali nie mogły powstać
+        layout.get().positions(heldSeatIds)
+                .forEach(seat -> seatMap.mark(seat.rowNumber(), seat.seatNumber()));
+        return seatMap;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.reservation_service.inventory;
+
+public record SeatPosition(Long seatId, int rowNumber, int seatNumber) {
+}
@@ -0,0 +1,7 @@
+package com.example.reservation_service.inventory;
+
+public enum SeatState {
+    HELD,      // Tymczasowa blokada na czas checkoutu
+    RESERVED,  // Miejsce w aktywnej rezerwacji
+    RELEASED   // Miejsce ponownie wolne
+}
@@ -0,0 +1,9 @@
+package com.example.reservation_service.inventory;
+
+import java.util.List;
+
+/**
+ * Publikowany po zatwierdzeniu transakcji, która zmieniła stan miejsc seansu. Wersja ma sens tylko w obrębie epoki mapy.
+ */
+public record SeatStateChangedEvent(Long screeningId, String epoch, long version, SeatState state, List<SeatPosition> seats) {
+}
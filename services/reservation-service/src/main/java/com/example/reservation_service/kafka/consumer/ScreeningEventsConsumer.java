@@ -1,11 +1,13 @@
 package com.example.reservation_service.kafka.consumer;
 
 import com.example.reservation_service.entity.ScreeningInfo;
-import com.example.reservation_service.entity.ScreeningSeatInfo;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.layout.HallLayoutService;
 import com.example.reservation_service.repository.ScreeningInfoRepository;
-import com.example.reservation_service.repository.ScreeningSeatInfoRepository;
 import com.example.reservation_service.service.ReservationService; // Do obsługi anulowania rezerwacji
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.example.commons.dto.HallDTO;
 import org.example.commons.dto.ScreeningDTO;
 import org.example.commons.dto.SeatDTO;
@@ -18,17 +20,38 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class ScreeningEventsConsumer {
     private static final Logger LOG = LoggerFactory.getLogger(ScreeningEventsConsumer.class);
     private final ScreeningInfoRepository screeningCopyRepository;
-    private final ScreeningSeatInfoRepository screeningSeatInfoRepository;
     private final ReservationService reservationService; // Do wywołania logiki anulowania rezerwacji
+    private final SeatInventory seatInventory;
+    private final HallLayoutService hallLayoutService;
+    private final Timer layoutRegistrationTimer;
+    private final Counter layoutsCreated;
+    private final Counter layoutsReused;
+
+    public ScreeningEventsConsumer(ScreeningInfoRepository screeningCopyRepository,
+                                   HallLayoutService hallLayoutService,
+                                   ReservationService reservationService,
+                                   SeatInventory seatInventory,
+                                   MeterRegistry meterRegistry) {
+        this.screeningCopyRepository = screeningCopyRepository;
+        this.hallLayoutService = hallLayoutService;
+        this.reservationService = reservationService;
+        this.seatInventory = seatInventory;
+        this.layoutRegistrationTimer = Timer.builder("reservation.hall_layout.register")
+                .description("Time to resolve or store the hall layout of a screening event")
+                .register(meterRegistry);
+        this.layoutsCreated = Counter.builder("reservation.hall_layout.created")
+                .description("Hall layout versions stored from screening events")
+                .register(meterRegistry);
+        this.layoutsReused = Counter.builder("reservation.hall_layout.reused")
+                .description("Screening events (or redeliveries) whose seats matched the latest stored hall layout")
+                .register(meterRegistry);
+    }
 
     @KafkaListener(topics = "cinema.screenings.created", // Użyj stałej z movie-service (lub zdefiniuj w commons)
             groupId = "cinema-group-reservation", // Lub dedykowana grupa
@@ -45,48 +68,32 @@ public class ScreeningEventsConsumer {
                 .movieTitle(dto.getMovieDTO().getTitle())
                 .hallId(dto.getHallDTO().getId())
                 .hallNumber(dto.getHallDTO().getNumber())
+                .hallRows(dto.getHallDTO().getRows())
+                .hallSeatsPerRow(dto.getHallDTO().getSeatsPerRow())
                 .isActive(true)
                 .build();
+        copy.setLayoutVersion(registerHallLayout(dto));
         ScreeningInfo savedScreeningCopy = screeningCopyRepository.save(copy);
-        LOG.info("Screening copy created/updated for ID: {}", savedScreeningCopy.getId());
-
-        // Generowanie i zapisywanie kopii miejsc dla tego seansu
-        generateAndSaveSeatCopies(savedScreeningCopy, dto);
+        LOG.info("Screening copy created/updated for ID: {} (hall layout version: {})", savedScreeningCopy.getId(), savedScreeningCopy.getLayoutVersion());
     }
 
-    private void generateAndSaveSeatCopies(ScreeningInfo screeningInfo, ScreeningDTO screeningDtoFromEvent) {
+    /**
+     * Układ sali jest zapisywany raz na wersję, a nie kopiowany dla każdego seansu.
+     *
+     * @return wersja układu albo {@code null}, jeśli zdarzenie nie zawiera miejsc (używana będzie najnowsza wersja sali)
+     */
+    private Integer registerHallLayout(ScreeningDTO screeningDtoFromEvent) {
         if (screeningDtoFromEvent.getAvailableSeats() == null || screeningDtoFromEvent.getAvailableSeats().isEmpty()) {
-            LOG.warn("No seat DTOs provided in ScreeningCreatedEvent for screening copy ID {}. Cannot generate seat copies.", screeningInfo.getId());
-            // Tutaj można by rzucić wyjątek lub wysłać event o błędzie, jeśli lista miejsc jest oczekiwana
-            return;
-        }
-
-        List<ScreeningSeatInfo> seatCopies = new ArrayList<>();
-        for (SeatDTO seatDto : screeningDtoFromEvent.getAvailableSeats()) {
-            // Idempotentność dla miejsc: sprawdź, czy kopia miejsca już istnieje
-            if (!screeningSeatInfoRepository.existsByScreeningInfoIdAndOriginalSeatId(screeningInfo.getId(), seatDto.getId())) {
-                ScreeningSeatInfo seatCopy = ScreeningSeatInfo.builder()
-                        .originalSeatId(seatDto.getId()) // ID miejsca z MovieService
-                        .screeningInfoId(screeningInfo.getId()) // Poprawiona nazwa pola
-                        .rowNumber(seatDto.getRowNumber())
-                        .seatNumber(seatDto.getSeatNumber())
-                        .build();
-                seatCopies.add(seatCopy);
-            } else {
-                LOG.debug("ScreeningSeatInfo copy for screeningInfoId {} and originalSeatId {} already exists. Skipping creation.",
-                        screeningInfo.getId(), seatDto.getId());
-            }
-        }
-
-        if (!seatCopies.isEmpty()) {
-            screeningSeatInfoRepository.saveAll(seatCopies);
-            LOG.info("Saved {} new seat copies from event for screening copy ID: {}", seatCopies.size(), screeningInfo.getId());
-        } else {
-            LOG.info("No new seat copies to save for screening copy ID: {}", screeningInfo.getId());
+            LOG.warn("No seat DTOs provided in event for screening ID {}. Using the latest known layout of hall {}.",
+                    screeningDtoFromEvent.getId(), screeningDtoFromEvent.getHallDTO().getId());
+            return null;
         }
+        HallLayoutService.Registration registration = layoutRegistrationTimer.record(() ->
+                hallLayoutService.registerLayout(screeningDtoFromEvent.getHallDTO(), screeningDtoFromEvent.getAvailableSeats()));
+        (registration.created() ? layoutsCreated : layoutsReused).increment();
+        return registration.version();
     }
 
-
     @KafkaListener(topics = "cinema.screenings.updated",
             groupId = "cinema-group-reservation",
             containerFactory = "screeningUpdatedEventKafkaListenerContainerFactory")
@@ -102,9 +109,16 @@ public class ScreeningEventsConsumer {
             copy.setBasePrice(dto.getBasePrice());
             copy.setMovieId(dto.getMovieDTO().getId());
             copy.setMovieTitle(dto.getMovieDTO().getTitle());
+            if (!copy.getHallId().equals(dto.getHallDTO().getId())
+                    || (dto.getAvailableSeats() != null && !dto.getAvailableSeats().isEmpty())) {
+                copy.setLayoutVersion(registerHallLayout(dto));
+            }
             copy.setHallId(dto.getHallDTO().getId());
             copy.setHallNumber(dto.getHallDTO().getNumber());
+            copy.setHallRows(dto.getHallDTO().getRows());
+            copy.setHallSeatsPerRow(dto.getHallDTO().getSeatsPerRow());
             screeningCopyRepository.save(copy);
+            seatInventory.evict(copy.getId());
             reservationService.handleScreeningUpdate(event, oldScreeningCopy);
             LOG.info("Screening copy updated for ID: {}", copy.getId());
         }, () -> LOG.warn("Screening copy not found for update with ID: {}. A ScreeningCreatedEvent might have been missed.", event.getScreeningId()));
@@ -121,9 +135,8 @@ public class ScreeningEventsConsumer {
             screeningCopyRepository.save(copy);
             LOG.info("Screening copy for ID: {} marked as inactive.", copy.getId());
 
-            // Usuń kopie miejsc dla tego seansu (opcjonalnie, można je też oznaczyć jako nieaktywne)
-            screeningSeatInfoRepository.deleteAllByScreeningInfoId(copy.getId());
-            LOG.info("Deleted seat copies for inactive screening copy ID: {}", copy.getId());
+            // Układ sali jest współdzielony - usuwamy jedynie nadpisania tego seansu
+            hallLayoutService.clearBlockedSeats(copy.getId());
 
             reservationService.handleScreeningCancellation(event.getScreeningId(), event.getReason());
         }, () -> LOG.warn("Screening copy not found for cancellation with ID: {}", event.getScreeningId()));
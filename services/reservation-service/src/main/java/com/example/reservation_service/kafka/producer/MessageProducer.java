@@ -1,13 +1,25 @@
 package com.example.reservation_service.kafka.producer;
 
+import com.example.reservation_service.entity.OutboxEvent;
+import com.example.reservation_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.commons.dto.ReservationDTO;
 import org.example.commons.dto.ScreeningChangeNotificationDTO;
 import org.example.commons.events.ReservationCancelledEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Wiadomości nie są wysyłane bezpośrednio do Kafki - trafiają do tabeli outbox w bieżącej transakcji
+ * i są publikowane przez {@link com.example.reservation_service.outbox.OutboxRelay} po jej zatwierdzeniu.
+ */
 @Component
 public class MessageProducer {
 
@@ -16,36 +28,69 @@ public class MessageProducer {
     private static final String TICKET_TOPIC = "cinema.ticket.request";
     private static final String CANCEL_TOPIC = "cinema.cancel.reservation";
     private static final String SCREENING_CHANGE_NOTIFICATION_TOPIC = "cinema.notification.screening_change";
-    private final KafkaTemplate<String, ReservationDTO> kafkaTemplate;
-    private final KafkaTemplate<String, ReservationCancelledEvent> cancelKafkaTemplate;
-    private final KafkaTemplate<String, ScreeningChangeNotificationDTO> screeningChangeNotificationKafkaTemplate; // Nowy template
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
 
-    public MessageProducer(KafkaTemplate<String, ReservationDTO> kafkaTemplate,
-                           KafkaTemplate<String, ReservationCancelledEvent> cancelKafkaTemplate,
-                           KafkaTemplate<String, ScreeningChangeNotificationDTO> screeningChangeNotificationKafkaTemplate) { // Zaktualizuj konstruktor
-        this.kafkaTemplate = kafkaTemplate;
-        this.cancelKafkaTemplate = cancelKafkaTemplate;
-        this.screeningChangeNotificationKafkaTemplate = screeningChangeNotificationKafkaTemplate;
+    public MessageProducer(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
     }
 
+    @Transactional
     public void sendReservation(ReservationDTO reservation) {
-        kafkaTemplate.send(RESERVATION_TOPIC, reservation);
-        LOG.info("Sent reservation: {} to topic: {}", reservation.getId(), RESERVATION_TOPIC);
+        append(RESERVATION_TOPIC, reservation.getId(), reservation);
+        LOG.info("Queued reservation: {} for topic: {}", reservation.getId(), RESERVATION_TOPIC);
     }
 
+    @Transactional
     public void sendTicketRequest(ReservationDTO reservation) {
-        kafkaTemplate.send(TICKET_TOPIC, reservation);
-        LOG.info("Sent ticket request: {} to topic: {}", reservation.getId(), TICKET_TOPIC);
+        append(TICKET_TOPIC, reservation.getId(), reservation);
+        LOG.info("Queued ticket request: {} for topic: {}", reservation.getId(), TICKET_TOPIC);
     }
 
+    @Transactional
     public void sendReservationCancelled(ReservationCancelledEvent event) {
-        cancelKafkaTemplate.send(CANCEL_TOPIC, event);
-        LOG.info("Sent cancellation: {} to topic: {}", event.getReservationId(), CANCEL_TOPIC);
+        append(CANCEL_TOPIC, event.getReservationId(), event);
+        LOG.info("Queued cancellation: {} for topic: {}", event.getReservationId(), CANCEL_TOPIC);
     }
 
+    @Transactional
     public void sendScreeningChangeNotification(ScreeningChangeNotificationDTO payload) {
-        LOG.info("Sending ScreeningChangeNotification for reservation ID: {} (Screening ID: {})",
+        LOG.info("Queueing ScreeningChangeNotification for reservation ID: {} (Screening ID: {})",
                 payload.getReservationId(), payload.getOriginalScreeningId());
-        screeningChangeNotificationKafkaTemplate.send(SCREENING_CHANGE_NOTIFICATION_TOPIC, payload);
+        append(SCREENING_CHANGE_NOTIFICATION_TOPIC, payload.getReservationId(), payload);
+    }
+
+    @Transactional
+    public void sendReservationsCancelled(List<ReservationCancelledEvent> events) {
+        outboxEventRepository.saveAll(events.stream()
+                .map(event -> toOutboxEvent(CANCEL_TOPIC, event.getReservationId(), event))
+                .collect(Collectors.toList()));
+        LOG.info("Queued {} cancellations for topic: {}", events.size(), CANCEL_TOPIC);
+    }
+
+    @Transactional
+    public void sendScreeningChangeNotifications(List<ScreeningChangeNotificationDTO> payloads) {
+        outboxEventRepository.saveAll(payloads.stream()
+                .map(payload -> toOutboxEvent(SCREENING_CHANGE_NOTIFICATION_TOPIC, payload.getReservationId(), payload))
+                .collect(Collectors.toList()));
+        LOG.info("Queued {} screening change notifications for topic: {}", payloads.size(), SCREENING_CHANGE_NOTIFICATION_TOPIC);
+    }
+
+    private void append(String topic, Long reservationId, Object payload) {
+        outboxEventRepository.save(toOutboxEvent(topic, reservationId, payload));
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, Long reservationId, Object payload) {
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .aggregateKey(String.valueOf(reservationId))
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize message for topic " + topic, e);
+        }
     }
 }
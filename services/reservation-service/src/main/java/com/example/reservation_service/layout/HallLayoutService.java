@@ -0,0 +1,191 @@
+package com.example.reservation_service.layout;
+
+import com.example.reservation_service.entity.HallLayout;
+import com.example.reservation_service.entity.ScreeningBlockedSeat;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.repository.HallLayoutRepository;
+import com.example.reservation_service.repository.ScreeningBlockedSeatRepository;
+import org.example.commons.dto.HallDTO;
+import org.example.commons.dto.SeatDTO;
+import org.example.commons.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Układy sal (wersjonowane, niezmienne) i wyszukiwanie miejsc seansu na ich podstawie.
+ * Wersje są cache'owane bez wygasania - raz zapisana wersja nigdy się nie zmienia. Najnowsza wersja sali
+ * (dla seansów bez wersji) jest cache'owana krótko, bo nową wersję może zapisać inna instancja.
+ */
+@Service
+public class HallLayoutService {
+    private static final Logger LOG = LoggerFactory.getLogger(HallLayoutService.class);
+    private static final int MAX_REGISTER_ATTEMPTS = 3;
+
+    private final HallLayoutRepository hallLayoutRepository;
+    private final ScreeningBlockedSeatRepository blockedSeatRepository;
+    private final TransactionTemplate registerTransaction;
+    private final long latestTtlMillis;
+    private final Map<HallLayout.Key, SeatLayout> layouts = new ConcurrentHashMap<>();
+    private final Map<Long, LatestLayout> latestLayouts = new ConcurrentHashMap<>();
+
+    public HallLayoutService(HallLayoutRepository hallLayoutRepository,
+                             ScreeningBlockedSeatRepository blockedSeatRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${reservation.layouts.latest-ttl-ms:60000}") long latestTtlMillis) {
+        this.hallLayoutRepository = hallLayoutRepository;
+        this.blockedSeatRepository = blockedSeatRepository;
+        // Osobna transakcja: naruszenie klucza przy wyścigu nie może oznaczyć transakcji wywołującego jako rollback-only
+        this.registerTransaction = new TransactionTemplate(transactionManager);
+        this.registerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.latestTtlMillis = latestTtlMillis;
+    }
+
+    /**
+     * Zapisuje układ sali z listy miejsc, jeśli różni się od najnowszej wersji. Nowa wersja jest zatwierdzana
+     * we własnej transakcji; gdy ten sam numer wersji zapisze równolegle inna instancja, odczyt i zapis są ponawiane.
+     *
+     * @return wersja układu odpowiadająca podanym miejscom
+     */
+    public Registration registerLayout(HallDTO hall, List<SeatDTO> seats) {
+        int rows = hall.getRows();
+        int seatsPerRow = hall.getSeatsPerRow();
+        for (SeatDTO seat : seats) {
+            rows = Math.max(rows, seat.getRowNumber());
+            seatsPerRow = Math.max(seatsPerRow, seat.getSeatNumber());
+        }
+        long[] seatIds = new long[rows * seatsPerRow];
+        for (SeatDTO seat : seats) {
+            seatIds[(seat.getRowNumber() - 1) * seatsPerRow + (seat.getSeatNumber() - 1)] = seat.getId();
+        }
+        byte[] encoded = SeatLayout.encode(seatIds);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Registration registration = registerTransaction.execute(status ->
+                        registerOnce(hall.getId(), rows, seatsPerRow, encoded));
+                if (registration.created()) {
+                    LOG.info("Registered layout version {} for hall ID: {} ({}x{}, {} seats).",
+                            registration.version(), hall.getId(), rows, seatsPerRow, seats.size());
+                }
+                return registration;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_REGISTER_ATTEMPTS) {
+                    throw e;
+                }
+                LOG.info("Layout version for hall ID: {} was registered concurrently. Retrying (attempt {} of {}).",
+                        hall.getId(), attempt + 1, MAX_REGISTER_ATTEMPTS);
+            }
+        }
+    }
+
+    private Registration registerOnce(Long hallId, int rows, int seatsPerRow, byte[] encoded) {
+        Optional<HallLayout> latest = hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(hallId);
+        if (latest.isPresent() && latest.get().getRows() == rows && latest.get().getSeatsPerRow() == seatsPerRow
+                && Arrays.equals(latest.get().getSeatIds(), encoded)) {
+            cacheLatest(latest.get());
+            return new Registration(latest.get().getVersion(), false);
+        }
+
+        HallLayout layout = hallLayoutRepository.saveAndFlush(HallLayout.builder()
+                .hallId(hallId)
+                .version(latest.map(previous -> previous.getVersion() + 1).orElse(1))
+                .rows(rows)
+                .seatsPerRow(seatsPerRow)
+                .seatIds(encoded)
+                .createdAt(LocalDateTime.now())
+                .build());
+        cacheLatest(layout);
+        return new Registration(layout.getVersion(), true);
+    }
+
+    /**
+     * Układ, z którym seans został utworzony; kopie bez wersji korzystają z najnowszej wersji sali.
+     */
+    public Optional<SeatLayout> findLayout(ScreeningInfo screeningInfo) {
+        Integer version = screeningInfo.getLayoutVersion();
+        if (version == null) {
+            LatestLayout latest = latestLayouts.get(screeningInfo.getHallId());
+            if (latest != null && System.currentTimeMillis() - latest.loadedAtMillis() < latestTtlMillis) {
+                return Optional.of(latest.layout());
+            }
+            return hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(screeningInfo.getHallId())
+                    .map(this::cacheLatest);
+        }
+        HallLayout.Key key = new HallLayout.Key(screeningInfo.getHallId(), version);
+        SeatLayout cached = layouts.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return hallLayoutRepository.findById(key).map(this::cache);
+    }
+
+    public SeatLayout getLayout(ScreeningInfo screeningInfo) {
+        return findLayout(screeningInfo)
+                .orElseThrow(() -> new ResourceNotFoundException("No seat layout found for hall " + screeningInfo.getHallId()
+                        + " of screening " + screeningInfo.getId() + "."));
+    }
+
+    public List<SeatPosition> resolveSeats(ScreeningInfo screeningInfo, Collection<Long> seatIds) {
+        return findLayout(screeningInfo).map(layout -> layout.positions(seatIds)).orElse(List.of());
+    }
+
+    public List<Long> getBlockedSeatIds(Long screeningId) {
+        return blockedSeatRepository.findSeatIdsByScreeningId(screeningId);
+    }
+
+    @Transactional
+    public void replaceBlockedSeats(Long screeningId, Collection<Long> seatIds) {
+        blockedSeatRepository.deleteByScreeningId(screeningId);
+        LocalDateTime now = LocalDateTime.now();
+        blockedSeatRepository.saveAll(seatIds.stream()
+                .distinct()
+                .map(seatId -> ScreeningBlockedSeat.builder().screeningId(screeningId).seatId(seatId).blockedAt(now).build())
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional
+    public void clearBlockedSeats(Long screeningId) {
+        blockedSeatRepository.deleteByScreeningId(screeningId);
+    }
+
+    private SeatLayout cache(HallLayout layout) {
+        return layouts.computeIfAbsent(new HallLayout.Key(layout.getHallId(), layout.getVersion()),
+                key -> new SeatLayout(layout.getHallId(), layout.getVersion(), layout.getRows(), layout.getSeatsPerRow(),
+                        SeatLayout.decode(layout.getSeatIds())));
+    }
+
+    // Starsza wersja (np. odczytana przed zapisem nowszej) nie nadpisuje nowszej w cache
+    private SeatLayout cacheLatest(HallLayout layout) {
+        SeatLayout seatLayout = cache(layout);
+        long now = System.currentTimeMillis();
+        latestLayouts.merge(layout.getHallId(), new LatestLayout(seatLayout, now), (cached, loaded) ->
+                cached.layout().getVersion() > loaded.layout().getVersion() ? cached : loaded);
+        return seatLayout;
+    }
+
+    /**
+     * Wersja układu odpowiadająca miejscom i to, czy została zapisana w tym wywołaniu.
+     */
+    public record Registration(int version, boolean created) {
+    }
+
+    private record LatestLayout(SeatLayout layout, long loadedAtMillis) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.reservation_service.layout;
+
+import com.example.reservation_service.inventory.SeatPosition;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pamięciowa, niezmienna postać {@link com.example.reservation_service.entity.HallLayout}.
+ * Pozycja miejsca to indeks rząd-po-rzędzie, więc rząd i numer wynikają z arytmetyki.
+ */
+public final class SeatLayout {
+    private final Long hallId;
+    private final int version;
+    private final int rows;
+    private final int seatsPerRow;
+    private final long[] seatIds;
+    private final Map<Long, Integer> indexBySeatId;
+
+    public SeatLayout(Long hallId, int version, int rows, int seatsPerRow, long[] seatIds) {
+        if (seatIds.length != rows * seatsPerRow) {
+            throw new IllegalArgumentException("Layout of hall " + hallId + " has " + seatIds.length
+                    + " positions, expected " + rows + "x" + seatsPerRow);
+        }
+        this.hallId = hallId;
+        this.version = version;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.seatIds = seatIds;
+        this.indexBySeatId = new HashMap<>(seatIds.length * 2);
+        for (int i = 0; i < seatIds.length; i++) {
+            if (seatIds[i] != 0) {
+                indexBySeatId.put(seatIds[i], i);
+            }
+        }
+    }
+
+    public Long getHallId() {
+        return hallId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public SeatPosition position(Long seatId) {
+        Integer index = indexBySeatId.get(seatId);
+        return index == null ? null : toPosition(index);
+    }
+
+    /**
+     * Pozycje znanych miejsc w kolejności żądania; nieznane ID są pomijane.
+     */
+    public List<SeatPosition> positions(Collection<Long> seatIds) {
+        List<SeatPosition> positions = new ArrayList<>(seatIds.size());
+        for (Long seatId : seatIds) {
+            SeatPosition position = position(seatId);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * ID miejsca na pozycji albo {@code null}, jeśli pozycja jest przejściem.
+     */
+    public Long seatIdAt(int rowNumber, int seatNumber) {
+        long seatId = seatIds[(rowNumber - 1) * seatsPerRow + (seatNumber - 1)];
+        return seatId == 0 ? null : seatId;
+    }
+
+    public List<SeatPosition> allSeats() {
+        List<SeatPosition> positions = new ArrayList<>(indexBySeatId.size());
+        for (int i = 0; i < seatIds.length; i++) {
+            if (seatIds[i] != 0) {
+                positions.add(toPosition(i));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Pozycje siatki rows x seatsPerRow, na których nie ma miejsca (przejścia, nieregularne rzędy).
+     */
+    public List<SeatPosition> gaps() {
+        List<SeatPosition> gaps = new ArrayList<>();
+        for (int i = 0; i < seatIds.length; i++) {
+            if (seatIds[i] == 0) {
+                gaps.add(new SeatPosition(null, i / seatsPerRow + 1, i % seatsPerRow + 1));
+            }
+        }
+        return gaps;
+    }
+
+    public byte[] encode() {
+        return encode(seatIds);
+    }
+
+    public static byte[] encode(long[] seatIds) {
+        ByteBuffer buffer = ByteBuffer.allocate(seatIds.length * Long.BYTES);
+        for (long seatId : seatIds) {
+            buffer.putLong(seatId);
+        }
+        return buffer.array();
+    }
+
+    public static long[] decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        long[] seatIds = new long[encoded.length / Long.BYTES];
+        for (int i = 0; i < seatIds.length; i++) {
+            seatIds[i] = buffer.getLong();
+        }
+        return seatIds;
+    }
+
+    private SeatPosition toPosition(int index) {
+        return new SeatPosition(seatIds[index], index / seatsPerRow + 1, index % seatsPerRow + 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.reservation_service.lock;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Blokady doradcze PostgreSQL (pg_advisory_xact_lock) dla wdrożeń z wieloma instancjami.
+ * Blokada jest zwalniana przez bazę przy COMMIT/ROLLBACK. Działa wyłącznie na PostgreSQL -
+ * włączana przez {@code reservation.locking.mode=advisory}; przy innej bazie aplikacja nie wystartuje.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.locking.mode", havingValue = "advisory")
+@RequiredArgsConstructor
+public class AdvisoryScreeningLockManager implements ScreeningLockManager {
+    // Przestrzeń kluczy blokad rezerwacji, aby nie kolidować z innymi użyciami blokad doradczych
+    private static final int LOCK_NAMESPACE = 0x5EA7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScreeningLockMetrics metrics;
+
+    @PostConstruct
+    void requirePostgres() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            throw new IllegalStateException("reservation.locking.mode=advisory requires PostgreSQL, but the datasource is " + database + ".");
+        }
+    }
+
+    @Override
+    public void lock(Long screeningId) {
+        requireTransaction();
+        acquire(Long.hashCode(screeningId));
+    }
+
+    // pg_try_advisory_xact_lock nie czeka wcale - limit czasu nie ma tu zastosowania
+    @Override
+    public boolean tryLock(Long screeningId, long timeoutMillis) {
+        requireTransaction();
+        metrics.waiting();
+        Boolean acquired;
+        try {
+            acquired = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?, ?)", Boolean.class, LOCK_NAMESPACE, Long.hashCode(screeningId));
+        } catch (RuntimeException e) {
+            metrics.abandoned();
+            throw e;
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            metrics.abandoned();
+            return false;
+        }
+        metrics.acquired(0);
+        return true;
+    }
+
+    // Klucze rosnąco - Long.hashCode różnych seansów może się pokrywać, więc kolejność po ID nie wystarcza
+    @Override
+    public void lockAll(Collection<Long> screeningIds) {
+        requireTransaction();
+        SortedSet<Integer> keys = new TreeSet<>();
+        screeningIds.forEach(screeningId -> keys.add(Long.hashCode(screeningId)));
+        keys.forEach(this::acquire);
+    }
+
+    private void acquire(int key) {
+        long start = System.nanoTime();
+        metrics.waiting();
+        try {
+            jdbcTemplate.query("select pg_advisory_xact_lock(?, ?)", rs -> null, LOCK_NAMESPACE, key);
+        } catch (RuntimeException e) {
+            metrics.abandoned();
+            throw e;
+        }
+        metrics.acquired(System.nanoTime() - start);
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Screening lock requires an active transaction.");
+        }
+    }
+}
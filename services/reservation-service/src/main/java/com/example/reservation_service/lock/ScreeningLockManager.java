@@ -0,0 +1,22 @@
+package com.example.reservation_service.lock;
+
+import java.util.Collection;
+
+/**
+ * Serializuje zapisy dotyczące jednego seansu. Blokada jest zwalniana razem z zakończeniem
+ * bieżącej transakcji, więc wywołanie wymaga aktywnej transakcji.
+ */
+public interface ScreeningLockManager {
+    void lock(Long screeningId);
+
+    /**
+     * Jak {@link #lock(Long)}, ale czeka najwyżej {@code timeoutMillis} i zamiast wyjątku zwraca {@code false}.
+     */
+    boolean tryLock(Long screeningId, long timeoutMillis);
+
+    /**
+     * Blokuje kilka seansów w jednej transakcji. Kolejność wyznacza to, co faktycznie jest blokowane
+     * (pasmo, klucz doradczy), a nie ID seansu - różne seanse mogą dzielić blokadę.
+     */
+    void lockAll(Collection<Long> screeningIds);
+}
@@ -0,0 +1,41 @@
+package com.example.reservation_service.lock;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Czas oczekiwania na blokadę seansu i liczba oczekujących wątków, łącznie dla wszystkich seansów.
+ * Bez znacznika seansu - seanse przybywają bez końca, a każdy znacznik to osobny miernik w rejestrze.
+ */
+@Component
+public class ScreeningLockMetrics {
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Timer waitTimer;
+
+    public ScreeningLockMetrics(MeterRegistry meterRegistry) {
+        this.waitTimer = Timer.builder("reservation.screening.lock.wait")
+                .description("Time spent waiting for the per-screening write lock")
+                .register(meterRegistry);
+        Gauge.builder("reservation.screening.lock.queue", queueDepth, AtomicInteger::get)
+                .description("Writers waiting for a per-screening write lock")
+                .register(meterRegistry);
+    }
+
+    public void waiting() {
+        queueDepth.incrementAndGet();
+    }
+
+    public void acquired(long waitNanos) {
+        queueDepth.decrementAndGet();
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void abandoned() {
+        queueDepth.decrementAndGet();
+    }
+}
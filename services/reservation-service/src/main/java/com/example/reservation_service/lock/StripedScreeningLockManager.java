@@ -0,0 +1,106 @@
+package com.example.reservation_service.lock;
+
+import org.example.commons.exception.ReservationConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blokady w pamięci procesu: seanse są rozkładane na stałą pulę blokad (stripes),
+ * więc różne seanse w praktyce nie czekają na siebie. Wystarcza dla pojedynczej instancji.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.locking.mode", havingValue = "local", matchIfMissing = true)
+public class StripedScreeningLockManager implements ScreeningLockManager {
+    private static final Logger LOG = LoggerFactory.getLogger(StripedScreeningLockManager.class);
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+    private final ScreeningLockMetrics metrics;
+
+    public StripedScreeningLockManager(@Value("${reservation.locking.stripes:256}") int stripeCount,
+                                       @Value("${reservation.locking.timeout-ms:5000}") long timeoutMillis,
+                                       ScreeningLockMetrics metrics) {
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void lock(Long screeningId) {
+        if (!tryLock(screeningId, timeoutMillis)) {
+            LOG.warn("Timed out after {} ms waiting for write lock of screening ID: {}", timeoutMillis, screeningId);
+            throw new ReservationConflictException("Screening " + screeningId + " is busy. Please retry.");
+        }
+    }
+
+    @Override
+    public boolean tryLock(Long screeningId, long timeoutMillis) {
+        requireTransaction();
+        return acquire(stripes[stripeIndex(screeningId)], timeoutMillis);
+    }
+
+    // Pasma rosnąco - dwa koszyki na rozłącznych seansach mogą trafić w te same pasma w odwrotnej kolejności ID
+    @Override
+    public void lockAll(Collection<Long> screeningIds) {
+        requireTransaction();
+        SortedSet<Integer> indexes = new TreeSet<>();
+        screeningIds.forEach(screeningId -> indexes.add(stripeIndex(screeningId)));
+        for (int index : indexes) {
+            if (!acquire(stripes[index], timeoutMillis)) {
+                LOG.warn("Timed out after {} ms waiting for write locks of screening IDs: {}", timeoutMillis, screeningIds);
+                throw new ReservationConflictException("Screenings " + screeningIds + " are busy. Please retry.");
+            }
+        }
+    }
+
+    private boolean acquire(ReentrantLock lock, long timeoutMillis) {
+        long start = System.nanoTime();
+        metrics.waiting();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            metrics.abandoned();
+            return false;
+        }
+        metrics.acquired(System.nanoTime() - start);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Screening lock requires an active transaction.");
+        }
+    }
+
+    private int stripeIndex(Long screeningId) {
+        int hash = Long.hashCode(screeningId);
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.reservation_service.outbox;
+
+import com.example.reservation_service.entity.OutboxEvent;
+import com.example.reservation_service.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publikuje zdarzenia z outbox_events partiami, w kolejności zapisu (at-least-once).
+ * Zdarzenie jest oznaczane jako opublikowane dopiero po potwierdzeniu przez brokera; po pierwszym
+ * błędzie partia jest przerywana, aby nie wyprzedzić nieopublikowanego zdarzenia tego samego agregatu.
+ * Partia jest blokowana (FOR UPDATE NOWAIT) na czas wysyłki, więc przy kilku instancjach publikuje ją tylko
+ * jedna, a pozostałe pomijają przebieg zamiast publikować późniejsze zdarzenia z wyprzedzeniem.
+ * Relay działa na własnym wątku - oczekiwanie na brokera nie wstrzymuje zadań {@code @Scheduled}.
+ */
+@EnableScheduling
+@Component
+public class OutboxRelay {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Value("${reservation.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${reservation.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${reservation.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${reservation.outbox.poll-interval-ms:250}")
+    private long pollIntervalMillis;
+
+    private ScheduledExecutorService relayExecutor;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, String> outboxKafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.publishedCounter = Counter.builder("reservation.outbox.published")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("reservation.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox events waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("reservation.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        relayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relayExecutor.scheduleWithFixedDelay(this::relaySafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        relayExecutor.shutdownNow();
+    }
+
+    // Wyjątek przerwałby kolejne uruchomienia w ScheduledExecutorService
+    private void relaySafely() {
+        try {
+            relay();
+        } catch (Exception e) {
+            LOG.error("Outbox relay run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public void relay() {
+        int published;
+        do {
+            published = publishBatch();
+        } while (published == batchSize);
+        updateLagMetrics();
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (deleted != null && deleted > 0) {
+            LOG.info("Removed {} published outbox events older than {} hours.", deleted, retentionHours);
+        }
+    }
+
+    private int publishBatch() {
+        try {
+            Integer published = transactionTemplate.execute(status -> publishLockedBatch());
+            return published != null ? published : 0;
+        } catch (PessimisticLockingFailureException e) {
+            LOG.debug("Outbox batch is being published by another instance: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    // W transakcji trzymającej blokady wierszy partii aż do oznaczenia ich jako opublikowane
+    private int publishLockedBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByPublishedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            sends.add(outboxKafkaTemplate.send(event.getTopic(), event.getAggregateKey(), event.getPayload()));
+        }
+
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+                publishedIds.add(batch.get(i).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                LOG.warn("Failed to publish outbox event {} to topic {}: {}. Will retry.",
+                        batch.get(i).getId(), batch.get(i).getTopic(), e.getMessage());
+                break;
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markPublished(publishedIds, LocalDateTime.now());
+            publishedCounter.increment(publishedIds.size());
+            LOG.debug("Published {} outbox events.", publishedIds.size());
+        }
+        return publishedIds.size() == batch.size() ? batch.size() : -1;
+    }
+
+    private void updateLagMetrics() {
+        pendingEvents.set(outboxEventRepository.countByPublishedAtIsNull());
+        lagMillis.set(outboxEventRepository.findFirstByPublishedAtIsNullOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L));
+    }
+}
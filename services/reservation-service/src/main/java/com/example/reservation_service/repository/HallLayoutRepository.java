@@ -0,0 +1,10 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.HallLayout;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface HallLayoutRepository extends JpaRepository<HallLayout, HallLayout.Key> {
+    Optional<HallLayout> findFirstByHallIdOrderByVersionDesc(Long hallId);
+}
@@ -0,0 +1,22 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.expiresAt < :now")
+    int deleteExpiredKey(@Param("key") String key, @Param("now") LocalDateTime now);
+}
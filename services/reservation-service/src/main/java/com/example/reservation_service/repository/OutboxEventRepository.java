@@ -0,0 +1,36 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // FOR UPDATE NOWAIT: początek outboxu zablokowany przez inną instancję kończy się od razu wyjątkiem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    List<OutboxEvent> findByPublishedAtIsNullOrderByIdAsc(Limit limit);
+
+    Optional<OutboxEvent> findFirstByPublishedAtIsNullOrderByIdAsc();
+
+    long countByPublishedAtIsNull();
+
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
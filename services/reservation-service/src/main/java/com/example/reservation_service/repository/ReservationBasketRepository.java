@@ -0,0 +1,7 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.ReservationBasket;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReservationBasketRepository extends JpaRepository<ReservationBasket, Long> {
+}
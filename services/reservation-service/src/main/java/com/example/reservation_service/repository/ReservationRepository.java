@@ -2,10 +2,84 @@ package com.example.reservation_service.repository;
 
 import com.example.reservation_service.entity.Reservation;
 import org.example.commons.enums.ReservationStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+public interface ReservationRepository extends JpaRepository<Reservation, Long>, ReservationSearchRepository {
     List<Reservation> findAllByScreeningIdAndStatusIn(Long cancelledScreeningId, List<ReservationStatus> statusList);
-}
\ No newline at end of file
+
+    // Stronicowanie po kluczu (id > afterId); wiersze zablokowane do końca transakcji paczki
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Reservation r " +
+            "where r.screeningId = :screeningId and r.status in :statuses and r.id > :afterId order by r.id")
+    List<Reservation> lockChunkAfter(@Param("screeningId") Long screeningId,
+                                     @Param("statuses") Collection<ReservationStatus> statuses,
+                                     @Param("afterId") long afterId,
+                                     Limit limit);
+
+    // Pozycje koszyków na innych seansach - dzielą płatność z rezerwacjami anulowanego seansu
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Reservation r " +
+            "where r.basketId in :basketIds and r.status = :status and r.screeningId <> :screeningId order by r.id")
+    List<Reservation> lockBasketMembersOutsideScreening(@Param("basketIds") Collection<Long> basketIds,
+                                                        @Param("status") ReservationStatus status,
+                                                        @Param("screeningId") Long screeningId);
+
+    // Rezerwacja + kopia seansu + miejsca w jednym zapytaniu (jeden wiersz na miejsce)
+    @Query("select r.id as id, r.customerName as customerName, r.customerEmail as customerEmail, " +
+            "r.reservationTime as reservationTime, r.status as status, r.totalAmount as totalAmount, " +
+            "r.ticketUsed as ticketUsed, r.ticketUsedAt as ticketUsedAt, r.screeningId as screeningId, " +
+            "s.id as screeningInfoId, s.startTime as startTime, s.basePrice as basePrice, s.movieId as movieId, " +
+            "s.movieTitle as movieTitle, s.hallId as hallId, s.hallNumber as hallNumber, " +
+            "seat.seatId as seatId, seat.rowNumber as rowNumber, seat.seatNumber as seatNumber " +
+            "from Reservation r " +
+            "left join ScreeningInfo s on s.id = r.screeningId " +
+            "left join r.seats seat " +
+            "where r.id = :id order by seat.id")
+    List<ReservationDetailsRow> findDetailsById(@Param("id") Long id);
+
+    List<Reservation> findAllByBasketId(Long basketId);
+
+    @Query("select r.id as id, r.reservationTime as reservationTime from Reservation r where r.status = :status")
+    List<ReservationDeadlineView> findDeadlinesByStatus(@Param("status") ReservationStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Reservation r where r.id in :ids and r.status = :status")
+    List<Reservation> lockAllByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+
+    interface ReservationDeadlineView {
+        Long getId();
+        LocalDateTime getReservationTime();
+    }
+
+    interface ReservationDetailsRow {
+        Long getId();
+        String getCustomerName();
+        String getCustomerEmail();
+        LocalDateTime getReservationTime();
+        ReservationStatus getStatus();
+        BigDecimal getTotalAmount();
+        Boolean getTicketUsed();
+        LocalDateTime getTicketUsedAt();
+        Long getScreeningId();
+        Long getScreeningInfoId();
+        LocalDateTime getStartTime();
+        BigDecimal getBasePrice();
+        Long getMovieId();
+        String getMovieTitle();
+        Long getHallId();
+        Integer getHallNumber();
+        Long getSeatId();
+        Integer getRowNumber();
+        Integer getSeatNumber();
+    }
+}
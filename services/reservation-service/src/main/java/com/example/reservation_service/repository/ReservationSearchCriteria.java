@@ -0,0 +1,17 @@
+package com.example.reservation_service.repository;
+
+import org.example.commons.enums.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Filtry wyszukiwania rezerwacji; {@code null} (lub pusty zbiór statusów) oznacza brak filtra.
+ * Przedział czasu rezerwacji jest lewostronnie domknięty: {@code [from, to)}.
+ */
+public record ReservationSearchCriteria(Long screeningId,
+                                        Set<ReservationStatus> statuses,
+                                        String customerEmail,
+                                        LocalDateTime from,
+                                        LocalDateTime to) {
+}
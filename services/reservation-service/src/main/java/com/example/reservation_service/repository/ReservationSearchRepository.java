@@ -0,0 +1,14 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.dto.ReservationSummaryDTO;
+
+import java.util.List;
+
+public interface ReservationSearchRepository {
+
+    /**
+     * Strona wyników w kolejności rosnącego ID, zaczynając za {@code afterId} (stronicowanie kluczem).
+     * Zwraca projekcję bez miejsc, więc nie ładuje encji ani ich kolekcji.
+     */
+    List<ReservationSummaryDTO> search(ReservationSearchCriteria criteria, Long afterId, int limit);
+}
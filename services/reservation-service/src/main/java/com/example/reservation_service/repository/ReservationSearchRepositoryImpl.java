@@ -0,0 +1,67 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.dto.ReservationSummaryDTO;
+import com.example.reservation_service.entity.Reservation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predykaty są dokładane tylko dla podanych filtrów, aby planista mógł użyć indeksów złożonych
+ * (screening_id, id) i (customer_email, id) zamiast warunków typu {@code :param is null or ...}.
+ */
+public class ReservationSearchRepositoryImpl implements ReservationSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ReservationSummaryDTO> search(ReservationSearchCriteria criteria, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ReservationSummaryDTO> query = cb.createQuery(ReservationSummaryDTO.class);
+        Root<Reservation> reservation = query.from(Reservation.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.screeningId() != null) {
+            predicates.add(cb.equal(reservation.get("screeningId"), criteria.screeningId()));
+        }
+        if (criteria.statuses() != null && !criteria.statuses().isEmpty()) {
+            predicates.add(reservation.get("status").in(criteria.statuses()));
+        }
+        if (criteria.customerEmail() != null) {
+            predicates.add(cb.equal(reservation.get("customerEmail"), criteria.customerEmail()));
+        }
+        if (criteria.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(reservation.get("reservationTime"), criteria.from()));
+        }
+        if (criteria.to() != null) {
+            predicates.add(cb.lessThan(reservation.get("reservationTime"), criteria.to()));
+        }
+        if (afterId != null) {
+            predicates.add(cb.greaterThan(reservation.get("id"), afterId));
+        }
+
+        query.select(cb.construct(ReservationSummaryDTO.class,
+                        reservation.get("id"),
+                        reservation.get("screeningId"),
+                        reservation.get("customerName"),
+                        reservation.get("customerEmail"),
+                        reservation.get("reservationTime"),
+                        reservation.get("status"),
+                        reservation.get("totalAmount"),
+                        reservation.get("ticketUsed"),
+                        reservation.get("basketId")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(reservation.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -3,7 +3,10 @@ package com.example.reservation_service.repository;
 import com.example.reservation_service.entity.ReservedSeat;
 import org.example.commons.enums.ReservationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReservedSeatRepository extends JpaRepository<ReservedSeat, Long> {
@@ -11,4 +14,19 @@ public interface ReservedSeatRepository extends JpaRepository<ReservedSeat, Long
     void deleteAllByReservationId(Long reservationId);
     List<ReservedSeat> findByReservation_ScreeningId(Long screeningId);
     boolean existsBySeatIdAndReservation_ScreeningIdAndReservation_StatusNot(Long seatId, Long screeningId, ReservationStatus status);
-}
\ No newline at end of file
+
+    @Query("select r.screeningId as screeningId, rs.rowNumber as rowNumber, rs.seatNumber as seatNumber " +
+            "from ReservedSeat rs join rs.reservation r where r.status in :statuses")
+    List<ActiveSeatView> findActiveSeats(@Param("statuses") Collection<ReservationStatus> statuses);
+
+    @Query("select r.screeningId as screeningId, rs.rowNumber as rowNumber, rs.seatNumber as seatNumber " +
+            "from ReservedSeat rs join rs.reservation r where r.screeningId = :screeningId and r.status in :statuses")
+    List<ActiveSeatView> findActiveSeatsByScreeningId(@Param("screeningId") Long screeningId,
+                                                      @Param("statuses") Collection<ReservationStatus> statuses);
+
+    interface ActiveSeatView {
+        Long getScreeningId();
+        int getRowNumber();
+        int getSeatNumber();
+    }
+}
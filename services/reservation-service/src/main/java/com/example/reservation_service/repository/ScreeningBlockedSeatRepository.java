@@ -0,0 +1,18 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.ScreeningBlockedSeat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ScreeningBlockedSeatRepository extends JpaRepository<ScreeningBlockedSeat, ScreeningBlockedSeat.Key> {
+    @Query("select b.seatId from ScreeningBlockedSeat b where b.screeningId = :screeningId")
+    List<Long> findSeatIdsByScreeningId(@Param("screeningId") Long screeningId);
+
+    @Modifying
+    @Query("delete from ScreeningBlockedSeat b where b.screeningId = :screeningId")
+    int deleteByScreeningId(@Param("screeningId") Long screeningId);
+}
@@ -0,0 +1,23 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.ScreeningCancellationJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ScreeningCancellationJobRepository extends JpaRepository<ScreeningCancellationJob, Long> {
+    List<ScreeningCancellationJob> findAllByStatus(ScreeningCancellationJob.Status status);
+
+    // FOR UPDATE NOWAIT: zadanie przetwarzane przez inną instancję kończy się od razu wyjątkiem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("select j from ScreeningCancellationJob j where j.screeningId = :screeningId")
+    Optional<ScreeningCancellationJob> lockById(@Param("screeningId") Long screeningId);
+}
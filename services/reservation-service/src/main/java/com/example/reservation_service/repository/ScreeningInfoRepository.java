@@ -2,11 +2,22 @@ package com.example.reservation_service.repository;
 
 import com.example.reservation_service.entity.ScreeningInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ScreeningInfoRepository extends JpaRepository<ScreeningInfo, Long> {
     List<ScreeningInfo> findByMovieIdAndIsActiveTrue(Long movieId);
+
+    @Query("select s from ScreeningInfo s where s.isActive = true and s.startTime >= :from and s.startTime < :to")
+    List<ScreeningInfo> findActiveStartingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select s from ScreeningInfo s where s.isActive = true and s.movieId = :movieId and s.startTime >= :from and s.startTime < :to")
+    List<ScreeningInfo> findActiveByMovieStartingBetween(@Param("movieId") Long movieId,
+                                                         @Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,71 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.SeatClaim;
+import org.example.commons.enums.ReservationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SeatClaimRepository extends JpaRepository<SeatClaim, SeatClaim.Key> {
+
+    @Modifying
+    @Query("delete from SeatClaim c where c.reservationId in :reservationIds")
+    int deleteByReservationIdIn(@Param("reservationIds") Collection<Long> reservationIds);
+
+    @Modifying
+    @Query("delete from SeatClaim c where c.screeningId = :screeningId")
+    int deleteByScreeningId(@Param("screeningId") Long screeningId);
+
+    List<SeatClaim> findAllByHoldId(String holdId);
+
+    @Query("select c.holdId as holdId, c.screeningId as screeningId, min(c.expiresAt) as expiresAt from SeatClaim c " +
+            "where c.holdId is not null and c.reservationId is null group by c.holdId, c.screeningId")
+    List<HoldView> findActiveHolds();
+
+    @Query("select c.screeningId as screeningId, c.seatId as seatId from SeatClaim c " +
+            "where c.holdId is not null and c.reservationId is null and c.expiresAt > :now")
+    List<HeldSeatView> findHeldSeats(@Param("now") LocalDateTime now);
+
+    @Query("select c.seatId from SeatClaim c where c.screeningId = :screeningId " +
+            "and c.holdId is not null and c.reservationId is null and c.expiresAt > :now")
+    List<Long> findHeldSeatIds(@Param("screeningId") Long screeningId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from SeatClaim c where c.holdId = :holdId and c.reservationId is null")
+    int deleteHold(@Param("holdId") String holdId);
+
+    @Modifying
+    @Query("update SeatClaim c set c.reservationId = :reservationId, c.holdId = null, c.expiresAt = null " +
+            "where c.holdId = :holdId and c.reservationId is null and c.expiresAt > :now")
+    int assignHoldToReservation(@Param("holdId") String holdId,
+                                @Param("reservationId") Long reservationId,
+                                @Param("now") LocalDateTime now);
+
+    // Starsze dane mogą mieć to samo miejsce w kilku aktywnych rezerwacjach (lub dwa razy w jednej) -
+    // zajęcie dostaje tylko najwcześniejszy wpis, inaczej INSERT narusza klucz (screening_id, seat_id)
+    @Modifying
+    @Query("insert into SeatClaim (screeningId, seatId, reservationId, claimedAt) " +
+            "select r.screeningId, rs.seatId, r.id, r.reservationTime from ReservedSeat rs join rs.reservation r " +
+            "where r.status in :statuses " +
+            "and not exists (select 1 from SeatClaim c where c.screeningId = r.screeningId and c.seatId = rs.seatId) " +
+            "and not exists (select 1 from ReservedSeat earlier join earlier.reservation er " +
+            "where er.status in :statuses and er.screeningId = r.screeningId and earlier.seatId = rs.seatId " +
+            "and (er.id < r.id or (er.id = r.id and earlier.id < rs.id)))")
+    int backfillFromReservedSeats(@Param("statuses") Collection<ReservationStatus> statuses);
+
+    interface HeldSeatView {
+        Long getScreeningId();
+        Long getSeatId();
+    }
+
+    interface HoldView {
+        String getHoldId();
+        Long getScreeningId();
+        LocalDateTime getExpiresAt();
+    }
+}
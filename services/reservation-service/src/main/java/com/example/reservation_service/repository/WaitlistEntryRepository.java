@@ -0,0 +1,49 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    // FOR UPDATE NOWAIT: początek kolejki obsługiwany przez inną instancję kończy się od razu wyjątkiem
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    Optional<WaitlistEntry> findFirstByScreeningIdAndStatusOrderByIdAsc(Long screeningId, WaitlistEntry.Status status);
+
+    boolean existsByScreeningIdAndCustomerEmailAndStatusIn(Long screeningId, String customerEmail, Collection<WaitlistEntry.Status> statuses);
+
+    long countByScreeningIdAndStatusAndIdLessThan(Long screeningId, WaitlistEntry.Status status, Long id);
+
+    @Query("select distinct e.screeningId from WaitlistEntry e where e.status = :status")
+    List<Long> findScreeningIdsByStatus(@Param("status") WaitlistEntry.Status status);
+
+    @Modifying
+    @Query("update WaitlistEntry e set e.status = :newStatus where e.holdId = :holdId and e.status = :status")
+    int updateStatusByHoldId(@Param("holdId") String holdId,
+                             @Param("status") WaitlistEntry.Status status,
+                             @Param("newStatus") WaitlistEntry.Status newStatus);
+
+    @Modifying
+    @Query("update WaitlistEntry e set e.status = :newStatus where e.screeningId = :screeningId and e.status = :status and e.offerExpiresAt <= :now")
+    int updateStatusOfLapsedOffers(@Param("screeningId") Long screeningId,
+                                   @Param("status") WaitlistEntry.Status status,
+                                   @Param("newStatus") WaitlistEntry.Status newStatus,
+                                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update WaitlistEntry e set e.status = :newStatus where e.screeningId = :screeningId and e.status = :status")
+    int updateStatusByScreeningId(@Param("screeningId") Long screeningId,
+                                  @Param("status") WaitlistEntry.Status status,
+                                  @Param("newStatus") WaitlistEntry.Status newStatus);
+}
@@ -0,0 +1,55 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.expiry.ReservationExpiryIndex;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Wspólna ścieżka zwalniania rezerwacji - pojedyncze anulowanie, wygaśnięcie i zbiorcze anulowanie seansu.
+ * Zwolnienie miejsc w indeksie publikuje po zatwierdzeniu {@code SeatStateChangedEvent} (RELEASED), na który
+ * czeka kolejka oczekujących.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationReleaseService {
+    private final ReservationRepository reservationRepository;
+    private final SeatInventory seatInventory;
+    private final SeatClaimService seatClaimService;
+    private final ReservationExpiryIndex reservationExpiryIndex;
+
+    /**
+     * Zwalnia miejsca rezerwacji w indeksie i w seat_claims (jeden DELETE na całą partię) oraz usuwa je
+     * z rezerwacji. Status ustawia wywołujący.
+     */
+    public void release(Collection<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            List<SeatPosition> seats = reservation.getSeats().stream()
+                    .map(seat -> new SeatPosition(seat.getSeatId(), seat.getRowNumber(), seat.getSeatNumber()))
+                    .collect(Collectors.toList());
+            seatInventory.release(reservation.getScreeningId(), seats);
+            reservation.getSeats().clear();
+        }
+        Set<Long> reservationIds = reservations.stream().map(Reservation::getId).collect(Collectors.toSet());
+        seatClaimService.releaseReservations(reservationIds);
+        reservationExpiryIndex.forget(reservationIds);
+    }
+
+    /**
+     * Rezerwacja razem z pozostałymi pozycjami jej koszyka (wspólna płatność).
+     */
+    public List<Reservation> withBasket(Reservation reservation) {
+        if (reservation.getBasketId() == null) {
+            return List.of(reservation);
+        }
+        return reservationRepository.findAllByBasketId(reservation.getBasketId());
+    }
+}
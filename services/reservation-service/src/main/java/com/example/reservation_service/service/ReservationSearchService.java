@@ -0,0 +1,75 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.dto.ReservationPageDTO;
+import com.example.reservation_service.dto.ReservationSummaryDTO;
+import com.example.reservation_service.repository.ReservationRepository;
+import com.example.reservation_service.repository.ReservationSearchCriteria;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Wyszukiwanie rezerwacji dla kasy ze stronicowaniem kluczem (po ID). Eksport czyta kolejne strony
+ * i zapisuje je od razu do odpowiedzi, więc w pamięci jest najwyżej jedna strona, a każda strona
+ * to krótkie, osobne zapytanie zamiast kursora trzymającego połączenie przez cały eksport.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationSearchService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReservationSearchService.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${reservation.search.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${reservation.search.export-chunk-size:1000}")
+    private int exportChunkSize;
+
+    public ReservationPageDTO search(ReservationSearchCriteria criteria, Long afterId, int limit) {
+        if (limit > maxPageSize) {
+            throw new IllegalArgumentException("Page size cannot exceed " + maxPageSize + ".");
+        }
+        // Jeden dodatkowy wiersz mówi, czy istnieje kolejna strona - bez zapytania zliczającego
+        List<ReservationSummaryDTO> rows = reservationRepository.search(criteria, afterId, limit + 1);
+        if (rows.size() <= limit) {
+            return new ReservationPageDTO(rows, null);
+        }
+        List<ReservationSummaryDTO> page = rows.subList(0, limit);
+        return new ReservationPageDTO(page, page.get(limit - 1).getId());
+    }
+
+    /**
+     * Zapisuje wszystkie pasujące rezerwacje jako tablicę JSON.
+     */
+    public void export(ReservationSearchCriteria criteria, OutputStream output) throws IOException {
+        long exported = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            Long afterId = null;
+            List<ReservationSummaryDTO> chunk;
+            do {
+                chunk = reservationRepository.search(criteria, afterId, exportChunkSize);
+                for (ReservationSummaryDTO row : chunk) {
+                    objectMapper.writeValue(generator, row);
+                }
+                exported += chunk.size();
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+                generator.flush();
+            } while (chunk.size() == exportChunkSize);
+            generator.writeEndArray();
+        }
+        LOG.info("Exported {} reservations for criteria {}.", exported, criteria);
+    }
+}
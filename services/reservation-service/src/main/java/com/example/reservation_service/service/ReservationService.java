@@ -2,15 +2,29 @@ package com.example.reservation_service.service;
 
 import com.example.reservation_service.client.MovieServiceClient;
 import com.example.reservation_service.client.TicketServiceClient;
+import com.example.reservation_service.dto.BasketItemDTO;
+import com.example.reservation_service.dto.BasketReservationDTO;
+import com.example.reservation_service.dto.CreateBasketReservationDTO;
+import com.example.reservation_service.dto.ScreeningOccupancyDTO;
+import com.example.reservation_service.dto.SeatChangeDTO;
+import com.example.reservation_service.dto.SeatMapDTO;
 import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.entity.ReservationBasket;
 import com.example.reservation_service.entity.ReservedSeat;
 import com.example.reservation_service.entity.ScreeningInfo;
-import com.example.reservation_service.entity.ScreeningSeatInfo;
+import com.example.reservation_service.expiry.ReservationExpiryIndex;
+import com.example.reservation_service.inventory.ScreeningSeatMap;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.inventory.SeatState;
 import com.example.reservation_service.kafka.producer.MessageProducer;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.lock.ScreeningLockManager;
+import com.example.reservation_service.repository.ReservationBasketRepository;
 import com.example.reservation_service.repository.ReservationRepository;
 import com.example.reservation_service.repository.ReservedSeatRepository;
 import com.example.reservation_service.repository.ScreeningInfoRepository;
-import com.example.reservation_service.repository.ScreeningSeatInfoRepository;
 import feign.FeignException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -31,11 +45,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,89 +63,261 @@ import java.util.stream.Collectors;
 public class ReservationService {
     private static final Logger LOG = LoggerFactory.getLogger(ReservationService.class);
     private final ReservationRepository reservationRepository;
+    private final ReservationBasketRepository reservationBasketRepository;
     private final ScreeningInfoRepository screeningInfoRepository;
-    private final ScreeningSeatInfoRepository screeningSeatInfoRepository;
+    private final HallLayoutService hallLayoutService;
     private final ReservedSeatRepository reservedSeatRepository;
     private final MovieServiceClient movieServiceClient;
     private final TicketServiceClient ticketServiceClient;
     private final MessageProducer messageProducer;
+    private final SeatInventory seatInventory;
+    private final SeatClaimService seatClaimService;
+    private final ScreeningLockManager screeningLockManager;
+    private final SeatHoldService seatHoldService;
+    private final ScreeningCancellationService screeningCancellationService;
+    private final ReservationExpiryIndex reservationExpiryIndex;
+    private final ReservationReleaseService reservationReleaseService;
+    private final WaitlistService waitlistService;
 
     public List<SeatDTO> getReservedSeatsByScreeningId(Long screeningId) {
         List<ReservedSeat> reservedSeats = reservedSeatRepository.findByReservation_ScreeningId(screeningId);
         return reservedSeats.stream().map(this::mapToSeatDTO).collect(Collectors.toList());
     }
 
-    private List<SeatAvailabilityDTO> checkSeatsAvailability(Long screeningId, List<Long> seatIds) {
-        return seatIds.stream()
-                .map(seatId -> {
-                    boolean isAvailable = !reservedSeatRepository.existsBySeatIdAndReservation_ScreeningIdAndReservation_StatusNot(
-                            seatId, screeningId, ReservationStatus.CANCELLED);
-                    return new SeatAvailabilityDTO(seatId, isAvailable);
-                })
+    public SeatMapDTO getSeatMap(Long screeningId, String sinceEpoch, Long sinceVersion) {
+        ScreeningSeatMap seatMap = seatInventory.findSeatMap(screeningId)
+                .orElseThrow(() -> new ResourceNotFoundException("Active screening with ID " + screeningId + " not found or is inactive."));
+
+        if (sinceVersion != null) {
+            List<ScreeningSeatMap.SeatChange> changes = seatMap.changesSince(sinceEpoch, sinceVersion);
+            if (changes != null) {
+                long version = changes.isEmpty() ? sinceVersion : changes.get(changes.size() - 1).version();
+                List<SeatChangeDTO> changeDTOs = changes.stream()
+                        .map(change -> new SeatChangeDTO(change.rowNumber(), change.seatNumber(), change.taken()))
+                        .collect(Collectors.toList());
+                return new SeatMapDTO(screeningId, seatMap.getEpoch(), version, seatMap.getRows(), seatMap.getSeatsPerRow(), null, null, true, changeDTOs);
+            }
+        }
+        ScreeningSeatMap.Snapshot snapshot = seatMap.snapshot();
+        return new SeatMapDTO(screeningId, seatMap.getEpoch(), snapshot.version(), seatMap.getRows(), seatMap.getSeatsPerRow(),
+                SeatMapDTO.ENCODING_BITSET_BASE64, snapshot.bitmap(), false, null);
+    }
+
+    /**
+     * Zajętość wielu seansów naraz, z liczników utrzymywanych przyrostowo w mapach miejsc.
+     * Seanse wskazane przez ID nie kosztują zapytania, jeśli ich mapa jest już w pamięci; pozostałe są
+     * wczytywane jednym zapytaniem. Nieaktywne i nieistniejące seanse są pomijane.
+     */
+    public List<ScreeningOccupancyDTO> getOccupancy(List<Long> screeningIds, Long movieId, LocalDate date) {
+        List<ScreeningInfo> screenings = new ArrayList<>();
+        List<ScreeningOccupancyDTO> result = new ArrayList<>();
+        if (screeningIds != null && !screeningIds.isEmpty()) {
+            Set<Long> requested = new LinkedHashSet<>(screeningIds);
+            Map<Long, ScreeningSeatMap> seatMaps = new HashMap<>();
+            List<Long> missing = new ArrayList<>();
+            for (Long screeningId : requested) {
+                seatInventory.findLoadedSeatMap(screeningId)
+                        .ifPresentOrElse(seatMap -> seatMaps.put(screeningId, seatMap), () -> missing.add(screeningId));
+            }
+            if (!missing.isEmpty()) {
+                screeningInfoRepository.findAllById(missing).stream()
+                        .filter(ScreeningInfo::isActive)
+                        .forEach(screening -> seatMaps.put(screening.getId(), seatInventory.getSeatMap(screening)));
+            }
+            for (Long screeningId : requested) {
+                ScreeningSeatMap seatMap = seatMaps.get(screeningId);
+                if (seatMap != null) {
+                    result.add(toOccupancyDTO(seatMap, null, null));
+                }
+            }
+        } else if (date != null) {
+            LocalDateTime from = date.atStartOfDay();
+            screenings = movieId != null
+                    ? screeningInfoRepository.findActiveByMovieStartingBetween(movieId, from, from.plusDays(1))
+                    : screeningInfoRepository.findActiveStartingBetween(from, from.plusDays(1));
+        } else if (movieId != null) {
+            screenings = screeningInfoRepository.findByMovieIdAndIsActiveTrue(movieId);
+        } else {
+            throw new IllegalArgumentException("Provide screening IDs, a movie ID or a date.");
+        }
+        screenings.stream()
+                .sorted(Comparator.comparing(ScreeningInfo::getStartTime))
+                .forEach(screening -> result.add(toOccupancyDTO(seatInventory.getSeatMap(screening), screening.getMovieId(), screening.getStartTime())));
+        return result;
+    }
+
+    private ScreeningOccupancyDTO toOccupancyDTO(ScreeningSeatMap seatMap, Long movieId, LocalDateTime startTime) {
+        return new ScreeningOccupancyDTO(seatMap.getScreeningId(), movieId, startTime,
+                seatMap.getSellableCount(), seatMap.getAvailableCount(), seatMap.getVersion());
+    }
+
+    private List<SeatAvailabilityDTO> checkSeatsAvailability(ScreeningInfo screeningInfo, SeatLayout layout) {
+        return layout.allSeats().stream()
+                .map(seat -> new SeatAvailabilityDTO(seat.seatId(), !seatInventory.isTaken(screeningInfo, seat)))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Zastępuje listę miejsc wyłączonych ze sprzedaży dla seansu. Istniejące rezerwacje tych miejsc pozostają ważne.
+     */
+    @Transactional
+    public List<Long> updateBlockedSeats(Long screeningId, List<Long> seatIds) {
+        screeningLockManager.lock(screeningId);
+        ScreeningInfo screeningInfo = screeningInfoRepository.findById(screeningId)
+                .filter(ScreeningInfo::isActive)
+                .orElseThrow(() -> new ResourceNotFoundException("Active screening with ID " + screeningId + " not found or is inactive."));
+
+        SeatLayout layout = hallLayoutService.getLayout(screeningInfo);
+        List<Long> missingSeatIds = seatIds.stream().filter(id -> layout.position(id) == null).collect(Collectors.toList());
+        if (!missingSeatIds.isEmpty()) {
+            throw new ResourceNotFoundException("Some seats do not exist for this screening. Missing original seat IDs: " + missingSeatIds);
+        }
+
+        hallLayoutService.replaceBlockedSeats(screeningId, seatIds);
+        // Mapa miejsc jest odbudowywana z nową listą blokad przy następnym użyciu
+        seatInventory.evict(screeningId);
+        LOG.info("Screening ID: {} now has {} blocked seats.", screeningId, seatIds.size());
+        return seatIds;
+    }
+
     @Transactional
     public ReservationDTO createReservation(CreateReservationDTO request) {
         LOG.info("Attempting to create reservation for screening (info) ID: {} by customer: {}", request.getScreeningId(), request.getCustomerEmail());
+        // Zapisy dla tego samego seansu są serializowane do końca transakcji
+        screeningLockManager.lock(request.getScreeningId());
 
         ScreeningInfo screeningInfo = screeningInfoRepository.findById(request.getScreeningId()) // Użyj poprawnej nazwy
                 .filter(ScreeningInfo::isActive)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Active screening with ID " + request.getScreeningId() + " not found or is inactive."));
 
-        // Pobierz kopie miejsc dla tego seansu, które odpowiadają żądanym originalSeatId
-        List<ScreeningSeatInfo> requestedSeatInfos = screeningSeatInfoRepository // Użyj poprawnej nazwy
-                .findAllByScreeningInfoIdAndOriginalSeatIdIn(screeningInfo.getId(), request.getSeatIds()); // Użyj poprawnej nazwy
+        ReservedItem item = reserve(screeningInfo, request.getCustomerName(), request.getCustomerEmail(),
+                request.getSeatIds(), request.getHoldId(), LocalDateTime.now(), null);
+        LOG.info("Reservation created successfully with ID: {}", item.reservation().getId());
+
+        ReservationDTO eventPayload = mapToReservationDTO(item.reservation(), mapScreeningInfoForEvent(screeningInfo), item.seats());
+        messageProducer.sendReservation(eventPayload);
+
+        return eventPayload;
+    }
 
-        if (requestedSeatInfos.size() != request.getSeatIds().size()) {
-            List<Long> foundOriginalSeatIds = requestedSeatInfos.stream().map(ScreeningSeatInfo::getOriginalSeatId).collect(Collectors.toList()); // Użyj poprawnej nazwy
-            List<Long> missingSeatIds = request.getSeatIds().stream().filter(id -> !foundOriginalSeatIds.contains(id)).collect(Collectors.toList());
+    /**
+     * Rezerwuje miejsca na kilku seansach w jednej transakcji. Konflikt w dowolnej pozycji wycofuje całość,
+     * a miejsca zajęte w indeksie dla wcześniejszych pozycji są wtedy zwalniane. Do payment-service trafia
+     * jedno żądanie płatności na łączną kwotę, pod ID pierwszej rezerwacji koszyka, z pozycjami per seans.
+     */
+    @Transactional
+    public BasketReservationDTO createBasket(CreateBasketReservationDTO request) {
+        List<BasketItemDTO> items = request.getItems().stream()
+                .sorted(Comparator.comparing(BasketItemDTO::getScreeningId))
+                .collect(Collectors.toList());
+        Set<Long> screeningIds = items.stream().map(BasketItemDTO::getScreeningId).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (screeningIds.size() != items.size()) {
+            throw new IllegalArgumentException("Each screening can appear in a basket only once.");
+        }
+        LOG.info("Attempting to create basket reservation for screenings {} by customer: {}", screeningIds, request.getCustomerEmail());
+
+        // lockAll porządkuje faktyczne blokady (nie ID seansów), aby nakładające się koszyki nie zakleszczyły się
+        screeningLockManager.lockAll(screeningIds);
+        Map<Long, ScreeningInfo> screenings = screeningInfoRepository.findAllById(screeningIds).stream()
+                .filter(ScreeningInfo::isActive)
+                .collect(Collectors.toMap(ScreeningInfo::getId, screening -> screening));
+        List<Long> missingScreeningIds = screeningIds.stream().filter(id -> !screenings.containsKey(id)).collect(Collectors.toList());
+        if (!missingScreeningIds.isEmpty()) {
+            throw new ResourceNotFoundException("Active screenings with IDs " + missingScreeningIds + " not found or are inactive.");
+        }
+
+        LocalDateTime reservationTime = LocalDateTime.now();
+        // Koszyk zapisany przed pozycjami, aby rezerwacje powstały od razu z basketId
+        ReservationBasket basket = reservationBasketRepository.save(ReservationBasket.builder()
+                .customerEmail(request.getCustomerEmail())
+                .createdAt(reservationTime)
+                .build());
+        List<ReservedItem> reservedItems = new ArrayList<>(items.size());
+        for (BasketItemDTO item : items) {
+            reservedItems.add(reserve(screenings.get(item.getScreeningId()), request.getCustomerName(), request.getCustomerEmail(),
+                    item.getSeatIds(), item.getHoldId(), reservationTime, basket.getId()));
+        }
+
+        BigDecimal totalAmount = reservedItems.stream()
+                .map(item -> item.reservation().getTotalAmount())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Reservation paymentReservation = reservedItems.get(0).reservation();
+        basket.setTotalAmount(totalAmount);
+        basket.setPaymentReservationId(paymentReservation.getId());
+        List<ReservationDTO> reservations = new ArrayList<>(reservedItems.size());
+        for (ReservedItem item : reservedItems) {
+            reservations.add(mapToReservationDTO(item.reservation(), mapScreeningInfoForEvent(item.screening()), item.seats()));
+        }
+        LOG.info("Basket reservation {} created with {} reservations.", basket.getId(), reservedItems.size());
+
+        // Jedna płatność na łączną kwotę; miejsca pogrupowane po seansach w basketItems
+        ReservationDTO paymentRequest = mapToReservationDTO(paymentReservation,
+                mapScreeningInfoForEvent(reservedItems.get(0).screening()), reservedItems.get(0).seats());
+        paymentRequest.setTotalAmount(totalAmount);
+        paymentRequest.setBasketItems(reservations);
+        messageProducer.sendReservation(paymentRequest);
+
+        return new BasketReservationDTO(basket.getId(), paymentReservation.getId(), totalAmount, reservations);
+    }
+
+    private ReservedItem reserve(ScreeningInfo screeningInfo, String customerName, String customerEmail,
+                                 List<Long> seatIds, String holdId, LocalDateTime reservationTime, Long basketId) {
+        // Rząd i numer miejsca wynikają z układu sali - bez zapytań o poszczególne miejsca
+        SeatLayout layout = hallLayoutService.getLayout(screeningInfo);
+        List<SeatPosition> requestedSeats = layout.positions(seatIds);
+
+        if (requestedSeats.size() != seatIds.size()) {
+            List<Long> missingSeatIds = seatIds.stream().filter(id -> layout.position(id) == null).collect(Collectors.toList());
             LOG.warn("Could not find all requested seat infos for screening {}. Missing originalSeatIds: {}", screeningInfo.getId(), missingSeatIds);
             throw new ResourceNotFoundException("Some requested seats do not exist for this screening. Missing original seat IDs: " + missingSeatIds);
         }
 
-        for (Long requestedOriginalSeatId : request.getSeatIds()) {
-            if (reservedSeatRepository.existsBySeatIdAndReservation_ScreeningIdAndReservation_StatusNot(
-                    requestedOriginalSeatId,
-                    screeningInfo.getId(),
-                    ReservationStatus.CANCELLED
-                    // Rozważ dodanie ReservationStatus.EXPIRED, jeśli wygasłe rezerwacje zwalniają miejsca
-            )) {
-                LOG.warn("Seat (original ID: {}) for screening ID: {} is already reserved in an active reservation.", requestedOriginalSeatId, screeningInfo.getId());
-                throw new ReservationConflictException("Seat (original ID: " + requestedOriginalSeatId + ") is already reserved.");
+        // Szybkie odrzucenie konfliktu z pamięciowego indeksu; miejsca są zwalniane, jeśli transakcja się nie powiedzie.
+        // Miejsca z blokady tymczasowej (hold) są już zajęte w indeksie.
+        if (holdId == null) {
+            List<SeatPosition> conflicts = seatInventory.tryReserve(screeningInfo, requestedSeats, SeatState.RESERVED);
+            if (!conflicts.isEmpty()) {
+                SeatPosition conflict = conflicts.get(0);
+                LOG.warn("Seat (original ID: {}) for screening ID: {} is already reserved in an active reservation.", conflict.seatId(), screeningInfo.getId());
+                throw new ReservationConflictException("Seat in row " + conflict.rowNumber() + ", number " + conflict.seatNumber()
+                        + " (original ID: " + conflict.seatId() + ") is already reserved.");
             }
         }
 
         Reservation reservation = new Reservation();
         reservation.setScreeningId(screeningInfo.getId());
-        reservation.setCustomerName(request.getCustomerName());
-        reservation.setCustomerEmail(request.getCustomerEmail());
-        reservation.setReservationTime(LocalDateTime.now());
+        reservation.setCustomerName(customerName);
+        reservation.setCustomerEmail(customerEmail);
+        reservation.setReservationTime(reservationTime);
         reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        reservation.setBasketId(basketId);
         BigDecimal pricePerSeat = screeningInfo.getBasePrice();
-        reservation.setTotalAmount(pricePerSeat.multiply(new BigDecimal(request.getSeatIds().size())));
+        reservation.setTotalAmount(pricePerSeat.multiply(new BigDecimal(seatIds.size())));
 
         List<SeatDTO> seatDTOsForEvent = new ArrayList<>();
-        for (ScreeningSeatInfo seatInfo : requestedSeatInfos) { // Użyj poprawnej nazwy
+        for (SeatPosition seat : requestedSeats) {
             ReservedSeat reservedSeatEntity = ReservedSeat.builder()
-                    .seatId(seatInfo.getOriginalSeatId())
-                    .rowNumber(seatInfo.getRowNumber())
-                    .seatNumber(seatInfo.getSeatNumber())
+                    .seatId(seat.seatId())
+                    .rowNumber(seat.rowNumber())
+                    .seatNumber(seat.seatNumber())
                     .reservation(reservation)
                     .build();
             reservation.getSeats().add(reservedSeatEntity);
-            seatDTOsForEvent.add(new SeatDTO(seatInfo.getOriginalSeatId(), seatInfo.getRowNumber(), seatInfo.getSeatNumber()));
+            seatDTOsForEvent.add(new SeatDTO(seat.seatId(), seat.rowNumber(), seat.seatNumber()));
         }
 
         Reservation savedReservation = reservationRepository.save(reservation);
-        LOG.info("Reservation created successfully with ID: {}", savedReservation.getId());
-
-        ScreeningDTO screeningForEvent = mapScreeningInfoForEvent(screeningInfo); // Użyj poprawnej nazwy
-        ReservationDTO eventPayload = mapToReservationDTO(savedReservation, screeningForEvent, seatDTOsForEvent);
-        messageProducer.sendReservation(eventPayload);
-
-        return eventPayload;
+        reservationExpiryIndex.track(savedReservation.getId(), savedReservation.getReservationTime());
+        // Baza pozostaje źródłem prawdy - unikalny klucz seat_claims wykrywa równoległe rezerwacje tych samych miejsc
+        if (holdId != null) {
+            seatHoldService.convertToReservation(holdId, screeningInfo.getId(), seatIds, savedReservation.getId());
+            waitlistService.markAccepted(holdId);
+            seatInventory.changeState(screeningInfo.getId(), requestedSeats, SeatState.RESERVED);
+        } else {
+            seatClaimService.claim(screeningInfo.getId(), savedReservation.getId(), requestedSeats);
+        }
+        return new ReservedItem(savedReservation, screeningInfo, seatDTOsForEvent);
     }
 
     private ScreeningDTO mapScreeningInfoForEvent(ScreeningInfo screeningInfo) {
@@ -135,16 +327,8 @@ public class ReservationService {
         }
 
         MovieDTO movieDTO = new MovieDTO(screeningInfo.getMovieId(), screeningInfo.getMovieTitle());
-        HallDTO hallDTO = new HallDTO(screeningInfo.getHallId(), screeningInfo.getHallNumber(), 0, 0);
-        List<ScreeningSeatInfo> seatInfos = screeningSeatInfoRepository.findAllByScreeningInfoId(screeningInfo.getId());
-
-        List<SeatDTO> seatDTOs = seatInfos.stream()
-                .map(seatInfo -> new SeatDTO(
-                        seatInfo.getOriginalSeatId(), // Używamy originalSeatId
-                        seatInfo.getRowNumber(),
-                        seatInfo.getSeatNumber()
-                ))
-                .collect(Collectors.toList());
+        HallDTO hallDTO = new HallDTO(screeningInfo.getHallId(), screeningInfo.getHallNumber(),
+                screeningInfo.getHallRows(), screeningInfo.getHallSeatsPerRow());
 
         return new ScreeningDTO(
                 screeningInfo.getId(),
@@ -152,38 +336,50 @@ public class ReservationService {
                 screeningInfo.getBasePrice(),
                 movieDTO,
                 hallDTO,
-                null // Przekazujemy zmapowaną listę miejsc
+                null // Zdarzenia nie przenoszą listy miejsc sali
         );
     }
 
     public ReservationDTO getReservation(Long reservationId) {
-        Reservation reservation = reservationRepository.findById(reservationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Reservation with ID " + reservationId + " not found."));
+        // Jedno zapytanie zamiast osobnego odczytu kopii seansu i każdego miejsca
+        List<ReservationRepository.ReservationDetailsRow> rows = reservationRepository.findDetailsById(reservationId);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Reservation with ID " + reservationId + " not found.");
+        }
 
-        ScreeningInfo screeningInfo = screeningInfoRepository.findById(reservation.getScreeningId()) // Użyj poprawnej nazwy
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Screening info (copy) for ID " + reservation.getScreeningId() + " not found."));
-
-        ScreeningDTO screeningForResponse = mapScreeningInfoForEvent(screeningInfo); // Użyj poprawnej nazwy
-
-        List<SeatDTO> seats = reservation.getSeats().stream()
-                .map(reservedSeat -> {
-                    ScreeningSeatInfo seatInfo = screeningSeatInfoRepository // Użyj poprawnej nazwy
-                            .findByScreeningInfoIdAndOriginalSeatId(screeningInfo.getId(), reservedSeat.getSeatId()) // Użyj poprawnej nazwy
-                            .orElseGet(() -> {
-                                LOG.warn("ScreeningSeatInfo not found for screening {} and originalSeatId {}. Using data from ReservedSeat.",
-                                        screeningInfo.getId(), reservedSeat.getSeatId());
-                                return ScreeningSeatInfo.builder() // Użyj poprawnej nazwy
-                                        .originalSeatId(reservedSeat.getSeatId())
-                                        .rowNumber(reservedSeat.getRowNumber())
-                                        .seatNumber(reservedSeat.getSeatNumber())
-                                        .build();
-                            });
-                    return new SeatDTO(seatInfo.getOriginalSeatId(), seatInfo.getRowNumber(), seatInfo.getSeatNumber());
-                })
+        ReservationRepository.ReservationDetailsRow first = rows.get(0);
+        if (first.getScreeningInfoId() == null) {
+            throw new ResourceNotFoundException("Screening info (copy) for ID " + first.getScreeningId() + " not found.");
+        }
+
+        ScreeningDTO screeningForResponse = new ScreeningDTO(
+                first.getScreeningInfoId(),
+                first.getStartTime(),
+                first.getBasePrice(),
+                new MovieDTO(first.getMovieId(), first.getMovieTitle()),
+                new HallDTO(first.getHallId(), first.getHallNumber(), 0, 0),
+                null
+        );
+
+        List<SeatDTO> seats = rows.stream()
+                .filter(row -> row.getSeatId() != null)
+                .map(row -> new SeatDTO(row.getSeatId(), row.getRowNumber(), row.getSeatNumber()))
                 .collect(Collectors.toList());
 
-        return mapToReservationDTO(reservation, screeningForResponse, seats);
+        return new ReservationDTO(
+                first.getId(),
+                screeningForResponse,
+                first.getCustomerName(),
+                first.getCustomerEmail(),
+                first.getReservationTime(),
+                first.getStatus(),
+                first.getTotalAmount(),
+                Boolean.TRUE.equals(first.getTicketUsed()),
+                first.getTicketUsedAt(),
+                seats,
+                first.getBasketId(),
+                null
+        );
     }
 
     @Transactional
@@ -192,6 +388,13 @@ public class ReservationService {
         Reservation reservation = reservationRepository.findById(paymentStatusDTO.getReservationId())
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation with ID " + paymentStatusDTO.getReservationId() + " not found for status update."));
 
+        // Płatność koszyka obejmuje wszystkie jego rezerwacje
+        for (Reservation member : withBasket(reservation)) {
+            applyPaymentStatus(member, paymentStatusDTO);
+        }
+    }
+
+    private void applyPaymentStatus(Reservation reservation, PaymentStatusDTO paymentStatusDTO) {
         if (reservation.getStatus() == ReservationStatus.CONFIRMED && "completed".equals(paymentStatusDTO.getStatus())) {
             LOG.warn("Reservation {} is already confirmed. Ignoring duplicate 'completed' payment status.", reservation.getId());
             return;
@@ -208,11 +411,11 @@ public class ReservationService {
             ticketGenerationRequest(reservation);
         } else if (PaymentStatus.EXPIRED == paymentStatusDTO.getStatus()) {
             LOG.info("Payment for reservation ID: {} expired. Cancelling reservation.", reservation.getId());
-            reservation.getSeats().clear();
+            releaseSeats(reservation);
             reservation.setStatus(ReservationStatus.EXPIRED);
         } else {
             LOG.warn("Payment for reservation ID: {} was not completed (status: {}). Cancelling reservation.", reservation.getId(), paymentStatusDTO.getStatus());
-            reservation.getSeats().clear();
+            releaseSeats(reservation);
             reservation.setStatus(ReservationStatus.CANCELLED);
 
             ReservationCancelledEvent event = mapReservationCancelledEvent(reservation, "PAYMENT_ERROR");
@@ -222,6 +425,43 @@ public class ReservationService {
         reservationRepository.save(reservation);
     }
 
+    /**
+     * Wygasza rezerwacje, które nadal czekają na płatność; pozostałe identyfikatory są pomijane.
+     *
+     * @return liczba wygaszonych rezerwacji
+     */
+    @Transactional
+    public int expireReservations(List<Long> reservationIds) {
+        List<Reservation> reservations = reservationRepository.lockAllByIdInAndStatus(reservationIds, ReservationStatus.PENDING_PAYMENT);
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        Map<Long, ScreeningInfo> screenings = screeningInfoRepository.findAllById(reservations.stream()
+                        .map(Reservation::getScreeningId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(ScreeningInfo::getId, screening -> screening));
+
+        reservationReleaseService.release(reservations);
+        List<ReservationCancelledEvent> events = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+            ScreeningInfo screening = screenings.get(reservation.getScreeningId());
+            events.add(ReservationCancelledEvent.builder()
+                    .reservationId(reservation.getId())
+                    .customerEmail(reservation.getCustomerEmail())
+                    .customerName(reservation.getCustomerName())
+                    .movieTitle(screening != null ? screening.getMovieTitle() : "N/A")
+                    .screeningStartTime(screening != null ? screening.getStartTime() : null)
+                    .cancellationReason("PAYMENT_TIMEOUT")
+                    .build());
+        }
+        reservationRepository.saveAll(reservations);
+        // Payment-service anuluje płatność, aby nie została zaksięgowana po wygaśnięciu rezerwacji
+        messageProducer.sendReservationsCancelled(events);
+        return reservations.size();
+    }
+
     @Transactional
     public void handlePaymentGenerationFailure(PaymentFailedEvent event) {
         LOG.warn("Handling payment generation failure for reservation ID: {}. Reason: {}", event.getReservationId(), event.getReason());
@@ -233,14 +473,16 @@ public class ReservationService {
 
         if (reservation == null) return;
 
-        if (reservation.getStatus() == ReservationStatus.CANCELLED || reservation.getStatus() == ReservationStatus.EXPIRED) {
-            LOG.info("Reservation {} already {} on payment failure. No action needed.", event.getReservationId(), reservation.getStatus());
-            return;
+        for (Reservation member : withBasket(reservation)) {
+            if (member.getStatus() == ReservationStatus.CANCELLED || member.getStatus() == ReservationStatus.EXPIRED) {
+                LOG.info("Reservation {} already {} on payment failure. No action needed.", member.getId(), member.getStatus());
+                continue;
+            }
+            LOG.info("Payment generation failed for reservation {}. Setting status to CANCELLED.", member.getId());
+            releaseSeats(member);
+            member.setStatus(ReservationStatus.CANCELLED);
+            reservationRepository.save(member);
         }
-        LOG.info("Payment generation failed for reservation {}. Setting status to CANCELLED.", event.getReservationId());
-        reservation.getSeats().clear();
-        reservation.setStatus(ReservationStatus.CANCELLED);
-        reservationRepository.save(reservation);
     }
 
     @Transactional
@@ -260,7 +502,7 @@ public class ReservationService {
             LOG.error("CRITICAL: Ticket generation failed for a CONFIRMED reservation ID: {}. Reason: {}. Initiating cancellation and payment reversal.",
                     event.getReservationId(), event.getReason());
 
-            reservation.getSeats().clear();
+            releaseSeats(reservation);
             reservation.setStatus(ReservationStatus.CANCELLED); // Oznacz jako anulowaną z powodu błędu
             reservationRepository.save(reservation);
             ReservationCancelledEvent cancelledEvent = mapReservationCancelledEvent(reservation, "TICKET_ERROR");
@@ -269,7 +511,7 @@ public class ReservationService {
             LOG.warn("Ticket generation failed for reservation {} in status {}. Setting to CANCELLED.",
                     event.getReservationId(), reservation.getStatus());
 
-            reservation.getSeats().clear();
+            releaseSeats(reservation);
             reservation.setStatus(ReservationStatus.CANCELLED);
             reservationRepository.save(reservation);
             ReservationCancelledEvent cancelledEvent = mapReservationCancelledEvent(reservation, "TICKET_ERROR");
@@ -329,85 +571,38 @@ public class ReservationService {
 //            throw new ReservationConflictException("Cannot cancel reservation: ticket has already been used.");
 //        }
 
-        reservation.getSeats().clear();
-        reservation.setStatus(ReservationStatus.CANCELLED);
-        Reservation cancelledReservation = reservationRepository.save(reservation);
-        LOG.info("Reservation ID: {} cancelled successfully.", cancelledReservation.getId());
+        // Nieopłacony koszyk ma jedną płatność, więc anulowanie dowolnej pozycji anuluje cały koszyk
+        List<Reservation> cancelled = reservation.getStatus() == ReservationStatus.PENDING_PAYMENT
+                ? withBasket(reservation).stream()
+                        .filter(member -> member.getStatus() == ReservationStatus.PENDING_PAYMENT)
+                        .collect(Collectors.toList())
+                : List.of(reservation);
+        for (Reservation member : cancelled) {
+            releaseSeats(member);
+            member.setStatus(ReservationStatus.CANCELLED);
+            Reservation cancelledReservation = reservationRepository.save(member);
+            LOG.info("Reservation ID: {} cancelled successfully.", cancelledReservation.getId());
+
+            ReservationCancelledEvent event = mapReservationCancelledEvent(member, "USER");
+            messageProducer.sendReservationCancelled(event);
+        }
+    }
 
-        ReservationCancelledEvent event = mapReservationCancelledEvent(reservation, "USER");
-        messageProducer.sendReservationCancelled(event);
+    private List<Reservation> withBasket(Reservation reservation) {
+        return reservationReleaseService.withBasket(reservation);
     }
 
     @Transactional
     public void handleScreeningCancellation(Long cancelledScreeningId, String reason) {
         LOG.info("Handling cancellation of screening ID: {}. Reason: {}", cancelledScreeningId, reason);
 
-        // Pobierz szczegóły anulowanego seansu z lokalnej kopii
-        ScreeningInfo cancelledScreeningCopy = screeningInfoRepository.findById(cancelledScreeningId)
-                .orElse(null); // Lub rzuć wyjątek, jeśli kopia powinna istnieć
-
-        if (cancelledScreeningCopy == null) {
-            LOG.warn("ScreeningCopy not found for cancelledScreeningId: {}. Cannot send detailed notifications.", cancelledScreeningId);
-            // Można próbować pobrać z movie-service, ale to łamie zasadę niezależności
-        }
-
-        List<Reservation> affectedReservations = reservationRepository.findAllByScreeningIdAndStatusIn(
-                cancelledScreeningId,
-                List.of(ReservationStatus.PENDING_PAYMENT, ReservationStatus.CONFIRMED)
-        );
-
-        if (affectedReservations.isEmpty()) {
-            LOG.info("No active reservations found for cancelled screening ID: {}. No user notifications needed.", cancelledScreeningId);
-            return;
-        }
-
-        LOG.info("Found {} active reservations for cancelled screening ID: {}. Proceeding to cancel them and notify users.",
-                affectedReservations.size(), cancelledScreeningId);
-
-        for (Reservation reservation : affectedReservations) {
-            ReservationStatus oldStatus = reservation.getStatus();
-            reservation.setStatus(ReservationStatus.CANCELLED);
-            // Rozważ, czy usuwać `reservedSeats` - zależy od logiki biznesowej
-            // Jeśli nie usuwasz, upewnij się, że nigdzie nie są one traktowane jako aktywne
-            // List<ReservedSeat> seatsToClear = new ArrayList<>(reservation.getSeats());
-            // reservation.getSeats().clear();
-            // reservedSeatRepository.deleteAll(seatsToClear); // Jeśli cascade nie jest ustawiony lub chcesz być jawny
-
-            reservationRepository.save(reservation);
-            LOG.info("Reservation ID: {} (for screening ID: {}) status changed from {} to CANCELLED due to screening cancellation.",
-                    reservation.getId(), cancelledScreeningId, oldStatus);
-
-            // Publikuj event o anulowaniu rezerwacji dla innych serwisów (Payment, Ticket)
-            ReservationCancelledEvent event = mapReservationCancelledEvent(reservation, "CANCELED_SCREENING");
-            messageProducer.sendReservationCancelled(event);
+        seatInventory.evict(cancelledScreeningId);
+        seatClaimService.releaseScreening(cancelledScreeningId);
+        // Zwolnienia miejsc odwołanego seansu nie trafiają do indeksu, więc kolejka nie zostałaby obsłużona
+        waitlistService.closeScreening(cancelledScreeningId);
 
-            // Przygotuj i wyślij powiadomienie do użytkownika
-            if (cancelledScreeningCopy != null) {
-                ScreeningChangeNotificationDTO notificationPayload = ScreeningChangeNotificationDTO.builder()
-                        .customerEmail(reservation.getCustomerEmail())
-                        .customerName(reservation.getCustomerName())
-                        .movieTitle(cancelledScreeningCopy.getMovieTitle()) // Z kopii seansu
-                        .reservationId(reservation.getId())
-                        .originalScreeningId(cancelledScreeningId)
-                        .changeType("CANCELLED")
-                        .changeReason(reason)
-                        .oldScreeningTime(cancelledScreeningCopy.getStartTime()) // Z kopii seansu
-                        .oldHallInfo("Hall " + cancelledScreeningCopy.getHallNumber()) // Z kopii seansu
-                        .build();
-                messageProducer.sendScreeningChangeNotification(notificationPayload); // Nowa metoda w MessageProducer
-            } else {
-                // Uproszczone powiadomienie, jeśli nie ma szczegółów seansu
-                ScreeningChangeNotificationDTO notificationPayload = ScreeningChangeNotificationDTO.builder()
-                        .customerEmail(reservation.getCustomerEmail())
-                        .customerName(reservation.getCustomerName())
-                        .reservationId(reservation.getId())
-                        .originalScreeningId(cancelledScreeningId)
-                        .changeType("CANCELLED")
-                        .changeReason("The screening for your reservation has been cancelled. Please contact support for more details.")
-                        .build();
-                messageProducer.sendScreeningChangeNotification(notificationPayload);
-            }
-        }
+        // Rezerwacje są anulowane w paczkach, w osobnych transakcjach, po zatwierdzeniu bieżącej
+        screeningCancellationService.startCancellation(cancelledScreeningId, reason);
     }
 
     @Transactional
@@ -446,6 +641,10 @@ public class ReservationService {
         }
     }
 
+    private void releaseSeats(Reservation reservation) {
+        reservationReleaseService.release(List.of(reservation));
+    }
+
     private SeatDTO mapToSeatDTO(ReservedSeat reservedSeat) {
         return new SeatDTO(reservedSeat.getSeatId(), reservedSeat.getRowNumber(), reservedSeat.getSeatNumber());
     }
@@ -461,7 +660,9 @@ public class ReservationService {
                 reservation.getTotalAmount(),
                 reservation.isTicketUsed(),
                 reservation.getTicketUsedAt(),
-                seats
+                seats,
+                reservation.getBasketId(),
+                null
         );
     }
 
@@ -486,6 +687,9 @@ public class ReservationService {
         LOG.info("Ticket generation request sent for reservation ID: {}", reservation.getId());
     }
 
+    private record ReservedItem(Reservation reservation, ScreeningInfo screening, List<SeatDTO> seats) {
+    }
+
     public ReservationCancelledEvent mapReservationCancelledEvent(Reservation reservation, String reason) {
         Optional<ScreeningInfo> screeningDetails = screeningInfoRepository.findById(reservation.getScreeningId());
         if (screeningDetails.isEmpty()) {
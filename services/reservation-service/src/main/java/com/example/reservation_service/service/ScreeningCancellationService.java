@@ -0,0 +1,254 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.dto.ScreeningCancellationProgressDTO;
+import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.entity.ScreeningCancellationJob;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.kafka.producer.MessageProducer;
+import com.example.reservation_service.repository.ReservationRepository;
+import com.example.reservation_service.repository.ScreeningCancellationJobRepository;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.dto.ScreeningChangeNotificationDTO;
+import org.example.commons.enums.ReservationStatus;
+import org.example.commons.events.ReservationCancelledEvent;
+import org.example.commons.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Anulowanie rezerwacji odwołanego seansu w paczkach. Każda paczka (stronicowanie po id) to osobna
+ * transakcja: rezerwacje są zwalniane tą samą ścieżką co pojedyncze anulowanie ({@link ReservationReleaseService}),
+ * razem z nieopłaconymi pozycjami ich koszyków, a zdarzenia trafiają do outboxa. Stan zadania (kursor, licznik)
+ * jest zapisywany razem z paczką, więc po awarii instancji przetwarzanie wznawia się od ostatniej zatwierdzonej paczki.
+ * Wiersz zadania jest blokowany na czas paczki, więc dwie instancje nie przetwarzają tego samego seansu.
+ */
+@Service
+public class ScreeningCancellationService {
+    private static final Logger LOG = LoggerFactory.getLogger(ScreeningCancellationService.class);
+    private static final List<ReservationStatus> ACTIVE_STATUSES =
+            List.of(ReservationStatus.PENDING_PAYMENT, ReservationStatus.CONFIRMED);
+    private static final String CANCELLATION_REASON = "CANCELED_SCREENING";
+
+    private final ScreeningCancellationJobRepository jobRepository;
+    private final ReservationRepository reservationRepository;
+    private final ScreeningInfoRepository screeningInfoRepository;
+    private final MessageProducer messageProducer;
+    private final ReservationReleaseService reservationReleaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> scheduledJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${reservation.cancellation.chunk-size:500}")
+    private int chunkSize;
+
+    private ExecutorService executor;
+
+    public ScreeningCancellationService(ScreeningCancellationJobRepository jobRepository,
+                                        ReservationRepository reservationRepository,
+                                        ScreeningInfoRepository screeningInfoRepository,
+                                        MessageProducer messageProducer,
+                                        ReservationReleaseService reservationReleaseService,
+                                        TransactionTemplate transactionTemplate) {
+        this.jobRepository = jobRepository;
+        this.reservationRepository = reservationRepository;
+        this.screeningInfoRepository = screeningInfoRepository;
+        this.messageProducer = messageProducer;
+        this.reservationReleaseService = reservationReleaseService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "screening-cancellation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        List<ScreeningCancellationJob> jobs = jobRepository.findAllByStatus(ScreeningCancellationJob.Status.RUNNING);
+        jobs.forEach(job -> {
+            LOG.info("Resuming cancellation of screening ID: {} after reservation ID: {} ({} already cancelled).",
+                    job.getScreeningId(), job.getLastReservationId(), job.getProcessedCount());
+            submit(job.getScreeningId());
+        });
+    }
+
+    /**
+     * Rejestruje zadanie w bieżącej transakcji; przetwarzanie rusza dopiero po jej zatwierdzeniu.
+     */
+    @Transactional
+    public void startCancellation(Long screeningId, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        ScreeningCancellationJob job = jobRepository.findById(screeningId)
+                .orElseGet(() -> ScreeningCancellationJob.builder()
+                        .screeningId(screeningId)
+                        .startedAt(now)
+                        .build());
+        job.setReason(reason);
+        job.setStatus(ScreeningCancellationJob.Status.RUNNING);
+        job.setUpdatedAt(now);
+        job.setCompletedAt(null);
+        jobRepository.save(job);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(screeningId);
+                }
+            });
+        } else {
+            submit(screeningId);
+        }
+    }
+
+    public ScreeningCancellationProgressDTO getProgress(Long screeningId) {
+        ScreeningCancellationJob job = jobRepository.findById(screeningId)
+                .orElseThrow(() -> new ResourceNotFoundException("No cancellation found for screening with ID: " + screeningId));
+        return new ScreeningCancellationProgressDTO(job.getScreeningId(), job.getStatus().name(), job.getProcessedCount(),
+                job.getStartedAt(), job.getUpdatedAt(), job.getCompletedAt());
+    }
+
+    private void submit(Long screeningId) {
+        if (scheduledJobs.add(screeningId)) {
+            executor.execute(() -> run(screeningId));
+        }
+    }
+
+    private void run(Long screeningId) {
+        try {
+            boolean more = true;
+            while (more && !Thread.currentThread().isInterrupted()) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> processChunk(screeningId)));
+            }
+        } catch (PessimisticLockingFailureException e) {
+            LOG.info("Cancellation of screening ID: {} is being processed by another instance.", screeningId);
+        } catch (RuntimeException e) {
+            // Zadanie pozostaje w stanie RUNNING i zostanie wznowione przy kolejnym starcie
+            LOG.error("Cancellation of screening ID: {} interrupted: {}", screeningId, e.getMessage(), e);
+        } finally {
+            scheduledJobs.remove(screeningId);
+        }
+    }
+
+    private boolean processChunk(Long screeningId) {
+        ScreeningCancellationJob job = jobRepository.lockById(screeningId).orElse(null);
+        if (job == null || job.getStatus() != ScreeningCancellationJob.Status.RUNNING) {
+            return false;
+        }
+
+        List<Reservation> chunk = reservationRepository.lockChunkAfter(
+                screeningId, ACTIVE_STATUSES, job.getLastReservationId(), Limit.of(chunkSize));
+        LocalDateTime now = LocalDateTime.now();
+        if (chunk.isEmpty()) {
+            job.setStatus(ScreeningCancellationJob.Status.COMPLETED);
+            job.setUpdatedAt(now);
+            job.setCompletedAt(now);
+            LOG.info("Cancellation of screening ID: {} completed. {} reservations cancelled.",
+                    screeningId, job.getProcessedCount());
+            return false;
+        }
+
+        // Nieopłacony koszyk ma jedną płatność, więc odwołanie seansu anuluje też jego pozycje na innych seansach
+        Set<Long> pendingBasketIds = chunk.stream()
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.PENDING_PAYMENT && reservation.getBasketId() != null)
+                .map(Reservation::getBasketId)
+                .collect(Collectors.toSet());
+        List<Reservation> cancelled = new ArrayList<>(chunk);
+        if (!pendingBasketIds.isEmpty()) {
+            cancelled.addAll(reservationRepository.lockBasketMembersOutsideScreening(
+                    pendingBasketIds, ReservationStatus.PENDING_PAYMENT, screeningId));
+        }
+        reservationReleaseService.release(cancelled);
+        cancelled.forEach(reservation -> reservation.setStatus(ReservationStatus.CANCELLED));
+
+        Map<Long, ScreeningInfo> screenings = screeningInfoRepository.findAllById(cancelled.stream()
+                        .map(Reservation::getScreeningId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(ScreeningInfo::getId, screening -> screening));
+        ScreeningInfo screeningCopy = screenings.get(screeningId);
+        if (screeningCopy == null) {
+            LOG.warn("ScreeningCopy not found for cancelledScreeningId: {}. Sending simplified notifications.", screeningId);
+        }
+        messageProducer.sendReservationsCancelled(cancelled.stream()
+                .map(reservation -> mapCancelledEvent(reservation, screenings.get(reservation.getScreeningId())))
+                .collect(Collectors.toList()));
+        messageProducer.sendScreeningChangeNotifications(chunk.stream()
+                .map(reservation -> mapNotification(reservation, screeningId, job.getReason(), screeningCopy))
+                .collect(Collectors.toList()));
+
+        job.setLastReservationId(chunk.get(chunk.size() - 1).getId());
+        job.setProcessedCount(job.getProcessedCount() + chunk.size());
+        job.setUpdatedAt(now);
+        LOG.info("Cancellation of screening ID: {} in progress: {} reservations cancelled (cursor: {}, basket items: {}).",
+                screeningId, job.getProcessedCount(), job.getLastReservationId(), cancelled.size() - chunk.size());
+        return chunk.size() == chunkSize;
+    }
+
+    private ReservationCancelledEvent mapCancelledEvent(Reservation reservation, ScreeningInfo screening) {
+        return ReservationCancelledEvent.builder()
+                .reservationId(reservation.getId())
+                .customerEmail(reservation.getCustomerEmail())
+                .customerName(reservation.getCustomerName())
+                .movieTitle(screening != null ? screening.getMovieTitle() : "N/A")
+                .screeningStartTime(screening != null ? screening.getStartTime() : null)
+                .cancellationReason(CANCELLATION_REASON)
+                .build();
+    }
+
+    private ScreeningChangeNotificationDTO mapNotification(Reservation reservation,
+                                                           Long screeningId, String reason, ScreeningInfo screeningCopy) {
+        if (screeningCopy == null) {
+            // Uproszczone powiadomienie, jeśli nie ma szczegółów seansu
+            return ScreeningChangeNotificationDTO.builder()
+                    .customerEmail(reservation.getCustomerEmail())
+                    .customerName(reservation.getCustomerName())
+                    .reservationId(reservation.getId())
+                    .originalScreeningId(screeningId)
+                    .changeType("CANCELLED")
+                    .changeReason("The screening for your reservation has been cancelled. Please contact support for more details.")
+                    .build();
+        }
+        return ScreeningChangeNotificationDTO.builder()
+                .customerEmail(reservation.getCustomerEmail())
+                .customerName(reservation.getCustomerName())
+                .movieTitle(screeningCopy.getMovieTitle())
+                .reservationId(reservation.getId())
+                .originalScreeningId(screeningId)
+                .changeType("CANCELLED")
+                .changeReason(reason)
+                .oldScreeningTime(screeningCopy.getStartTime())
+                .oldHallInfo("Hall " + screeningCopy.getHallNumber())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import lombok.RequiredArgsConstructor;
+import org.example.commons.exception.ReservationConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SeatClaimService {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatClaimService.class);
+    private final SeatClaimRepository seatClaimRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillClaims() {
+        int created = seatClaimRepository.backfillFromReservedSeats(SeatInventory.ACTIVE_STATUSES);
+        if (created > 0) {
+            LOG.info("Backfilled {} seat claims from active reservations.", created);
+        }
+    }
+
+    /**
+     * Zajmuje miejsca jednym wsadowym INSERT-em. Konflikt wykrywa unikalny klucz (screening_id, seat_id).
+     */
+    @Transactional
+    public void claim(Long screeningId, Long reservationId, Collection<SeatPosition> seats) {
+        LocalDateTime now = LocalDateTime.now();
+        insertClaims(screeningId, seats, seatId -> SeatClaim.builder()
+                .screeningId(screeningId)
+                .seatId(seatId)
+                .reservationId(reservationId)
+                .claimedAt(now)
+                .build());
+    }
+
+    @Transactional
+    public void claimForHold(Long screeningId, String holdId, Collection<SeatPosition> seats, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        insertClaims(screeningId, seats, seatId -> SeatClaim.builder()
+                .screeningId(screeningId)
+                .seatId(seatId)
+                .holdId(holdId)
+                .expiresAt(expiresAt)
+                .claimedAt(now)
+                .build());
+    }
+
+    private void insertClaims(Long screeningId, Collection<SeatPosition> seats, Function<Long, SeatClaim> factory) {
+        List<SeatClaim> claims = seats.stream().map(SeatPosition::seatId).map(factory).collect(Collectors.toList());
+        try {
+            seatClaimRepository.saveAllAndFlush(claims);
+        } catch (DataIntegrityViolationException e) {
+            // Po naruszeniu klucza transakcja jest do wycofania - nie da się już sprawdzić, które miejsce zajęto
+            String requested = seats.stream()
+                    .map(seat -> "row " + seat.rowNumber() + ", seat " + seat.seatNumber())
+                    .collect(Collectors.joining("; "));
+            LOG.warn("Seat claim conflict for screening ID: {} and seats: {}", screeningId, requested);
+            throw new ReservationConflictException("One or more of the requested seats (" + requested + ") are already reserved.");
+        }
+    }
+
+    /**
+     * Zwalnia zajęcia miejsc kilku rezerwacji jednym DELETE-em.
+     */
+    @Transactional
+    public void releaseReservations(Collection<Long> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+        int released = seatClaimRepository.deleteByReservationIdIn(reservationIds);
+        LOG.debug("Released {} seat claims for reservation IDs: {}", released, reservationIds);
+    }
+
+    @Transactional
+    public void releaseScreening(Long screeningId) {
+        int released = seatClaimRepository.deleteByScreeningId(screeningId);
+        LOG.info("Released {} seat claims for screening ID: {}", released, screeningId);
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.dto.BestSeatsDTO;
+import com.example.reservation_service.dto.CreateBestSeatHoldDTO;
+import com.example.reservation_service.dto.CreateSeatHoldDTO;
+import com.example.reservation_service.dto.SeatHoldDTO;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.hold.HierarchicalTimingWheel;
+import com.example.reservation_service.inventory.ScreeningSeatMap;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.inventory.SeatState;
+import com.example.reservation_service.lock.ScreeningLockManager;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.exception.ReservationConflictException;
+import org.example.commons.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tymczasowe blokady miejsc (hold) na czas checkoutu. Blokady są zapisywane w seat_claims
+ * (z hold_id i expires_at), a ich wygaśnięciem steruje koło czasowe w pamięci - bez odpytywania bazy.
+ * Po restarcie aktywne blokady są odczytywane z seat_claims i ponownie planowane.
+ */
+@Service
+public class SeatHoldService {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatHoldService.class);
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final ScreeningInfoRepository screeningInfoRepository;
+    private final HallLayoutService hallLayoutService;
+    private final SeatClaimRepository seatClaimRepository;
+    private final SeatClaimService seatClaimService;
+    private final SeatInventory seatInventory;
+    private final ScreeningLockManager screeningLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Long> holdScreenings = new ConcurrentHashMap<>();
+
+    @Value("${reservation.holds.default-ttl-seconds:300}")
+    private long defaultTtlSeconds;
+
+    @Value("${reservation.holds.max-ttl-seconds:900}")
+    private long maxTtlSeconds;
+
+    @Value("${reservation.best-seats.preferred-row-ratio:0.6}")
+    private double preferredRowRatio;
+
+    @Value("${reservation.best-seats.row-weight:1.0}")
+    private double rowWeight;
+
+    @Value("${reservation.holds.tick-ms:250}")
+    private long tickMillis;
+
+    @Value("${reservation.holds.expiry-lock-timeout-ms:50}")
+    private long expiryLockTimeoutMillis;
+
+    @Value("${reservation.holds.expiry-retry-ms:1000}")
+    private long expiryRetryMillis;
+
+    private HierarchicalTimingWheel<String> wheel;
+    private ScheduledExecutorService ticker;
+
+    public SeatHoldService(ScreeningInfoRepository screeningInfoRepository,
+                           HallLayoutService hallLayoutService,
+                           SeatClaimRepository seatClaimRepository,
+                           SeatClaimService seatClaimService,
+                           SeatInventory seatInventory,
+                           ScreeningLockManager screeningLockManager,
+                           TransactionTemplate transactionTemplate) {
+        this.screeningInfoRepository = screeningInfoRepository;
+        this.hallLayoutService = hallLayoutService;
+        this.seatClaimRepository = seatClaimRepository;
+        this.seatClaimService = seatClaimService;
+        this.seatInventory = seatInventory;
+        this.screeningLockManager = screeningLockManager;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreHolds() {
+        List<SeatClaimRepository.HoldView> holds = seatClaimRepository.findActiveHolds();
+        holds.forEach(hold -> schedule(hold.getHoldId(), hold.getScreeningId(), hold.getExpiresAt()));
+        LOG.info("Restored {} active seat holds.", holds.size());
+    }
+
+    @Transactional
+    public SeatHoldDTO createHold(CreateSeatHoldDTO request) {
+        long ttlSeconds = resolveTtl(request.getTtlSeconds());
+        screeningLockManager.lock(request.getScreeningId());
+        ScreeningInfo screeningInfo = findActiveScreening(request.getScreeningId());
+
+        List<SeatPosition> seats = hallLayoutService.resolveSeats(screeningInfo, request.getSeatIds());
+        if (seats.size() != request.getSeatIds().size()) {
+            throw new ResourceNotFoundException("Some requested seats do not exist for screening " + screeningInfo.getId() + ".");
+        }
+        return hold(screeningInfo, seats, ttlSeconds);
+    }
+
+    /**
+     * Wskazuje najlepszy ciąg sąsiednich wolnych miejsc bez ich blokowania; wynik jest tylko podpowiedzią.
+     */
+    @Transactional(readOnly = true)
+    public BestSeatsDTO findBestSeats(Long screeningId, int seatCount, Integer preferredRow) {
+        ScreeningInfo screeningInfo = findActiveScreening(screeningId);
+        List<SeatPosition> seats = findBestRun(screeningInfo, seatCount, preferredRow);
+        return new BestSeatsDTO(screeningId, seats.get(0).rowNumber(), seatIds(seats));
+    }
+
+    /**
+     * Wyszukuje i blokuje najlepszy ciąg miejsc pod blokadą seansu, więc znalezione miejsca nie mogą
+     * zostać zajęte przed utworzeniem blokady.
+     */
+    @Transactional
+    public SeatHoldDTO createBestAvailableHold(CreateBestSeatHoldDTO request) {
+        long ttlSeconds = resolveTtl(request.getTtlSeconds());
+        screeningLockManager.lock(request.getScreeningId());
+        ScreeningInfo screeningInfo = findActiveScreening(request.getScreeningId());
+        return hold(screeningInfo, findBestRun(screeningInfo, request.getSeatCount(), request.getPreferredRow()), ttlSeconds);
+    }
+
+    private SeatHoldDTO hold(ScreeningInfo screeningInfo, List<SeatPosition> seats, long ttlSeconds) {
+        List<SeatPosition> conflicts = seatInventory.tryReserve(screeningInfo, seats, SeatState.HELD);
+        if (!conflicts.isEmpty()) {
+            SeatPosition conflict = conflicts.get(0);
+            throw new ReservationConflictException("Seat in row " + conflict.rowNumber() + ", number " + conflict.seatNumber()
+                    + " (original ID: " + conflict.seatId() + ") is already reserved.");
+        }
+
+        List<Long> seatIds = seatIds(seats);
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        seatClaimService.claimForHold(screeningInfo.getId(), holdId, seats, expiresAt);
+        afterCommit(() -> schedule(holdId, screeningInfo.getId(), expiresAt));
+        LOG.info("Created seat hold {} for screening ID: {} ({} seats, expires at {}).", holdId, screeningInfo.getId(), seats.size(), expiresAt);
+
+        return new SeatHoldDTO(holdId, screeningInfo.getId(), seatIds, expiresAt);
+    }
+
+    private List<SeatPosition> findBestRun(ScreeningInfo screeningInfo, int seatCount, Integer preferredRow) {
+        SeatLayout layout = hallLayoutService.getLayout(screeningInfo);
+        ScreeningSeatMap seatMap = seatInventory.getSeatMap(screeningInfo);
+        int row = preferredRow != null ? preferredRow : (int) Math.ceil(layout.getRows() * preferredRowRatio);
+        ScreeningSeatMap.RunCandidate run = seatMap.findBestRun(seatCount, row, rowWeight);
+        if (run == null) {
+            throw new ReservationConflictException("No " + seatCount + " adjacent seats are available for screening "
+                    + screeningInfo.getId() + ".");
+        }
+        List<SeatPosition> seats = new ArrayList<>(seatCount);
+        for (int seatNumber = run.firstSeatNumber(); seatNumber < run.firstSeatNumber() + seatCount; seatNumber++) {
+            seats.add(new SeatPosition(layout.seatIdAt(run.rowNumber(), seatNumber), run.rowNumber(), seatNumber));
+        }
+        return seats;
+    }
+
+    private long resolveTtl(Integer requestedTtlSeconds) {
+        long ttlSeconds = requestedTtlSeconds != null ? requestedTtlSeconds : defaultTtlSeconds;
+        if (ttlSeconds > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold duration cannot exceed " + maxTtlSeconds + " seconds.");
+        }
+        return ttlSeconds;
+    }
+
+    private ScreeningInfo findActiveScreening(Long screeningId) {
+        return screeningInfoRepository.findById(screeningId)
+                .filter(ScreeningInfo::isActive)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Active screening with ID " + screeningId + " not found or is inactive."));
+    }
+
+    private static List<Long> seatIds(List<SeatPosition> seats) {
+        return seats.stream().map(SeatPosition::seatId).collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void releaseHold(String holdId) {
+        List<SeatClaim> claims = activeClaims(holdId);
+        if (claims.isEmpty() || releaseClaims(holdId, claims.get(0).getScreeningId()) == 0) {
+            throw new ResourceNotFoundException("Seat hold with ID " + holdId + " not found or already expired.");
+        }
+        LOG.info("Seat hold {} released by client.", holdId);
+    }
+
+    /**
+     * Zamienia blokadę na rezerwację. Wywoływane w transakcji tworzenia rezerwacji.
+     */
+    @Transactional
+    public void convertToReservation(String holdId, Long screeningId, List<Long> seatIds, Long reservationId) {
+        List<SeatClaim> claims = activeClaims(holdId);
+        boolean matches = !claims.isEmpty()
+                && claims.stream().allMatch(claim -> claim.getScreeningId().equals(screeningId))
+                && claims.stream().map(SeatClaim::getSeatId).collect(Collectors.toSet()).equals(new HashSet<>(seatIds));
+        if (!matches) {
+            throw new ReservationConflictException("Seat hold " + holdId + " does not exist or does not match the requested seats.");
+        }
+        int converted = seatClaimRepository.assignHoldToReservation(holdId, reservationId, LocalDateTime.now());
+        if (converted != claims.size()) {
+            throw new ReservationConflictException("Seat hold " + holdId + " has expired.");
+        }
+        afterCommit(() -> {
+            wheel.cancel(holdId);
+            holdScreenings.remove(holdId);
+        });
+        LOG.info("Seat hold {} converted into reservation ID: {}", holdId, reservationId);
+    }
+
+    // Blokada nieusunięta (zajęty seans, błąd transakcji) wraca na koło - inaczej jej miejsca zostałyby zajęte do restartu
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (String holdId : wheel.advance(now)) {
+            boolean expired;
+            try {
+                expired = Boolean.TRUE.equals(transactionTemplate.execute(status -> expireHold(holdId)));
+            } catch (Exception e) {
+                LOG.error("Failed to expire seat hold {}: {}", holdId, e.getMessage(), e);
+                expired = false;
+            }
+            if (!expired && holdScreenings.containsKey(holdId)) {
+                wheel.schedule(holdId, now + expiryRetryMillis);
+            }
+        }
+    }
+
+    // Jeden wątek obsługuje wszystkie wygaśnięcia, więc nie czeka długo na zajęty seans; false - do ponowienia
+    private boolean expireHold(String holdId) {
+        Long screeningId = holdScreenings.get(holdId);
+        if (screeningId == null) {
+            return true;
+        }
+        if (!screeningLockManager.tryLock(screeningId, expiryLockTimeoutMillis)) {
+            LOG.debug("Screening ID: {} is busy. Seat hold {} will expire on retry.", screeningId, holdId);
+            return false;
+        }
+        int released = releaseLockedClaims(holdId, screeningId);
+        if (released > 0) {
+            LOG.info("Seat hold {} expired. Released {} seats.", holdId, released);
+        }
+        return true;
+    }
+
+    // Blokada seansu przed odczytem, aby nie ścigać się z równoległą zamianą blokady na rezerwację
+    private int releaseClaims(String holdId, Long screeningId) {
+        screeningLockManager.lock(screeningId);
+        return releaseLockedClaims(holdId, screeningId);
+    }
+
+    // Blokada znika z pamięci dopiero po zatwierdzeniu zwolnienia
+    private int releaseLockedClaims(String holdId, Long screeningId) {
+        afterCommit(() -> {
+            wheel.cancel(holdId);
+            holdScreenings.remove(holdId);
+        });
+        List<SeatClaim> claims = activeClaims(holdId);
+        if (claims.isEmpty()) {
+            return 0;
+        }
+        List<Long> seatIds = claims.stream().map(SeatClaim::getSeatId).collect(Collectors.toList());
+        seatInventory.release(screeningId, findSeatPositions(screeningId, seatIds));
+        seatClaimRepository.deleteHold(holdId);
+        return claims.size();
+    }
+
+    private List<SeatClaim> activeClaims(String holdId) {
+        return seatClaimRepository.findAllByHoldId(holdId).stream()
+                .filter(claim -> claim.getReservationId() == null)
+                .collect(Collectors.toList());
+    }
+
+    private List<SeatPosition> findSeatPositions(Long screeningId, List<Long> seatIds) {
+        return screeningInfoRepository.findById(screeningId)
+                .map(screeningInfo -> hallLayoutService.resolveSeats(screeningInfo, seatIds))
+                .orElse(List.of());
+    }
+
+    private void schedule(String holdId, Long screeningId, LocalDateTime expiresAt) {
+        holdScreenings.put(holdId, screeningId);
+        wheel.schedule(holdId, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.dto.CreateBestSeatHoldDTO;
+import com.example.reservation_service.dto.JoinWaitlistDTO;
+import com.example.reservation_service.dto.SeatHoldDTO;
+import com.example.reservation_service.dto.WaitlistEntryDTO;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.entity.WaitlistEntry;
+import com.example.reservation_service.inventory.SeatState;
+import com.example.reservation_service.inventory.SeatStateChangedEvent;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import com.example.reservation_service.repository.WaitlistEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.exception.ReservationConflictException;
+import org.example.commons.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Kolejka oczekujących na wyprzedane seanse. Zwolnienie miejsc ({@link SeatStateChangedEvent} ze stanem RELEASED)
+ * uruchamia obsługę kolejki danego seansu: pierwszy oczekujący (FIFO) dostaje ofertę w postaci blokady
+ * najlepszych dostępnych miejsc na czas {@code offer-window-seconds}. Niewykorzystana oferta wygasa razem
+ * z blokadą, a zwolnione miejsca trafiają do kolejnej osoby. Stan kolejki jest czytany z bazy, więc instancje
+ * współdzielą ją bez synchronizacji w pamięci.
+ */
+@Service
+public class WaitlistService {
+    private static final Logger LOG = LoggerFactory.getLogger(WaitlistService.class);
+    private static final List<WaitlistEntry.Status> ACTIVE_STATUSES = List.of(WaitlistEntry.Status.WAITING, WaitlistEntry.Status.OFFERED);
+
+    private final WaitlistEntryRepository entryRepository;
+    private final ScreeningInfoRepository screeningInfoRepository;
+    private final SeatClaimRepository seatClaimRepository;
+    private final SeatHoldService seatHoldService;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> scheduledScreenings = ConcurrentHashMap.newKeySet();
+
+    @Value("${reservation.waitlist.offer-window-seconds:300}")
+    private int offerWindowSeconds;
+
+    @Value("${reservation.waitlist.max-seats:10}")
+    private int maxSeats;
+
+    private ExecutorService executor;
+
+    public WaitlistService(WaitlistEntryRepository entryRepository,
+                           ScreeningInfoRepository screeningInfoRepository,
+                           SeatClaimRepository seatClaimRepository,
+                           SeatHoldService seatHoldService,
+                           TransactionTemplate transactionTemplate) {
+        this.entryRepository = entryRepository;
+        this.screeningInfoRepository = screeningInfoRepository;
+        this.seatClaimRepository = seatClaimRepository;
+        this.seatHoldService = seatHoldService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-offers");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreQueues() {
+        List<Long> screeningIds = entryRepository.findScreeningIdsByStatus(WaitlistEntry.Status.WAITING);
+        // Miejsca mogły zostać zwolnione, gdy instancja nie działała
+        screeningIds.forEach(this::schedule);
+        LOG.info("Restored waitlists for {} screenings.", screeningIds.size());
+    }
+
+    // Kolejka jest sprawdzana w bazie przy obsłudze - oczekujący mogli dołączyć przez inną instancję
+    @EventListener
+    public void onSeatStateChanged(SeatStateChangedEvent event) {
+        if (event.state() == SeatState.RELEASED) {
+            schedule(event.screeningId());
+        }
+    }
+
+    @Transactional
+    public WaitlistEntryDTO join(Long screeningId, JoinWaitlistDTO request) {
+        if (request.getSeatCount() > maxSeats) {
+            throw new IllegalArgumentException("Waitlist requests are limited to " + maxSeats + " seats.");
+        }
+        screeningInfoRepository.findById(screeningId)
+                .filter(ScreeningInfo::isActive)
+                .orElseThrow(() -> new ResourceNotFoundException("Active screening with ID " + screeningId + " not found or is inactive."));
+        if (entryRepository.existsByScreeningIdAndCustomerEmailAndStatusIn(screeningId, request.getCustomerEmail(), ACTIVE_STATUSES)) {
+            throw new ReservationConflictException("Customer is already on the waitlist for screening " + screeningId + ".");
+        }
+
+        WaitlistEntry entry = entryRepository.save(WaitlistEntry.builder()
+                .screeningId(screeningId)
+                .customerName(request.getCustomerName())
+                .customerEmail(request.getCustomerEmail())
+                .seatCount(request.getSeatCount())
+                .status(WaitlistEntry.Status.WAITING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        // Miejsca mogą być wolne już teraz
+        afterCommit(() -> schedule(screeningId));
+        LOG.info("Customer {} joined waitlist for screening ID: {} (entry ID: {}, {} seats).",
+                request.getCustomerEmail(), screeningId, entry.getId(), entry.getSeatCount());
+        return toDTO(entry);
+    }
+
+    @Transactional
+    public WaitlistEntryDTO getEntry(Long entryId) {
+        return toDTO(findEntry(entryId));
+    }
+
+    @Transactional
+    public void leave(Long entryId) {
+        WaitlistEntry entry = findEntry(entryId);
+        if (entry.getStatus() == WaitlistEntry.Status.OFFERED) {
+            try {
+                seatHoldService.releaseHold(entry.getHoldId());
+            } catch (ResourceNotFoundException e) {
+                LOG.info("Offer hold {} of waitlist entry {} already expired.", entry.getHoldId(), entryId);
+            }
+        } else if (entry.getStatus() != WaitlistEntry.Status.WAITING) {
+            throw new ReservationConflictException("Waitlist entry " + entryId + " is already " + entry.getStatus() + ".");
+        }
+        entry.setStatus(WaitlistEntry.Status.CANCELLED);
+        entryRepository.save(entry);
+        LOG.info("Waitlist entry {} for screening ID: {} cancelled by customer.", entryId, entry.getScreeningId());
+    }
+
+    /**
+     * Oznacza ofertę jako przyjętą, gdy jej blokada jest zamieniana na rezerwację. Wywoływane w transakcji rezerwacji.
+     */
+    @Transactional
+    public void markAccepted(String holdId) {
+        if (entryRepository.updateStatusByHoldId(holdId, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.ACCEPTED) > 0) {
+            LOG.info("Waitlist offer with hold {} accepted.", holdId);
+        }
+    }
+
+    /**
+     * Zamyka kolejkę odwołanego seansu. Blokady złożonych ofert zwalnia anulowanie seansu w seat_claims.
+     */
+    @Transactional
+    public void closeScreening(Long screeningId) {
+        int cancelled = entryRepository.updateStatusByScreeningId(screeningId, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED)
+                + entryRepository.updateStatusByScreeningId(screeningId, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.CANCELLED);
+        if (cancelled > 0) {
+            LOG.info("Screening ID: {} was cancelled. Closed its waitlist with {} entries.", screeningId, cancelled);
+        }
+    }
+
+    private void schedule(Long screeningId) {
+        // Kolejne zwolnienia przed rozpoczęciem obsługi są obsługiwane jednym przebiegiem
+        if (scheduledScreenings.add(screeningId)) {
+            executor.submit(() -> serve(screeningId));
+        }
+    }
+
+    private void serve(Long screeningId) {
+        scheduledScreenings.remove(screeningId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> entryRepository.updateStatusOfLapsedOffers(
+                    screeningId, WaitlistEntry.Status.OFFERED, WaitlistEntry.Status.EXPIRED, LocalDateTime.now()));
+            boolean offered;
+            do {
+                offered = Boolean.TRUE.equals(transactionTemplate.execute(status -> offerToHead(screeningId)));
+            } while (offered);
+        } catch (PessimisticLockingFailureException e) {
+            // Inna instancja obsługuje właśnie tę kolejkę - jej przebieg zobaczy te same zwolnione miejsca
+            LOG.debug("Waitlist for screening ID: {} is being served by another instance.", screeningId);
+        } catch (ReservationConflictException e) {
+            // Za mało sąsiednich wolnych miejsc dla pierwszego w kolejce - czeka na kolejne zwolnienie
+            LOG.debug("Waitlist for screening ID: {} is waiting for more seats: {}", screeningId, e.getMessage());
+        } catch (ResourceNotFoundException e) {
+            int cancelled = transactionTemplate.execute(status -> entryRepository.updateStatusByScreeningId(
+                    screeningId, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED));
+            LOG.info("Screening ID: {} is no longer available. Cancelled {} waitlist entries.", screeningId, cancelled);
+        } catch (Exception e) {
+            LOG.error("Failed to serve waitlist for screening ID: {}: {}", screeningId, e.getMessage(), e);
+        }
+    }
+
+    // Pierwszy oczekujący jest blokowany do końca transakcji, więc dwie instancje nie złożą mu dwóch ofert
+    private boolean offerToHead(Long screeningId) {
+        Optional<WaitlistEntry> head = entryRepository.findFirstByScreeningIdAndStatusOrderByIdAsc(screeningId, WaitlistEntry.Status.WAITING);
+        if (head.isEmpty()) {
+            return false;
+        }
+        offer(head.get());
+        return true;
+    }
+
+    private void offer(WaitlistEntry entry) {
+        SeatHoldDTO hold = seatHoldService.createBestAvailableHold(
+                new CreateBestSeatHoldDTO(entry.getScreeningId(), entry.getSeatCount(), null, offerWindowSeconds));
+        entry.setStatus(WaitlistEntry.Status.OFFERED);
+        entry.setHoldId(hold.getHoldId());
+        entry.setOfferExpiresAt(hold.getExpiresAt());
+        entryRepository.save(entry);
+        LOG.info("Waitlist entry {} offered seats {} for screening ID: {} until {}.",
+                entry.getId(), hold.getSeatIds(), entry.getScreeningId(), hold.getExpiresAt());
+    }
+
+    private WaitlistEntry findEntry(Long entryId) {
+        return entryRepository.findById(entryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry with ID " + entryId + " not found."));
+    }
+
+    private WaitlistEntryDTO toDTO(WaitlistEntry entry) {
+        Long position = null;
+        List<Long> seatIds = null;
+        if (entry.getStatus() == WaitlistEntry.Status.WAITING) {
+            position = entryRepository.countByScreeningIdAndStatusAndIdLessThan(
+                    entry.getScreeningId(), WaitlistEntry.Status.WAITING, entry.getId()) + 1;
+        } else if (entry.getStatus() == WaitlistEntry.Status.OFFERED) {
+            seatIds = seatClaimRepository.findAllByHoldId(entry.getHoldId()).stream()
+                    .map(SeatClaim::getSeatId)
+                    .collect(Collectors.toList());
+        }
+        return new WaitlistEntryDTO(entry.getId(), entry.getScreeningId(), entry.getStatus().name(), entry.getSeatCount(),
+                position, entry.getHoldId(), seatIds, entry.getOfferExpiresAt());
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.reservation_service.stream;
+
+import com.example.reservation_service.dto.SeatMapDTO;
+import com.example.reservation_service.dto.SeatStateEventDTO;
+import com.example.reservation_service.inventory.SeatStateChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.commons.dto.SeatDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Strumień SSE zmian stanu miejsc per seans. Subskrybent jest rejestrowany przed zbudowaniem migawki, więc
+ * zdarzenia z tego okresu trafiają do jego bufora i są wysyłane po migawce, o ile mają nowszą wersję.
+ * Każdy subskrybent ma ograniczony bufor opróżniany przez własny wątek wirtualny - wolny klient blokuje tylko
+ * swój wątek, a gdy jego bufor się przepełni, jest rozłączany (powinien pobrać mapę od nowa przez /seats/bitmap
+ * i zasubskrybować ponownie).
+ */
+@EnableScheduling
+@Component
+public class SeatMapStreamService {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatMapStreamService.class);
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender;
+    private final Counter droppedSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public SeatMapStreamService(MeterRegistry meterRegistry,
+                                @Value("${reservation.stream.buffer-size:64}") int bufferSize,
+                                @Value("${reservation.stream.timeout-ms:1800000}") long timeoutMillis) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("seat-stream-sender-", 0).factory());
+        Gauge.builder("reservation.seat.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open seat-map SSE subscriptions")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("reservation.seat.stream.dropped")
+                .description("Seat-map subscribers disconnected because their buffer overflowed")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    public SseEmitter subscribe(Long screeningId, Supplier<SeatMapDTO> snapshot) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(screeningId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.compute(screeningId, (id, screeningSubscribers) -> {
+            Set<Subscriber> result = screeningSubscribers != null ? screeningSubscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        subscriberCount.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Migawka dopiero po rejestracji: zmiany zatwierdzone w międzyczasie czekają w buforze
+        SeatMapDTO initialSnapshot;
+        try {
+            initialSnapshot = snapshot.get();
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        try {
+            // Emiter nie jest jeszcze podłączony do odpowiedzi, więc send() tylko odkłada zdarzenie
+            emitter.send(SseEmitter.event().name("snapshot").id(String.valueOf(initialSnapshot.getVersion())).data(initialSnapshot));
+        } catch (IOException e) {
+            remove(subscriber);
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriber.snapshotEpoch = initialSnapshot.getEpoch();
+        subscriber.snapshotVersion = initialSnapshot.getVersion();
+        subscriber.snapshotSent.set(true);
+        startDrain(subscriber);
+        return emitter;
+    }
+
+    @EventListener
+    public void onSeatStateChanged(SeatStateChangedEvent event) {
+        Set<Subscriber> screeningSubscribers = subscribers.get(event.screeningId());
+        if (screeningSubscribers == null || screeningSubscribers.isEmpty()) {
+            return;
+        }
+        List<SeatDTO> seats = event.seats().stream()
+                .map(seat -> new SeatDTO(seat.seatId(), seat.rowNumber(), seat.seatNumber()))
+                .collect(Collectors.toList());
+        SeatStateEventDTO payload = new SeatStateEventDTO(event.screeningId(), event.epoch(), event.version(), event.state().name(), seats);
+        for (Subscriber subscriber : screeningSubscribers) {
+            enqueue(subscriber, new PendingEvent(event.epoch(), event.version(), SseEmitter.event()
+                    .name(event.state().name().toLowerCase())
+                    .id(String.valueOf(event.version()))
+                    .data(payload)));
+        }
+    }
+
+    // Komentarz SSE co jakiś czas wykrywa zerwane połączenia i utrzymuje je przy życiu przez proxy
+    @Scheduled(fixedRateString = "${reservation.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(screeningSubscribers ->
+                screeningSubscribers.forEach(subscriber -> enqueue(subscriber, new PendingEvent(null, PendingEvent.UNVERSIONED, SseEmitter.event().comment("heartbeat")))));
+    }
+
+    private void enqueue(Subscriber subscriber, PendingEvent event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.buffer.offer(event)) {
+            LOG.info("Dropping slow seat-map subscriber for screening ID: {} (buffer of {} events is full).", subscriber.screeningId, bufferSize);
+            droppedSubscribers.increment();
+            remove(subscriber);
+            // complete() czeka na trwające send(), więc nie może blokować wątku publikującego zdarzenie
+            sender.execute(subscriber.emitter::complete);
+            return;
+        }
+        startDrain(subscriber);
+    }
+
+    // Bufor jest opróżniany dopiero po wysłaniu migawki
+    private void startDrain(Subscriber subscriber) {
+        if (subscriber.snapshotSent.get() && subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            PendingEvent event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                if (event.epoch() != null && !event.epoch().equals(subscriber.snapshotEpoch)) {
+                    // Mapa przebudowana po migawce - wersje nieporównywalne; klient połączy się ponownie po nową migawkę
+                    LOG.debug("Seat map of screening ID: {} was rebuilt. Closing stream to force a new snapshot.", subscriber.screeningId);
+                    remove(subscriber);
+                    subscriber.emitter.complete();
+                    return;
+                }
+                // Zmiana zatwierdzona przed zbudowaniem migawki jest już w niej uwzględniona
+                if (event.version() == PendingEvent.UNVERSIONED || event.version() > subscriber.snapshotVersion) {
+                    subscriber.emitter.send(event.event());
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Seat-map subscriber for screening ID: {} disconnected: {}", subscriber.screeningId, e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } catch (IllegalStateException e) {
+            // Emiter został już zakończony (timeout, rozłączenie albo przepełnienie bufora)
+            remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Zdarzenie mogło zostać dodane między ostatnim poll() a zwolnieniem flagi
+        if (!subscriber.buffer.isEmpty()) {
+            startDrain(subscriber);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscriber.buffer.clear();
+        subscribers.computeIfPresent(subscriber.screeningId, (id, screeningSubscribers) -> {
+            screeningSubscribers.remove(subscriber);
+            return screeningSubscribers.isEmpty() ? null : screeningSubscribers;
+        });
+    }
+
+    private static final class Subscriber {
+        private final Long screeningId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<PendingEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean snapshotSent = new AtomicBoolean();
+        // Zapisywane przed ustawieniem snapshotSent, które publikuje je wątkowi opróżniającemu bufor
+        private String snapshotEpoch;
+        private long snapshotVersion;
+
+        private Subscriber(Long screeningId, SseEmitter emitter, BlockingQueue<PendingEvent> buffer) {
+            this.screeningId = screeningId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+
+    private record PendingEvent(String epoch, long version, SseEmitter.SseEventBuilder event) {
+        private static final long UNVERSIONED = -1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.reservation_benchmark;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wiersz o kształcie rezerwacji z kluczem IDENTITY - punkt odniesienia dla {@link IdGenerationBenchmarkTest}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "benchmark_identity_rows")
+public class BenchmarkIdentityRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long screeningId;
+    private String customerEmail;
+    private LocalDateTime reservationTime;
+}
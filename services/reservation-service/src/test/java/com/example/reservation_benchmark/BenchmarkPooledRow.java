@@ -0,0 +1,25 @@
+package com.example.reservation_benchmark;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ten sam kształt co {@link BenchmarkIdentityRow}, z kluczem z sekwencji jak w encjach serwisu.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "benchmark_pooled_rows")
+public class BenchmarkPooledRow {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benchmark_pooled_rows_seq")
+    @SequenceGenerator(name = "benchmark_pooled_rows_seq", sequenceName = "benchmark_pooled_rows_seq", allocationSize = 50)
+    private Long id;
+
+    private Long screeningId;
+    private String customerEmail;
+    private LocalDateTime reservationTime;
+}
@@ -0,0 +1,108 @@
+package com.example.reservation_benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.example.testsupport.QueryBudget;
+import org.example.testsupport.QueryBudgetConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Przepustowość insertów: klucz IDENTITY kontra sekwencja z pulą (allocationSize = 50) przy
+ * hibernate.jdbc.batch_size = 50. Uruchamiany na żądanie: {@code mvn test -Dbenchmark=true -Dtest=IdGenerationBenchmarkTest}.
+ * Leży poza pakietem aplikacji z własną konfiguracją, więc encje benchmarku nie trafiają do pozostałych testów {@code @DataJpaTest}.
+ */
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdGenerationBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(IdGenerationBenchmarkTest.class);
+    private static final int ROWS = 20_000;
+    private static final int FLUSH_EVERY = 500;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void pooledSequenceBatchesInserts() {
+        LocalDateTime now = LocalDateTime.now();
+        IntFunction<Object> identityRow = i -> {
+            BenchmarkIdentityRow row = new BenchmarkIdentityRow();
+            row.setScreeningId((long) (i % 40));
+            row.setCustomerEmail("customer" + i + "@example.com");
+            row.setReservationTime(now);
+            return row;
+        };
+        IntFunction<Object> pooledRow = i -> {
+            BenchmarkPooledRow row = new BenchmarkPooledRow();
+            row.setScreeningId((long) (i % 40));
+            row.setCustomerEmail("customer" + i + "@example.com");
+            row.setReservationTime(now);
+            return row;
+        };
+
+        // Rozgrzewka JIT i puli połączeń
+        insert(identityRow, FLUSH_EVERY);
+        insert(pooledRow, FLUSH_EVERY);
+
+        Result identity = best(identityRow);
+        Result pooled = best(pooledRow);
+        LOG.info("IDENTITY: {} rows in {} ms ({} rows/s, {} statements)",
+                ROWS, identity.time().toMillis(), Math.round(identity.rowsPerSecond()), identity.statements());
+        LOG.info("SEQUENCE pooled: {} rows in {} ms ({} rows/s, {} statements)",
+                ROWS, pooled.time().toMillis(), Math.round(pooled.rowsPerSecond()), pooled.statements());
+
+        assertTrue(pooled.statements() * 10 < identity.statements(),
+                "Pooled ids should let inserts go out in JDBC batches");
+    }
+
+    private Result best(IntFunction<Object> rowFactory) {
+        Result best = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            QueryBudget budget = QueryBudget.measure(() -> insert(rowFactory, ROWS));
+            Result result = new Result(Duration.ofNanos(System.nanoTime() - start), budget.count());
+            if (best == null || result.time().compareTo(best.time()) < 0) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    private void insert(IntFunction<Object> rowFactory, int rows) {
+        for (int i = 0; i < rows; i++) {
+            entityManager.persist(rowFactory.apply(i));
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Zastępuje konfigurację aplikacji: skanowane są tylko encje z tego pakietu
+    @SpringBootConfiguration
+    @AutoConfigurationPackage
+    static class BenchmarkApplication {
+    }
+
+    private record Result(Duration time, int statements) {
+        double rowsPerSecond() {
+            return ROWS * 1_000_000_000.0 / Math.max(time.toNanos(), 1);
+        }
+    }
+}
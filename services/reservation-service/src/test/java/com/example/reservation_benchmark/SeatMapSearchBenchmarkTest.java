@@ -0,0 +1,49 @@
+package com.example.reservation_benchmark;
+
+import com.example.reservation_service.inventory.ScreeningSeatMap;
+import com.example.reservation_service.inventory.SeatPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Czas wyszukiwania najlepszego ciągu miejsc w rozdrobnionej sali 60x60 (co trzecie miejsce zajęte).
+ * Uruchamiany na żądanie: {@code mvn test -Dbenchmark=true -Dtest=SeatMapSearchBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SeatMapSearchBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(SeatMapSearchBenchmarkTest.class);
+    private static final int WARMUP = 10_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Test
+    void searchStaysUnderMillisecondOnFragmentedLargeHall() {
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(1L, 60, 60);
+        List<SeatPosition> taken = new ArrayList<>();
+        for (int row = 1; row <= 60; row++) {
+            for (int seat = 1; seat <= 60; seat += 3) {
+                taken.add(new SeatPosition(null, row, seat));
+            }
+        }
+        seatMap.tryClaim(taken);
+
+        // Rozgrzewka JIT
+        for (int i = 0; i < WARMUP; i++) {
+            seatMap.findBestRun(2, 30, 1.0);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            seatMap.findBestRun(3, 30, 1.0);
+        }
+        long averageNanos = (System.nanoTime() - start) / ITERATIONS;
+        LOG.info("Best-run search on fragmented 60x60 hall: {} ns/search", averageNanos);
+
+        assertTrue(averageNanos < 1_000_000, "Average search took " + averageNanos + " ns");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.reservation_service.expiry;
+
+import com.example.reservation_service.repository.ReservationRepository;
+import com.example.reservation_service.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationExpirySweeperTest {
+    private final ReservationService reservationService = mock(ReservationService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReservationExpiryIndex expiryIndex = new ReservationExpiryIndex(20, meterRegistry);
+    private ReservationExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new ReservationExpirySweeper(expiryIndex, mock(ReservationRepository.class), reservationService, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 10);
+        ReflectionTestUtils.setField(sweeper, "maxAttempts", 3);
+        ReflectionTestUtils.setField(sweeper, "retryDelayMillis", 60_000L);
+    }
+
+    private void due(Long... reservationIds) {
+        // Kolejne terminy co sekundę, aby kolejność w partii była deterministyczna
+        LocalDateTime overdue = LocalDateTime.now().minusMinutes(30);
+        for (int i = 0; i < reservationIds.length; i++) {
+            expiryIndex.addAll(List.of(expiryIndex.deadlineFor(reservationIds[i], overdue.plusSeconds(i))));
+        }
+    }
+
+    @Test
+    void expiresDueReservationsInOneBatch() {
+        due(1L, 2L, 3L);
+        when(reservationService.expireReservations(anyList())).thenReturn(3);
+
+        sweeper.sweep();
+
+        verify(reservationService).expireReservations(List.of(1L, 2L, 3L));
+        assertEquals(0, expiryIndex.size());
+        assertEquals(3, meterRegistry.counter("reservation.expiry.expired").count());
+    }
+
+    @Test
+    void failingBatchIsRetriedOneByOneAndOnlyTheFailingReservationWaits() {
+        due(1L, 2L, 3L);
+        when(reservationService.expireReservations(List.of(1L, 2L, 3L))).thenThrow(new IllegalStateException("Boom"));
+        when(reservationService.expireReservations(List.of(1L))).thenReturn(1);
+        when(reservationService.expireReservations(List.of(2L))).thenThrow(new IllegalStateException("Boom"));
+        when(reservationService.expireReservations(List.of(3L))).thenReturn(1);
+
+        sweeper.sweep();
+
+        assertEquals(2, meterRegistry.counter("reservation.expiry.expired").count());
+        // Ponowienie z opóźnieniem - nie jest od razu wymagalne
+        assertEquals(1, expiryIndex.size());
+        assertTrue(expiryIndex.pollDue(System.currentTimeMillis(), 10).isEmpty());
+        List<ReservationExpiryIndex.Deadline> retried = expiryIndex.pollDue(System.currentTimeMillis() + 61_000, 10);
+        assertEquals(2L, retried.get(0).reservationId());
+        assertEquals(1, retried.get(0).attempts());
+    }
+
+    @Test
+    void reservationThatKeepsFailingIsDroppedAfterMaxAttempts() {
+        ReflectionTestUtils.setField(sweeper, "retryDelayMillis", 0L);
+        due(7L);
+        when(reservationService.expireReservations(List.of(7L))).thenThrow(new IllegalStateException("Boom"));
+
+        for (int run = 0; run < 5; run++) {
+            sweeper.sweep();
+        }
+
+        verify(reservationService, times(3)).expireReservations(List.of(7L));
+        assertEquals(0, expiryIndex.size());
+        assertEquals(1, meterRegistry.counter("reservation.expiry.dead_lettered").count());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.reservation_service.hold;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void expiresOnDeadlineTickAndNotBefore() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("hold-1", 450);
+
+        assertTrue(wheel.advance(400).isEmpty());
+        assertEquals(List.of("hold-1"), wheel.advance(500));
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(10_000).isEmpty());
+    }
+
+    @Test
+    void cascadesDistantDeadlinesDownToTheExactTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, 0);
+        // 8 * 8 ticków poziomu 0 - wpis startuje na poziomie 2
+        wheel.schedule("far", 6_450);
+        wheel.schedule("near", 300);
+
+        assertEquals(List.of("near"), wheel.advance(6_400));
+        assertEquals(List.of("far"), wheel.advance(6_500));
+    }
+
+    @Test
+    void deadlineBeyondTheWheelRangeIsKeptUntilDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 4, 2, 0);
+        // Zasięg koła to 16 ticków; wpis jest przeplanowywany przy każdej kaskadzie
+        wheel.schedule("later", 5_000);
+
+        assertTrue(wheel.advance(4_900).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(5_000));
+    }
+
+    @Test
+    void holdConvertedToReservationNeverExpires() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("converted", 300);
+        wheel.schedule("abandoned", 300);
+
+        assertTrue(wheel.cancel("converted"));
+        assertFalse(wheel.cancel("converted"));
+        assertEquals(List.of("abandoned"), wheel.advance(1_000));
+    }
+
+    @Test
+    void reschedulingReplacesThePreviousDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, 0);
+        wheel.schedule("hold", 300);
+        wheel.schedule("hold", 2_000);
+
+        assertTrue(wheel.advance(1_900).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("hold"), wheel.advance(2_000));
+    }
+
+    @Test
+    void restoredWheelStartsAtCurrentTimeAndExpiresOverdueHoldsOnFirstTick() {
+        long now = 1_000_000;
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 3, now);
+        wheel.schedule("overdue", now - 5_000);
+        wheel.schedule("active", now + 1_000);
+
+        assertEquals(List.of("overdue"), wheel.advance(now + 100));
+        assertEquals(List.of("active"), wheel.advance(now + 1_000));
+    }
+}
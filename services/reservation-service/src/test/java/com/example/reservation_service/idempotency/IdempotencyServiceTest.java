@@ -0,0 +1,153 @@
+package com.example.reservation_service.idempotency;
+
+import com.example.reservation_service.entity.IdempotencyRecord;
+import com.example.reservation_service.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.commons.dto.CreateReservationDTO;
+import org.example.commons.dto.ReservationDTO;
+import org.example.commons.exception.ReservationConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Każda instancja serwisu ma własny cache i mapę żądań w toku, więc dwie instancje odwzorowują dwa węzły
+ * współdzielące tylko tabelę idempotency_keys.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        recordRepository.deleteAll();
+    }
+
+    private IdempotencyService service() {
+        IdempotencyService service = new IdempotencyService(recordRepository, new TransactionTemplate(transactionManager),
+                new ObjectMapper().findAndRegisterModules(), 100);
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        ReflectionTestUtils.setField(service, "waitTimeoutMs", 1_000L);
+        return service;
+    }
+
+    private Supplier<ReservationDTO> reservation(long id) {
+        return () -> {
+            executions.incrementAndGet();
+            ReservationDTO dto = new ReservationDTO();
+            dto.setId(id);
+            dto.setCustomerEmail("jan@example.com");
+            return dto;
+        };
+    }
+
+    private static CreateReservationDTO request(Long... seatIds) {
+        return new CreateReservationDTO(1L, 10L, "Jan Kowalski", "jan@example.com", List.of(seatIds), null);
+    }
+
+    @Test
+    void duplicateKeyOnAnotherInstanceReplaysTheStoredResponse() {
+        ReservationDTO first = service().execute("key-1", request(1L, 2L), reservation(100L));
+        ReservationDTO replayed = service().execute("key-1", request(1L, 2L), reservation(200L));
+
+        assertEquals(100L, first.getId());
+        assertEquals(100L, replayed.getId());
+        assertEquals(1, executions.get());
+        assertThrows(ReservationConflictException.class,
+                () -> service().execute("key-1", request(3L), reservation(300L)));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedActionReleasesTheClaimedKey() {
+        IdempotencyService service = service();
+
+        assertThrows(IllegalStateException.class, () -> service.execute("key-2", request(1L), () -> {
+            throw new IllegalStateException("Seats taken");
+        }));
+
+        assertFalse(recordRepository.existsById("key-2"));
+        assertEquals(100L, service.execute("key-2", request(1L), reservation(100L)).getId());
+    }
+
+    @Test
+    void concurrentKeyOnTwoInstancesCreatesOneReservation() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CompletableFuture<ReservationDTO> first = CompletableFuture.supplyAsync(() ->
+                service().execute("key-3", request(1L), () -> {
+                    claimed.countDown();
+                    // Klucz jest już zajęty, a transakcja jeszcze niezatwierdzona
+                    sleep(300);
+                    return reservation(100L).get();
+                }));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+        ReservationDTO second;
+        try {
+            second = service().execute("key-3", request(1L), reservation(200L));
+        } catch (ReservationConflictException e) {
+            // Blokada klucza przekroczyła limit czasu bazy - klient ponowi żądanie
+            second = null;
+        }
+
+        assertEquals(100L, first.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(1, executions.get());
+        if (second != null) {
+            assertEquals(100L, second.getId());
+        }
+        assertEquals(100L, service().execute("key-3", request(1L), reservation(300L)).getId());
+    }
+
+    @Test
+    void expiredKeyIsReleasedAndExecutedAgain() {
+        LocalDateTime now = LocalDateTime.now();
+        service().execute("key-4", request(1L), reservation(100L));
+        IdempotencyRecord stored = recordRepository.findById("key-4").orElseThrow();
+        stored.setCreatedAt(now.minusHours(25));
+        stored.setExpiresAt(now.minusHours(1));
+        recordRepository.save(stored);
+
+        ReservationDTO fresh = service().execute("key-4", request(2L), reservation(200L));
+
+        assertEquals(200L, fresh.getId());
+        assertEquals(2, executions.get());
+        IdempotencyRecord replaced = recordRepository.findById("key-4").orElseThrow();
+        assertEquals(200L, replaced.getReservationId());
+        assertTrue(replaced.getExpiresAt().isAfter(now));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
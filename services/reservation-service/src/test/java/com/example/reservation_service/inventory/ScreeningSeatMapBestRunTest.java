@@ -0,0 +1,69 @@
+package com.example.reservation_service.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScreeningSeatMapBestRunTest {
+
+    @Test
+    void prefersCentralRunInPreferredRow() {
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(1L, 10, 20);
+
+        ScreeningSeatMap.RunCandidate run = seatMap.findBestRun(4, 6, 1.0);
+
+        assertEquals(6, run.rowNumber());
+        assertEquals(9, run.firstSeatNumber());
+    }
+
+    @Test
+    void shiftsWithinRunAndSkipsRowsWithoutEnoughFreeSeats() {
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(1L, 3, 10);
+        // Rząd 2: wolne tylko miejsca 1-3 i 7-10
+        seatMap.tryClaim(List.of(new SeatPosition(null, 2, 4), new SeatPosition(null, 2, 5), new SeatPosition(null, 2, 6)));
+
+        ScreeningSeatMap.RunCandidate pair = seatMap.findBestRun(2, 2, 1.0);
+        assertEquals(2, pair.rowNumber());
+        assertEquals(7, pair.firstSeatNumber());
+
+        ScreeningSeatMap.RunCandidate group = seatMap.findBestRun(5, 2, 1.0);
+        assertTrue(group.rowNumber() != 2);
+        assertEquals(4, group.firstSeatNumber());
+    }
+
+    @Test
+    void blockedSeatsBreakRunsAndFullHallYieldsNothing() {
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(1L, 1, 6);
+        seatMap.block(1, 3);
+        assertNull(seatMap.findBestRun(4, 1, 1.0));
+        assertEquals(4, seatMap.findBestRun(3, 1, 1.0).firstSeatNumber());
+
+        seatMap.release(List.of(new SeatPosition(null, 1, 3)));
+        assertNull(seatMap.findBestRun(6, 1, 1.0));
+    }
+
+    @Test
+    void fragmentedLargeHallOffersOnlyRunsThatFitBetweenTakenSeats() {
+        // Czas wyszukiwania mierzy SeatMapSearchBenchmarkTest (uruchamiany na żądanie)
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(1L, 60, 60);
+        List<SeatPosition> taken = new ArrayList<>();
+        for (int row = 1; row <= 60; row++) {
+            for (int seat = 1; seat <= 60; seat += 3) {
+                taken.add(new SeatPosition(null, row, seat));
+            }
+        }
+        seatMap.tryClaim(taken);
+
+        // Zajęte miejsca 1, 4, 7, ... zostawiają wolne tylko pary
+        assertNull(seatMap.findBestRun(3, 30, 1.0));
+        ScreeningSeatMap.RunCandidate pair = seatMap.findBestRun(2, 30, 1.0);
+        assertEquals(30, pair.rowNumber());
+        // Wolna para najbliżej środka rzędu (30.5): 29-30
+        assertEquals(29, pair.firstSeatNumber());
+    }
+}
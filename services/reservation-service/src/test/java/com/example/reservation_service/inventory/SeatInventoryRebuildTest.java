@@ -0,0 +1,129 @@
+package com.example.reservation_service.inventory;
+
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.repository.ReservedSeatRepository;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatInventoryRebuildTest {
+    // Sala 2x3, ID miejsc 11-13 i 21-23
+    private static final SeatLayout LAYOUT = new SeatLayout(7L, 1, 2, 3, new long[]{11, 12, 13, 21, 22, 23});
+
+    private final ScreeningInfoRepository screeningInfoRepository = mock(ScreeningInfoRepository.class);
+    private final HallLayoutService hallLayoutService = mock(HallLayoutService.class);
+    private final ReservedSeatRepository reservedSeatRepository = mock(ReservedSeatRepository.class);
+    private final SeatClaimRepository seatClaimRepository = mock(SeatClaimRepository.class);
+    private final ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), BigDecimal.TEN, 3L, "Film", 7L, 1, 2, 3);
+
+    private SeatInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        when(screeningInfoRepository.findAll()).thenReturn(List.of(screening));
+        when(screeningInfoRepository.findById(1L)).thenReturn(Optional.of(screening));
+        when(hallLayoutService.findLayout(screening)).thenReturn(Optional.of(LAYOUT));
+        when(hallLayoutService.getBlockedSeatIds(1L)).thenReturn(List.of());
+        when(reservedSeatRepository.findActiveSeats(any())).thenReturn(List.of(new ActiveSeat(1L, 1, 1)));
+        when(reservedSeatRepository.findActiveSeatsByScreeningId(eq(1L), any())).thenReturn(List.of(new ActiveSeat(1L, 1, 1)));
+        inventory = new SeatInventory(screeningInfoRepository, hallLayoutService, reservedSeatRepository,
+                seatClaimRepository, mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    void rebuildMarksReservedAndUnexpiredHeldSeats() {
+        when(seatClaimRepository.findHeldSeats(any())).thenReturn(List.of(new HeldSeat(1L, 22L), new HeldSeat(9L, 11L)));
+
+        inventory.rebuild();
+
+        ScreeningSeatMap seatMap = inventory.findSeatMap(1L).orElseThrow();
+        assertTrue(seatMap.isTaken(seatMap.indexOf(1, 1)));
+        assertTrue(seatMap.isTaken(seatMap.indexOf(2, 2)));
+        assertEquals(4, seatMap.getAvailableCount());
+        // Blokada miejsca po restarcie nadal odrzuca konkurencyjną rezerwację
+        assertEquals(List.of(new SeatPosition(22L, 2, 2)),
+                inventory.tryReserve(screening, List.of(new SeatPosition(22L, 2, 2)), SeatState.RESERVED));
+    }
+
+    @Test
+    void lazilyLoadedSeatMapIncludesHeldSeats() {
+        when(seatClaimRepository.findHeldSeats(any())).thenReturn(List.of());
+        when(seatClaimRepository.findHeldSeatIds(anyLong(), any())).thenReturn(List.of(13L));
+        inventory.rebuild();
+
+        inventory.evict(1L);
+        ScreeningSeatMap seatMap = inventory.getSeatMap(screening);
+
+        assertTrue(seatMap.isTaken(seatMap.indexOf(1, 3)));
+        assertFalse(seatMap.isTaken(seatMap.indexOf(2, 3)));
+    }
+
+    @Test
+    void versionFromAnEvictedMapForcesAFullSnapshot() {
+        when(seatClaimRepository.findHeldSeats(any())).thenReturn(List.of());
+        inventory.rebuild();
+        ScreeningSeatMap previous = inventory.findSeatMap(1L).orElseThrow();
+        // Zajęty ruchem seans wyprzedza zegar - nowa mapa może zacząć numerację poniżej wersji klienta
+        for (int i = 0; i < 50; i++) {
+            previous.tryClaim(List.of(new SeatPosition(23L, 2, 3)));
+            previous.release(List.of(new SeatPosition(23L, 2, 3)));
+        }
+        String clientEpoch = previous.getEpoch();
+        long clientVersion = previous.getVersion();
+
+        inventory.evict(1L);
+        ScreeningSeatMap rebuilt = inventory.getSeatMap(screening);
+
+        assertNull(rebuilt.changesSince(clientEpoch, clientVersion));
+        assertNull(rebuilt.changesSince(clientEpoch, rebuilt.getVersion()));
+        assertEquals(List.of(), rebuilt.changesSince(rebuilt.getEpoch(), rebuilt.getVersion()));
+    }
+
+    private record ActiveSeat(Long screeningId, int rowNumber, int seatNumber) implements ReservedSeatRepository.ActiveSeatView {
+        @Override
+        public Long getScreeningId() {
+            return screeningId;
+        }
+
+        @Override
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        @Override
+        public int getSeatNumber() {
+            return seatNumber;
+        }
+    }
+
+    private record HeldSeat(Long screeningId, Long seatId) implements SeatClaimRepository.HeldSeatView {
+        @Override
+        public Long getScreeningId() {
+            return screeningId;
+        }
+
+        @Override
+        public Long getSeatId() {
+            return seatId;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.reservation_service.kafka.consumer;
+
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.repository.HallLayoutRepository;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.commons.dto.HallDTO;
+import org.example.commons.dto.MovieDTO;
+import org.example.commons.dto.ScreeningDTO;
+import org.example.commons.dto.SeatDTO;
+import org.example.commons.events.ScreeningCreatedEvent;
+import org.example.testsupport.QueryBudget;
+import org.example.testsupport.QueryBudgetConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@Import({QueryBudgetConfiguration.class, HallLayoutService.class})
+class ScreeningEventsConsumerQueryBudgetTest {
+
+    private static final int ROWS = 20;
+    private static final int SEATS_PER_ROW = 25;
+
+    @Autowired
+    private ScreeningInfoRepository screeningInfoRepository;
+
+    @Autowired
+    private HallLayoutRepository hallLayoutRepository;
+
+    @Autowired
+    private HallLayoutService hallLayoutService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScreeningEventsConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        consumer = new ScreeningEventsConsumer(screeningInfoRepository, hallLayoutService,
+                mock(ReservationService.class), mock(SeatInventory.class), meterRegistry);
+    }
+
+    @Test
+    void storesHallLayoutOnceInsteadOfCopyingSeats() {
+        QueryBudget.measure(() -> {
+            consumer.handleScreeningCreated(screeningCreatedEvent(7L, 1L));
+            entityManager.flush();
+        }).assertAtMost(4);
+        entityManager.clear();
+
+        ScreeningInfo screening = screeningInfoRepository.findById(7L).orElseThrow();
+        SeatLayout layout = hallLayoutService.getLayout(screening);
+        assertEquals(1, screening.getLayoutVersion());
+        assertEquals(ROWS * SEATS_PER_ROW, layout.allSeats().size());
+        assertEquals(3, layout.position(53L).rowNumber());
+        assertEquals(3, layout.position(53L).seatNumber());
+        assertEquals(1, meterRegistry.counter("reservation.hall_layout.created").count());
+    }
+
+    @Test
+    void nextScreeningInSameHallReusesLayout() {
+        consumer.handleScreeningCreated(screeningCreatedEvent(8L, 2L));
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryBudget.measure(() -> {
+            consumer.handleScreeningCreated(screeningCreatedEvent(9L, 2L));
+            entityManager.flush();
+        }).assertAtMost(3);
+
+        // Nowe wersje są zatwierdzane we własnej transakcji, więc sprawdzamy tylko salę tego testu
+        assertEquals(1, hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(2L).orElseThrow().getVersion());
+        assertEquals(1, screeningInfoRepository.findById(9L).orElseThrow().getLayoutVersion());
+    }
+
+    @Test
+    void redeliveredEventDoesNotStoreLayoutAgain() {
+        ScreeningCreatedEvent event = screeningCreatedEvent(10L, 3L);
+        consumer.handleScreeningCreated(event);
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryBudget.measure(() -> {
+            consumer.handleScreeningCreated(event);
+            entityManager.flush();
+        }).assertAtMost(3);
+
+        assertEquals(1, hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(3L).orElseThrow().getVersion());
+        assertEquals(1, meterRegistry.counter("reservation.hall_layout.created").count());
+        assertEquals(1, meterRegistry.counter("reservation.hall_layout.reused").count());
+    }
+
+    private ScreeningCreatedEvent screeningCreatedEvent(Long screeningId, Long hallId) {
+        List<SeatDTO> seats = new ArrayList<>();
+        for (int row = 1; row <= ROWS; row++) {
+            for (int seat = 1; seat <= SEATS_PER_ROW; seat++) {
+                seats.add(new SeatDTO((long) (row - 1) * SEATS_PER_ROW + seat, row, seat));
+            }
+        }
+        ScreeningDTO screening = new ScreeningDTO(screeningId, LocalDateTime.now().plusDays(2), new BigDecimal("30.00"),
+                new MovieDTO(5L, "Oppenheimer"), new HallDTO(hallId, 1, ROWS, SEATS_PER_ROW), seats);
+        return new ScreeningCreatedEvent(screening);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.reservation_service.layout;
+
+import com.example.reservation_service.entity.HallLayout;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.repository.HallLayoutRepository;
+import com.example.reservation_service.repository.ScreeningBlockedSeatRepository;
+import org.example.commons.dto.HallDTO;
+import org.example.commons.dto.SeatDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HallLayoutServiceTest {
+    private static final HallDTO HALL = new HallDTO(5L, 1, 1, 2);
+    private static final List<SeatDTO> SEATS = List.of(new SeatDTO(1L, 1, 1), new SeatDTO(2L, 1, 2));
+
+    private final HallLayoutRepository hallLayoutRepository = mock(HallLayoutRepository.class);
+    private final HallLayoutService service = new HallLayoutService(hallLayoutRepository,
+            mock(ScreeningBlockedSeatRepository.class), mock(PlatformTransactionManager.class), 60_000);
+
+    @Test
+    void storesNextVersionWhenSeatsChanged() {
+        when(hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(5L)).thenReturn(Optional.of(layout(1, 1L, 3L)));
+        when(hallLayoutRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        HallLayoutService.Registration registration = service.registerLayout(HALL, SEATS);
+
+        assertEquals(2, registration.version());
+        assertTrue(registration.created());
+    }
+
+    @Test
+    void versionTakenConcurrentlyIsReadAgainAndReused() {
+        // Inna instancja zapisała wersję 2 z tymi samymi miejscami między naszym odczytem a zapisem
+        when(hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(5L))
+                .thenReturn(Optional.of(layout(1, 1L, 3L)), Optional.of(layout(2, 1L, 2L)));
+        when(hallLayoutRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("PK_HALL_LAYOUTS"));
+
+        HallLayoutService.Registration registration = service.registerLayout(HALL, SEATS);
+
+        assertEquals(2, registration.version());
+        assertFalse(registration.created());
+        verify(hallLayoutRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void givesUpAfterRepeatedConflicts() {
+        when(hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(5L)).thenReturn(Optional.of(layout(1, 1L, 3L)));
+        when(hallLayoutRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("PK_HALL_LAYOUTS"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.registerLayout(HALL, SEATS));
+        verify(hallLayoutRepository, times(3)).saveAndFlush(any());
+    }
+
+    @Test
+    void latestLayoutOfUnversionedScreeningIsCached() {
+        when(hallLayoutRepository.findFirstByHallIdOrderByVersionDesc(5L)).thenReturn(Optional.of(layout(1, 1L, 2L)));
+        ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), BigDecimal.TEN, 3L, "Film", 5L, 1, 1, 2);
+
+        SeatLayout first = service.getLayout(screening);
+        SeatLayout second = service.getLayout(screening);
+
+        assertEquals(1, first.getVersion());
+        assertEquals(first, second);
+        verify(hallLayoutRepository, times(1)).findFirstByHallIdOrderByVersionDesc(5L);
+    }
+
+    private static HallLayout layout(int version, long... seatIds) {
+        return HallLayout.builder()
+                .hallId(5L)
+                .version(version)
+                .rows(1)
+                .seatsPerRow(seatIds.length)
+                .seatIds(SeatLayout.encode(seatIds))
+                .newLayout(false)
+                .build();
+    }
+}
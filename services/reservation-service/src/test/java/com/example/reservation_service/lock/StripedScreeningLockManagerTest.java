@@ -0,0 +1,119 @@
+package com.example.reservation_service.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dwa pasma: seanse 2 i 4 trafiają do pasma 0, seanse 1 i 5 do pasma 1.
+ */
+class StripedScreeningLockManagerTest {
+    private final StripedScreeningLockManager manager =
+            new StripedScreeningLockManager(2, 2_000, new ScreeningLockMetrics(new SimpleMeterRegistry()));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void lockAllTakesStripesInAscendingOrderNotByScreeningId() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> inTransaction(() -> {
+            manager.lock(5L);
+            held.countDown();
+            await(release);
+        }));
+        held.await();
+
+        Future<?> basket = executor.submit(() -> inTransaction(() -> manager.lockAll(List.of(1L, 2L))));
+
+        // Koszyk trzyma już pasmo 0 i czeka na pasmo 1; w kolejności ID czekałby na pasmo 1 z pustymi rękami,
+        // a koszyk {4, 5} mógłby wtedy wziąć pasmo 0 i oba czekałyby do limitu czasu
+        assertTrue(eventually(() -> !lockableElsewhere(4L)), "Basket should hold stripe 0 while waiting for stripe 1");
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        basket.get(5, TimeUnit.SECONDS);
+        assertTrue(lockableElsewhere(4L));
+        assertTrue(lockableElsewhere(5L));
+    }
+
+    @Test
+    void screeningsSharingAStripeAreLockedOnceAndReleasedTogether() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> basket = executor.submit(() -> inTransaction(() -> {
+            manager.lockAll(List.of(1L, 5L, 2L));
+            held.countDown();
+            await(release);
+        }));
+        held.await();
+
+        assertFalse(lockableElsewhere(1L));
+        assertFalse(lockableElsewhere(2L));
+
+        release.countDown();
+        basket.get(5, TimeUnit.SECONDS);
+        assertTrue(lockableElsewhere(1L));
+        assertTrue(lockableElsewhere(2L));
+    }
+
+    private boolean lockableElsewhere(Long screeningId) throws Exception {
+        return executor.submit(() -> {
+            boolean[] acquired = new boolean[1];
+            inTransaction(() -> acquired[0] = manager.tryLock(screeningId, 0));
+            return acquired[0];
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static boolean eventually(CheckedCondition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.holds()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Synchronizacja transakcji bez menedżera - afterCompletion zwalnia pasma jak przy COMMIT
+    private static void inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+    }
+
+    @FunctionalInterface
+    private interface CheckedCondition {
+        boolean holds() throws Exception;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.dto.ReservationSummaryDTO;
+import com.example.reservation_service.entity.Reservation;
+import org.example.commons.enums.ReservationStatus;
+import org.example.testsupport.QueryBudget;
+import org.example.testsupport.QueryBudgetConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(QueryBudgetConfiguration.class)
+class ReservationSearchRepositoryTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void pagesThroughFilteredReservationsByKey() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 12, 0);
+        for (int i = 0; i < 12; i++) {
+            persist(i % 2 == 0 ? 1L : 2L, i % 3 == 0 ? ReservationStatus.CANCELLED : ReservationStatus.CONFIRMED, base.plusMinutes(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ReservationSearchCriteria criteria = new ReservationSearchCriteria(1L, Set.of(ReservationStatus.CONFIRMED), null, null, null);
+        QueryBudget budget = QueryBudget.measure(() -> {
+            List<ReservationSummaryDTO> first = reservationRepository.search(criteria, null, 2);
+            List<ReservationSummaryDTO> second = reservationRepository.search(criteria, first.get(1).getId(), 2);
+
+            assertEquals(2, first.size());
+            assertEquals(2, second.size());
+            assertTrue(first.get(1).getId() < second.get(0).getId());
+            assertTrue(second.stream().allMatch(row -> row.getScreeningId() == 1L && row.getStatus() == ReservationStatus.CONFIRMED));
+        });
+        // Jedno zapytanie na stronę, bez ładowania miejsc rezerwacji
+        budget.assertExactly(2);
+    }
+
+    @Test
+    void filtersByTimeWindowAndEmail() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 12, 0);
+        for (int i = 0; i < 6; i++) {
+            persist(1L, ReservationStatus.PENDING_PAYMENT, base.plusHours(i));
+        }
+        entityManager.flush();
+
+        List<ReservationSummaryDTO> rows = reservationRepository.search(new ReservationSearchCriteria(
+                null, null, "jan@example.com", base.plusHours(1), base.plusHours(4)), null, 10);
+
+        assertEquals(3, rows.size());
+    }
+
+    private void persist(Long screeningId, ReservationStatus status, LocalDateTime reservationTime) {
+        Reservation reservation = new Reservation();
+        reservation.setScreeningId(screeningId);
+        reservation.setCustomerName("Jan Kowalski");
+        reservation.setCustomerEmail("jan@example.com");
+        reservation.setReservationTime(reservationTime);
+        reservation.setStatus(status);
+        reservation.setTotalAmount(new BigDecimal("25.00"));
+        entityManager.persist(reservation);
+    }
+}
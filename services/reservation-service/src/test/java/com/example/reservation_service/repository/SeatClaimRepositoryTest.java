@@ -0,0 +1,69 @@
+package com.example.reservation_service.repository;
+
+import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.entity.ReservedSeat;
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.inventory.SeatInventory;
+import org.example.commons.enums.ReservationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class SeatClaimRepositoryTest {
+
+    @Autowired
+    private SeatClaimRepository seatClaimRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void backfillClaimsEachSeatOnceForTheEarliestActiveReservation() {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 12, 0);
+        // Starsze dane: miejsce 101 w dwóch aktywnych rezerwacjach, miejsce 102 dwa razy w jednej
+        Long first = persist(1L, ReservationStatus.CONFIRMED, base, 100L, 101L);
+        Long second = persist(1L, ReservationStatus.PENDING_PAYMENT, base.plusMinutes(1), 101L, 102L, 102L);
+        persist(1L, ReservationStatus.CANCELLED, base.minusMinutes(1), 100L, 103L);
+        Long otherScreening = persist(2L, ReservationStatus.CONFIRMED, base.plusMinutes(2), 101L);
+        entityManager.flush();
+        entityManager.clear();
+
+        int created = seatClaimRepository.backfillFromReservedSeats(SeatInventory.ACTIVE_STATUSES);
+
+        assertEquals(4, created);
+        Map<String, Long> owners = seatClaimRepository.findAll().stream()
+                .collect(Collectors.toMap(claim -> claim.getScreeningId() + ":" + claim.getSeatId(), SeatClaim::getReservationId));
+        assertEquals(Map.of("1:100", first, "1:101", first, "1:102", second, "2:101", otherScreening), owners);
+
+        // Kolejne uruchomienie nie dubluje istniejących zajęć
+        assertEquals(0, seatClaimRepository.backfillFromReservedSeats(SeatInventory.ACTIVE_STATUSES));
+    }
+
+    private Long persist(Long screeningId, ReservationStatus status, LocalDateTime reservationTime, Long... seatIds) {
+        Reservation reservation = new Reservation();
+        reservation.setScreeningId(screeningId);
+        reservation.setCustomerName("Jan Kowalski");
+        reservation.setCustomerEmail("jan@example.com");
+        reservation.setReservationTime(reservationTime);
+        reservation.setStatus(status);
+        reservation.setTotalAmount(new BigDecimal("25.00"));
+        for (Long seatId : seatIds) {
+            reservation.getSeats().add(ReservedSeat.builder()
+                    .seatId(seatId)
+                    .rowNumber(1)
+                    .seatNumber(seatId.intValue() - 99)
+                    .reservation(reservation)
+                    .build());
+        }
+        return entityManager.persist(reservation).getId();
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.client.MovieServiceClient;
+import com.example.reservation_service.client.TicketServiceClient;
+import com.example.reservation_service.dto.BasketItemDTO;
+import com.example.reservation_service.dto.BasketReservationDTO;
+import com.example.reservation_service.dto.CreateBasketReservationDTO;
+import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.entity.ReservationBasket;
+import com.example.reservation_service.entity.ReservedSeat;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.dto.ScreeningOccupancyDTO;
+import com.example.reservation_service.expiry.ReservationExpiryIndex;
+import com.example.reservation_service.inventory.ScreeningSeatMap;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.kafka.producer.MessageProducer;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.layout.SeatLayout;
+import com.example.reservation_service.lock.ScreeningLockManager;
+import org.example.commons.dto.CreateReservationDTO;
+import org.example.commons.dto.PaymentStatusDTO;
+import org.example.commons.dto.ReservationDTO;
+import org.example.commons.dto.SeatDTO;
+import org.example.commons.events.ReservationCancelledEvent;
+import org.example.commons.exception.ReservationConflictException;
+import org.example.commons.enums.PaymentStatus;
+import org.example.commons.enums.ReservationStatus;
+import org.example.testsupport.QueryBudget;
+import org.example.testsupport.QueryBudgetConfiguration;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import({ReservationService.class, ReservationReleaseService.class, SeatClaimService.class, QueryBudgetConfiguration.class})
+class ReservationServiceQueryCountTest {
+
+    private static final int SEAT_COUNT = 24;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private MovieServiceClient movieServiceClient;
+    @MockitoBean
+    private TicketServiceClient ticketServiceClient;
+    @MockitoBean
+    private MessageProducer messageProducer;
+    @MockitoBean
+    private SeatInventory seatInventory;
+    @MockitoBean
+    private ScreeningLockManager screeningLockManager;
+    @MockitoBean
+    private SeatHoldService seatHoldService;
+    @MockitoBean
+    private ScreeningCancellationService screeningCancellationService;
+    @MockitoBean
+    private HallLayoutService hallLayoutService;
+    @MockitoBean
+    private ReservationExpiryIndex reservationExpiryIndex;
+    @MockitoBean
+    private WaitlistService waitlistService;
+
+    @Test
+    void getReservationLoadsGroupBookingInSingleStatement() {
+        ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"),
+                10L, "Diuna", 3L, 3, 4, 10);
+        entityManager.persist(screening);
+
+        Reservation reservation = new Reservation();
+        reservation.setScreeningId(screening.getId());
+        reservation.setCustomerName("Jan Kowalski");
+        reservation.setCustomerEmail("jan@example.com");
+        reservation.setReservationTime(LocalDateTime.now());
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        reservation.setTotalAmount(new BigDecimal("600.00"));
+        for (int i = 0; i < SEAT_COUNT; i++) {
+            long seatId = 100L + i;
+            int row = i / 10 + 1;
+            int seat = i % 10 + 1;
+            reservation.getSeats().add(ReservedSeat.builder()
+                    .seatId(seatId)
+                    .rowNumber(row)
+                    .seatNumber(seat)
+                    .reservation(reservation)
+                    .build());
+        }
+        Long reservationId = entityManager.persistAndFlush(reservation).getId();
+        entityManager.clear();
+
+        ReservationDTO result = QueryBudget.measure(() -> reservationService.getReservation(reservationId))
+                .assertExactly(1)
+                .result();
+
+        assertEquals(SEAT_COUNT, result.getSeats().size());
+        assertEquals("Diuna", result.getScreeningDTO().getMovieDTO().getTitle());
+        assertEquals(3, result.getSeats().get(23).getRowNumber());
+    }
+
+    @Test
+    void occupancyByIdsLoadsScreeningsMissingFromMemoryInSingleStatement() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        entityManager.persist(new ScreeningInfo(1L, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        entityManager.persist(new ScreeningInfo(2L, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        ScreeningInfo inactive = new ScreeningInfo(3L, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10);
+        inactive.setActive(false);
+        entityManager.persist(inactive);
+        entityManager.flush();
+        entityManager.clear();
+
+        when(seatInventory.findLoadedSeatMap(anyLong())).thenReturn(Optional.empty());
+        when(seatInventory.findLoadedSeatMap(2L)).thenReturn(Optional.of(new ScreeningSeatMap(2L, 4, 10)));
+        when(seatInventory.getSeatMap(any())).thenAnswer(invocation ->
+                new ScreeningSeatMap(invocation.<ScreeningInfo>getArgument(0).getId(), 4, 10));
+
+        List<ScreeningOccupancyDTO> occupancy = QueryBudget.measure(() -> reservationService.getOccupancy(List.of(2L, 1L, 3L, 99L), null, null))
+                .assertExactly(1)
+                .result();
+
+        // Kolejność żądania; nieaktywny i nieistniejący seans są pomijane
+        assertEquals(List.of(2L, 1L), occupancy.stream().map(ScreeningOccupancyDTO::getScreeningId).toList());
+    }
+
+    @Test
+    void expireReservationsExpiresOnlyPendingOnesAndReleasesTheirSeats() {
+        ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"),
+                10L, "Diuna", 3L, 3, 4, 10);
+        entityManager.persist(screening);
+        Long pendingId = entityManager.persist(reservation(screening.getId(), ReservationStatus.PENDING_PAYMENT, 100L)).getId();
+        Long confirmedId = entityManager.persist(reservation(screening.getId(), ReservationStatus.CONFIRMED, 101L)).getId();
+        claim(screening.getId(), 100L, pendingId);
+        claim(screening.getId(), 101L, confirmedId);
+        entityManager.flush();
+        entityManager.clear();
+
+        int expired = reservationService.expireReservations(List.of(pendingId, confirmedId));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, expired);
+        Reservation pending = entityManager.find(Reservation.class, pendingId);
+        assertEquals(ReservationStatus.EXPIRED, pending.getStatus());
+        assertEquals(0, pending.getSeats().size());
+        assertEquals(ReservationStatus.CONFIRMED, entityManager.find(Reservation.class, confirmedId).getStatus());
+        verify(seatInventory).release(eq(screening.getId()), anyList());
+        assertEquals(List.of(confirmedId), entityManager.getEntityManager()
+                .createQuery("select c.reservationId from SeatClaim c", Long.class)
+                .getResultList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReservationCancelledEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(messageProducer).sendReservationsCancelled(events.capture());
+        assertEquals(1, events.getValue().size());
+        assertEquals(pendingId, events.getValue().get(0).getReservationId());
+        assertEquals("PAYMENT_TIMEOUT", events.getValue().get(0).getCancellationReason());
+    }
+
+    private void claim(Long screeningId, Long seatId, Long reservationId) {
+        entityManager.persist(SeatClaim.builder()
+                .screeningId(screeningId)
+                .seatId(seatId)
+                .reservationId(reservationId)
+                .claimedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private static Reservation reservation(Long screeningId, ReservationStatus status, long seatId) {
+        Reservation reservation = new Reservation();
+        reservation.setScreeningId(screeningId);
+        reservation.setCustomerName("Jan Kowalski");
+        reservation.setCustomerEmail("jan@example.com");
+        reservation.setReservationTime(LocalDateTime.now().minusMinutes(30));
+        reservation.setStatus(status);
+        reservation.setTotalAmount(new BigDecimal("25.00"));
+        reservation.getSeats().add(ReservedSeat.builder()
+                .seatId(seatId)
+                .rowNumber(1)
+                .seatNumber((int) (seatId - 99))
+                .reservation(reservation)
+                .build());
+        return reservation;
+    }
+
+    @Test
+    void basketGetsItsOwnIdAndSendsSeatsGroupedByScreening() {
+        persistBasketScreenings();
+
+        BasketReservationDTO basket = reservationService.createBasket(basketRequest());
+        entityManager.flush();
+        entityManager.clear();
+
+        ReservationBasket stored = entityManager.find(ReservationBasket.class, basket.getBasketId());
+        assertNotNull(stored);
+        assertEquals(0, new BigDecimal("75.00").compareTo(stored.getTotalAmount()));
+        // Pozycje posortowane po ID seansu - płatność prowadzona pod rezerwacją pierwszego seansu
+        Long paymentReservationId = basket.getReservations().get(0).getId();
+        assertEquals(paymentReservationId, basket.getPaymentReservationId());
+        assertEquals(paymentReservationId, stored.getPaymentReservationId());
+        for (ReservationDTO item : basket.getReservations()) {
+            assertEquals(basket.getBasketId(), entityManager.find(Reservation.class, item.getId()).getBasketId());
+        }
+
+        ArgumentCaptor<ReservationDTO> paymentRequest = ArgumentCaptor.forClass(ReservationDTO.class);
+        verify(messageProducer).sendReservation(paymentRequest.capture());
+        ReservationDTO payment = paymentRequest.getValue();
+        assertEquals(paymentReservationId, payment.getId());
+        assertEquals(basket.getBasketId(), payment.getBasketId());
+        assertEquals(0, new BigDecimal("75.00").compareTo(payment.getTotalAmount()));
+        assertEquals(List.of(1L, 2L), payment.getBasketItems().stream().map(item -> item.getScreeningDTO().getId()).toList());
+        assertEquals(List.of(102L), payment.getBasketItems().get(0).getSeats().stream().map(SeatDTO::getId).toList());
+        assertEquals(List.of(100L, 101L), payment.getBasketItems().get(1).getSeats().stream().map(SeatDTO::getId).toList());
+    }
+
+    @Test
+    void conflictInAnyBasketItemFailsTheWholeBasketWithoutPaymentRequest() {
+        persistBasketScreenings();
+        when(seatInventory.tryReserve(argThat(screening -> screening != null && screening.getId() == 2L), any(), any()))
+                .thenReturn(List.of(new SeatPosition(100L, 1, 1)));
+
+        assertThrows(ReservationConflictException.class, () -> reservationService.createBasket(basketRequest()));
+
+        verify(messageProducer, never()).sendReservation(any());
+    }
+
+    private void persistBasketScreenings() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        entityManager.persist(new ScreeningInfo(1L, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 2, 2));
+        entityManager.persist(new ScreeningInfo(2L, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 2, 2));
+        entityManager.flush();
+        when(hallLayoutService.getLayout(any())).thenReturn(new SeatLayout(3L, 1, 2, 2, new long[]{100L, 101L, 102L, 103L}));
+    }
+
+    private static CreateBasketReservationDTO basketRequest() {
+        return new CreateBasketReservationDTO("Jan Kowalski", "jan@example.com", List.of(
+                new BasketItemDTO(2L, List.of(100L, 101L), null),
+                new BasketItemDTO(1L, List.of(102L), null)));
+    }
+
+    // Budżety ścieżek krytycznych nie zależą od liczby miejsc ani rezerwacji - N+1 od razu je przekracza
+
+    @Test
+    void createReservationStaysWithinStatementBudgetRegardlessOfSeatCount() {
+        ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"),
+                10L, "Diuna", 3L, 3, 3, 10);
+        entityManager.persistAndFlush(screening);
+        entityManager.clear();
+        long[] layoutSeatIds = LongStream.range(100, 130).toArray();
+        when(hallLayoutService.getLayout(any())).thenReturn(new SeatLayout(3L, 1, 3, 10, layoutSeatIds));
+        CreateReservationDTO request = new CreateReservationDTO(10L, 1L, "Jan Kowalski", "jan@example.com",
+                LongStream.range(100, 100 + SEAT_COUNT).boxed().toList(), null);
+
+        // Seans, do dwóch pobrań z sekwencji rezerwacji i miejsc, insert rezerwacji, jeden batch insertów miejsc,
+        // jeden batch zajęć w seat_claims
+        QueryBudget.measure(() -> {
+            reservationService.createReservation(request);
+            entityManager.flush();
+        }).assertAtMost(8);
+    }
+
+    @Test
+    void paymentConfirmationStaysWithinStatementBudget() {
+        entityManager.persist(new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        Long reservationId = entityManager.persist(reservation(1L, ReservationStatus.PENDING_PAYMENT, 100L)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Rezerwacja z miejscami, seans do żądania biletu, update statusu
+        QueryBudget.measure(() -> {
+            reservationService.updateReservationStatus(new PaymentStatusDTO(1L, reservationId, PaymentStatus.COMPLETED));
+            entityManager.flush();
+        }).assertAtMost(4);
+    }
+
+    @Test
+    void cancelReservationStaysWithinStatementBudget() {
+        entityManager.persist(new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        Long reservationId = entityManager.persist(reservation(1L, ReservationStatus.PENDING_PAYMENT, 100L)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Rezerwacja z miejscami, update statusu, batch usunięć miejsc, usunięcie zajęć z seat_claims
+        QueryBudget.measure(() -> {
+            reservationService.cancelReservation(reservationId);
+            entityManager.flush();
+        }).assertAtMost(5);
+    }
+
+    @Test
+    void expiringABatchCostsTheSameAsExpiringOneReservation() {
+        entityManager.persist(new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        List<Long> reservationIds = LongStream.range(0, 10)
+                .mapToObj(i -> entityManager.persist(reservation(1L, ReservationStatus.PENDING_PAYMENT, 100L + i)).getId())
+                .toList();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Blokada rezerwacji, batch miejsc, seanse, jedno usunięcie zajęć z seat_claims, batch update'ów, batch usunięć miejsc
+        int expired = QueryBudget.measure(() -> {
+            int count = reservationService.expireReservations(reservationIds);
+            entityManager.flush();
+            return count;
+        }).assertAtMost(6).result();
+
+        assertEquals(10, expired);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.entity.Reservation;
+import com.example.reservation_service.entity.ReservedSeat;
+import com.example.reservation_service.entity.ScreeningCancellationJob;
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.expiry.ReservationExpiryIndex;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.kafka.producer.MessageProducer;
+import com.example.reservation_service.repository.ReservationRepository;
+import com.example.reservation_service.repository.ScreeningCancellationJobRepository;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import org.example.commons.dto.ScreeningChangeNotificationDTO;
+import org.example.commons.enums.ReservationStatus;
+import org.example.commons.events.ReservationCancelledEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Paczki są przetwarzane we własnych transakcjach, tak jak na wątku anulowania - bez transakcji testu.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScreeningCancellationServiceTest {
+    private static final Long CANCELLED_SCREENING_ID = 1L;
+    private static final Long OTHER_SCREENING_ID = 2L;
+    private static final Long BASKET_ID = 77L;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ScreeningInfoRepository screeningInfoRepository;
+    @Autowired
+    private ScreeningCancellationJobRepository jobRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SeatInventory seatInventory = mock(SeatInventory.class);
+    private final SeatClaimService seatClaimService = mock(SeatClaimService.class);
+    private final ReservationExpiryIndex expiryIndex = mock(ReservationExpiryIndex.class);
+    private final MessageProducer messageProducer = mock(MessageProducer.class);
+
+    @AfterEach
+    void tearDown() {
+        jobRepository.deleteAll();
+        reservationRepository.deleteAll();
+        screeningInfoRepository.deleteAll();
+    }
+
+    @Test
+    void cancelsReservationsThroughTheSingleCancelReleasePathIncludingPendingBasketItems() {
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        screeningInfoRepository.save(new ScreeningInfo(CANCELLED_SCREENING_ID, startTime, new BigDecimal("25.00"), 10L, "Diuna", 3L, 3, 4, 10));
+        screeningInfoRepository.save(new ScreeningInfo(OTHER_SCREENING_ID, startTime, new BigDecimal("25.00"), 11L, "Ojciec chrzestny", 3L, 3, 4, 10));
+        Long confirmed = save(CANCELLED_SCREENING_ID, ReservationStatus.CONFIRMED, null, 100L);
+        Long pendingInBasket = save(CANCELLED_SCREENING_ID, ReservationStatus.PENDING_PAYMENT, BASKET_ID, 101L);
+        save(CANCELLED_SCREENING_ID, ReservationStatus.CANCELLED, null, 102L);
+        Long basketItemElsewhere = save(OTHER_SCREENING_ID, ReservationStatus.PENDING_PAYMENT, BASKET_ID, 200L);
+        Long unrelated = save(OTHER_SCREENING_ID, ReservationStatus.PENDING_PAYMENT, null, 201L);
+        jobRepository.save(ScreeningCancellationJob.builder()
+                .screeningId(CANCELLED_SCREENING_ID)
+                .reason("Projector failure")
+                .status(ScreeningCancellationJob.Status.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        ScreeningCancellationService service = new ScreeningCancellationService(jobRepository, reservationRepository, screeningInfoRepository,
+                messageProducer, new ReservationReleaseService(reservationRepository, seatInventory, seatClaimService, expiryIndex),
+                new TransactionTemplate(transactionManager));
+        // Paczka po jednej rezerwacji - kursor musi przejść przez kilka transakcji
+        ReflectionTestUtils.setField(service, "chunkSize", 1);
+        ReflectionTestUtils.invokeMethod(service, "run", CANCELLED_SCREENING_ID);
+
+        ScreeningCancellationJob job = jobRepository.findById(CANCELLED_SCREENING_ID).orElseThrow();
+        assertEquals(ScreeningCancellationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getProcessedCount());
+        for (Long id : List.of(confirmed, pendingInBasket, basketItemElsewhere)) {
+            Reservation reservation = reservationRepository.findById(id).orElseThrow();
+            assertEquals(ReservationStatus.CANCELLED, reservation.getStatus());
+            assertTrue(reservation.getSeats().isEmpty());
+        }
+        assertEquals(ReservationStatus.PENDING_PAYMENT, reservationRepository.findById(unrelated).orElseThrow().getStatus());
+        // Jedno zwolnienie zajęć na paczkę, z rezerwacjami koszyka na innych seansach
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> released = ArgumentCaptor.forClass(Collection.class);
+        verify(seatClaimService, times(2)).releaseReservations(released.capture());
+        assertEquals(Set.of(confirmed, pendingInBasket, basketItemElsewhere), released.getAllValues().stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet()));
+        // Zwolnienie miejsc na innym seansie publikuje RELEASED dla jego kolejki oczekujących
+        verify(seatInventory).release(eq(OTHER_SCREENING_ID), argThat(seats -> seats.size() == 1 && seats.get(0).seatId() == 200L));
+        verify(expiryIndex).forget(Set.of(pendingInBasket, basketItemElsewhere));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReservationCancelledEvent>> cancelledEvents = ArgumentCaptor.forClass(List.class);
+        verify(messageProducer, atLeastOnce()).sendReservationsCancelled(cancelledEvents.capture());
+        assertEquals(Set.of(confirmed, pendingInBasket, basketItemElsewhere), cancelledEvents.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(ReservationCancelledEvent::getReservationId)
+                .collect(Collectors.toSet()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ScreeningChangeNotificationDTO>> notifications = ArgumentCaptor.forClass(List.class);
+        verify(messageProducer, atLeastOnce()).sendScreeningChangeNotifications(notifications.capture());
+        assertEquals(List.of(confirmed, pendingInBasket), notifications.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(ScreeningChangeNotificationDTO::getReservationId)
+                .toList());
+    }
+
+    @Test
+    void completedJobIsNotProcessedAgain() {
+        jobRepository.save(ScreeningCancellationJob.builder()
+                .screeningId(CANCELLED_SCREENING_ID)
+                .status(ScreeningCancellationJob.Status.COMPLETED)
+                .startedAt(LocalDateTime.now())
+                .build());
+        Long confirmed = save(CANCELLED_SCREENING_ID, ReservationStatus.CONFIRMED, null, 100L);
+
+        ScreeningCancellationService service = new ScreeningCancellationService(jobRepository, reservationRepository, screeningInfoRepository,
+                messageProducer, new ReservationReleaseService(reservationRepository, seatInventory, seatClaimService, expiryIndex),
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.invokeMethod(service, "run", CANCELLED_SCREENING_ID);
+
+        assertEquals(ReservationStatus.CONFIRMED, reservationRepository.findById(confirmed).orElseThrow().getStatus());
+        verify(messageProducer, never()).sendReservationsCancelled(any());
+    }
+
+    private Long save(Long screeningId, ReservationStatus status, Long basketId, long seatId) {
+        Reservation reservation = new Reservation();
+        reservation.setScreeningId(screeningId);
+        reservation.setCustomerName("Jan Kowalski");
+        reservation.setCustomerEmail("jan@example.com");
+        reservation.setReservationTime(LocalDateTime.now());
+        reservation.setStatus(status);
+        reservation.setTotalAmount(new BigDecimal("25.00"));
+        reservation.setBasketId(basketId);
+        reservation.getSeats().add(ReservedSeat.builder()
+                .seatId(seatId)
+                .rowNumber(1)
+                .seatNumber((int) (seatId % 100) + 1)
+                .reservation(reservation)
+                .build());
+        return reservationRepository.save(reservation).getId();
+    }
+}
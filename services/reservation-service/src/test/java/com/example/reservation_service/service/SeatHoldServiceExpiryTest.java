@@ -0,0 +1,172 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.entity.ScreeningInfo;
+import com.example.reservation_service.entity.SeatClaim;
+import com.example.reservation_service.inventory.SeatInventory;
+import com.example.reservation_service.inventory.SeatPosition;
+import com.example.reservation_service.layout.HallLayoutService;
+import com.example.reservation_service.lock.ScreeningLockManager;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wygaśnięcie blokad sterowane kołem czasowym: blokady odtworzone po restarcie wygasają same,
+ * blokada zamieniona na rezerwację znika z koła, a nieudane wygaśnięcie jest ponawiane.
+ */
+class SeatHoldServiceExpiryTest {
+    private final ScreeningInfoRepository screeningInfoRepository = mock(ScreeningInfoRepository.class);
+    private final HallLayoutService hallLayoutService = mock(HallLayoutService.class);
+    private final SeatClaimRepository seatClaimRepository = mock(SeatClaimRepository.class);
+    private final SeatInventory seatInventory = mock(SeatInventory.class);
+    private final ScreeningLockManager screeningLockManager = mock(ScreeningLockManager.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+    private final ScreeningInfo screening = new ScreeningInfo(1L, LocalDateTime.now().plusDays(1), BigDecimal.TEN, 3L, "Film", 7L, 1, 2, 3);
+
+    private SeatHoldService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SeatHoldService(screeningInfoRepository, hallLayoutService, seatClaimRepository,
+                mock(SeatClaimService.class), seatInventory, screeningLockManager, transactionTemplate);
+        ReflectionTestUtils.setField(service, "tickMillis", 10L);
+        ReflectionTestUtils.setField(service, "expiryRetryMillis", 20L);
+        when(screeningLockManager.tryLock(eq(1L), anyLong())).thenReturn(true);
+        service.start();
+        when(screeningInfoRepository.findById(1L)).thenReturn(Optional.of(screening));
+        when(hallLayoutService.resolveSeats(eq(screening), anyCollection()))
+                .thenReturn(List.of(new SeatPosition(11L, 1, 1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void restoredHoldExpiresAndReleasesItsSeats() {
+        hold("restored", 11L, LocalDateTime.now().plusNanos(100_000_000));
+        when(seatClaimRepository.findActiveHolds()).thenReturn(List.of(new Hold("restored", 1L, LocalDateTime.now().plusNanos(100_000_000))));
+
+        service.restoreHolds();
+
+        verify(seatClaimRepository, timeout(2_000)).deleteHold("restored");
+        verify(seatInventory).release(eq(1L), eq(List.of(new SeatPosition(11L, 1, 1))));
+    }
+
+    @Test
+    void holdConvertedToReservationIsNotExpired() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(100_000_000);
+        hold("converted", 11L, expiresAt);
+        hold("abandoned", 12L, expiresAt);
+        when(seatClaimRepository.findActiveHolds()).thenReturn(List.of(
+                new Hold("converted", 1L, expiresAt), new Hold("abandoned", 1L, expiresAt)));
+        when(seatClaimRepository.assignHoldToReservation(eq("converted"), eq(500L), any())).thenReturn(1);
+        service.restoreHolds();
+
+        transactionTemplate.executeWithoutResult(status -> service.convertToReservation("converted", 1L, List.of(11L), 500L));
+
+        // Obie blokady mają ten sam termin, więc po wygaśnięciu jednej druga też byłaby już zwolniona
+        verify(seatClaimRepository, timeout(2_000)).deleteHold("abandoned");
+        verify(seatClaimRepository, after(100).never()).deleteHold("converted");
+    }
+
+    @Test
+    void holdOnBusyScreeningIsRetriedWithoutWaitingForTheLock() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(50_000_000);
+        hold("busy", 11L, expiresAt);
+        when(seatClaimRepository.findActiveHolds()).thenReturn(List.of(new Hold("busy", 1L, expiresAt)));
+        when(screeningLockManager.tryLock(eq(1L), anyLong())).thenReturn(false, false, true);
+
+        service.restoreHolds();
+
+        verify(seatClaimRepository, timeout(2_000)).deleteHold("busy");
+        verify(screeningLockManager, times(3)).tryLock(eq(1L), anyLong());
+        verify(screeningLockManager, never()).lock(any());
+    }
+
+    @Test
+    void failedExpiryKeepsTheHoldScheduled() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(50_000_000);
+        hold("failing", 11L, expiresAt);
+        when(seatClaimRepository.deleteHold("failing")).thenThrow(new IllegalStateException("connection reset")).thenReturn(1);
+        when(seatClaimRepository.findActiveHolds()).thenReturn(List.of(new Hold("failing", 1L, expiresAt)));
+
+        service.restoreHolds();
+
+        // Po udanym ponowieniu blokada znika z koła i nie jest zwalniana trzeci raz
+        verify(seatClaimRepository, timeout(2_000).times(2)).deleteHold("failing");
+        verify(seatClaimRepository, after(100).times(2)).deleteHold("failing");
+    }
+
+    private void hold(String holdId, Long seatId, LocalDateTime expiresAt) {
+        when(seatClaimRepository.findAllByHoldId(holdId)).thenReturn(List.of(SeatClaim.builder()
+                .screeningId(1L)
+                .seatId(seatId)
+                .holdId(holdId)
+                .expiresAt(expiresAt)
+                .build()));
+        when(seatClaimRepository.deleteHold(holdId)).thenReturn(1);
+    }
+
+    private record Hold(String holdId, Long screeningId, LocalDateTime expiresAt) implements SeatClaimRepository.HoldView {
+        @Override
+        public String getHoldId() {
+            return holdId;
+        }
+
+        @Override
+        public Long getScreeningId() {
+            return screeningId;
+        }
+
+        @Override
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    // Transakcje bez zasobu - wystarczą do uruchomienia synchronizacji afterCommit
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
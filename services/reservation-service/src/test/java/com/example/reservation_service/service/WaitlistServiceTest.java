@@ -0,0 +1,119 @@
+package com.example.reservation_service.service;
+
+import com.example.reservation_service.dto.CreateBestSeatHoldDTO;
+import com.example.reservation_service.dto.SeatHoldDTO;
+import com.example.reservation_service.entity.WaitlistEntry;
+import com.example.reservation_service.inventory.SeatState;
+import com.example.reservation_service.inventory.SeatStateChangedEvent;
+import com.example.reservation_service.repository.ScreeningInfoRepository;
+import com.example.reservation_service.repository.SeatClaimRepository;
+import com.example.reservation_service.repository.WaitlistEntryRepository;
+import org.example.commons.exception.ReservationConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WaitlistServiceTest {
+    private static final Long SCREENING_ID = 7L;
+
+    private final WaitlistEntryRepository entryRepository = mock(WaitlistEntryRepository.class);
+    private final SeatHoldService seatHoldService = mock(SeatHoldService.class);
+    private WaitlistService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WaitlistService(entryRepository, mock(ScreeningInfoRepository.class), mock(SeatClaimRepository.class),
+                seatHoldService, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "offerWindowSeconds", 300);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void releasedSeatsAreOfferedToEntriesThisInstanceHasNotSeen() {
+        // Wpis dodany przez inną instancję - ta nie wie o nim nic poza bazą
+        WaitlistEntry entry = waiting(1L, 2);
+        when(entryRepository.findFirstByScreeningIdAndStatusOrderByIdAsc(SCREENING_ID, WaitlistEntry.Status.WAITING))
+                .thenReturn(Optional.of(entry), Optional.empty());
+        when(seatHoldService.createBestAvailableHold(any()))
+                .thenReturn(new SeatHoldDTO("hold-1", SCREENING_ID, List.of(10L, 11L), LocalDateTime.now().plusMinutes(5)));
+
+        service.onSeatStateChanged(released());
+
+        verify(entryRepository, timeout(1_000)).save(entry);
+        verify(seatHoldService).createBestAvailableHold(new CreateBestSeatHoldDTO(SCREENING_ID, 2, null, 300));
+        assertEquals(WaitlistEntry.Status.OFFERED, entry.getStatus());
+        assertEquals("hold-1", entry.getHoldId());
+    }
+
+    @Test
+    void headLockedByAnotherInstanceIsLeftToThatInstance() {
+        when(entryRepository.findFirstByScreeningIdAndStatusOrderByIdAsc(SCREENING_ID, WaitlistEntry.Status.WAITING))
+                .thenThrow(new PessimisticLockingFailureException("NOWAIT"));
+
+        service.onSeatStateChanged(released());
+
+        verify(entryRepository, timeout(1_000)).findFirstByScreeningIdAndStatusOrderByIdAsc(SCREENING_ID, WaitlistEntry.Status.WAITING);
+        verify(seatHoldService, after(200).never()).createBestAvailableHold(any());
+    }
+
+    @Test
+    void headKeepsItsPlaceWhenTooFewSeatsWereReleased() {
+        WaitlistEntry entry = waiting(1L, 4);
+        when(entryRepository.findFirstByScreeningIdAndStatusOrderByIdAsc(SCREENING_ID, WaitlistEntry.Status.WAITING))
+                .thenReturn(Optional.of(entry));
+        when(seatHoldService.createBestAvailableHold(any())).thenThrow(new ReservationConflictException("Not enough seats"));
+
+        service.onSeatStateChanged(released());
+
+        verify(seatHoldService, timeout(1_000)).createBestAvailableHold(any());
+        verify(entryRepository, after(200).never()).save(any());
+        verify(entryRepository, times(1)).findFirstByScreeningIdAndStatusOrderByIdAsc(eq(SCREENING_ID), any());
+        assertEquals(WaitlistEntry.Status.WAITING, entry.getStatus());
+    }
+
+    @Test
+    void heldSeatsDoNotTriggerServing() {
+        service.onSeatStateChanged(new SeatStateChangedEvent(SCREENING_ID, "epoch", 1, SeatState.HELD, List.of()));
+
+        verify(entryRepository, after(200).never()).findFirstByScreeningIdAndStatusOrderByIdAsc(any(), any());
+    }
+
+    private static SeatStateChangedEvent released() {
+        return new SeatStateChangedEvent(SCREENING_ID, "epoch", 1, SeatState.RELEASED, List.of());
+    }
+
+    private static WaitlistEntry waiting(Long id, int seatCount) {
+        return WaitlistEntry.builder()
+                .id(id)
+                .screeningId(SCREENING_ID)
+                .customerEmail("anna@example.com")
+                .seatCount(seatCount)
+                .status(WaitlistEntry.Status.WAITING)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
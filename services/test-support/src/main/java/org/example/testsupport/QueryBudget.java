@@ -0,0 +1,92 @@
+package org.example.testsupport;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Pomiar liczby i czasu instrukcji SQL wykonanych w obrębie jednego wywołania (żądania, metody serwisu,
+ * obsługi komunikatu). Przykład:
+ * <pre>{@code
+ * QueryBudget.measure(() -> reservationService.createReservation(request)).assertAtMost(4);
+ * }</pre>
+ * Wymaga {@link QueryBudgetConfiguration} w kontekście testu.
+ */
+public final class QueryBudget {
+    private final List<RecordedStatement> statements;
+    private final Object result;
+
+    private QueryBudget(List<RecordedStatement> statements, Object result) {
+        this.statements = statements;
+        this.result = result;
+    }
+
+    public static QueryBudget measure(Runnable action) {
+        return measure(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static QueryBudget measure(Callable<?> action) {
+        QueryRecorder.start();
+        Object result;
+        try {
+            result = action.call();
+        } catch (RuntimeException | Error e) {
+            QueryRecorder.stop();
+            throw e;
+        } catch (Exception e) {
+            QueryRecorder.stop();
+            throw new IllegalStateException(e);
+        }
+        return new QueryBudget(QueryRecorder.stop(), result);
+    }
+
+    public QueryBudget assertAtMost(int maxStatements) {
+        if (statements.size() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " SQL statements but " + statements.size()
+                    + " were executed:\n" + describe());
+        }
+        return this;
+    }
+
+    public QueryBudget assertExactly(int expectedStatements) {
+        if (statements.size() != expectedStatements) {
+            throw new AssertionError("Expected exactly " + expectedStatements + " SQL statements but " + statements.size()
+                    + " were executed:\n" + describe());
+        }
+        return this;
+    }
+
+    public QueryBudget assertTotalTimeAtMost(Duration maxTime) {
+        Duration total = totalTime();
+        if (total.compareTo(maxTime) > 0) {
+            throw new AssertionError("Expected SQL time of at most " + maxTime.toMillis() + " ms but took "
+                    + total.toMillis() + " ms:\n" + describe());
+        }
+        return this;
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public List<RecordedStatement> statements() {
+        return statements;
+    }
+
+    public Duration totalTime() {
+        return statements.stream().map(RecordedStatement::duration).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T result() {
+        return (T) result;
+    }
+
+    private String describe() {
+        return statements.stream().map(statement -> "  " + statement).collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.testsupport;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Konfiguracja testowa: każdy {@link DataSource} w kontekście jest opakowywany przez {@link RecordingDataSource}.
+ * Użycie: {@code @Import(QueryBudgetConfiguration.class)} w klasie testu.
+ */
+@Configuration(proxyBeanMethods = false)
+public class QueryBudgetConfiguration {
+
+    @Bean
+    public static BeanPostProcessor recordingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? RecordingDataSource.wrap(dataSource) : bean;
+            }
+        };
+    }
+}
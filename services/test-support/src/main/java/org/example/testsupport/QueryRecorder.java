@@ -0,0 +1,34 @@
+package org.example.testsupport;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rejestr instrukcji SQL wykonanych przez bieżący wątek. Zbieranie jest aktywne tylko
+ * w obrębie {@link QueryBudget#measure}, więc dane przygotowawcze testu nie wliczają się do budżetu.
+ */
+public final class QueryRecorder {
+    private static final ThreadLocal<List<RecordedStatement>> CURRENT = new ThreadLocal<>();
+
+    private QueryRecorder() {
+    }
+
+    static void start() {
+        CURRENT.set(new ArrayList<>());
+    }
+
+    static List<RecordedStatement> stop() {
+        List<RecordedStatement> statements = CURRENT.get();
+        CURRENT.remove();
+        return statements != null ? Collections.unmodifiableList(statements) : List.of();
+    }
+
+    static void record(String sql, long nanos) {
+        List<RecordedStatement> statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(new RecordedStatement(sql, Duration.ofNanos(nanos)));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.testsupport;
+
+import java.time.Duration;
+
+/**
+ * Pojedyncze wykonanie instrukcji SQL zarejestrowane przez {@link QueryRecorder}.
+ */
+public record RecordedStatement(String sql, Duration duration) {
+
+    @Override
+    public String toString() {
+        return duration.toMillis() + " ms  " + sql;
+    }
+}
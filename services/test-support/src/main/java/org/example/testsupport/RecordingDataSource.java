@@ -0,0 +1,105 @@
+package org.example.testsupport;
+
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Opakowuje {@link DataSource} tak, aby każde wykonanie instrukcji (execute*, executeBatch)
+ * trafiało do {@link QueryRecorder} razem z czasem trwania. Nie wymaga dodatkowych bibliotek -
+ * wystarczą dynamiczne proxy JDK.
+ */
+public final class RecordingDataSource {
+
+    private RecordingDataSource() {
+    }
+
+    public static DataSource wrap(DataSource target) {
+        if (Proxy.isProxyClass(target.getClass()) && Proxy.getInvocationHandler(target) instanceof DataSourceHandler) {
+            return target;
+        }
+        // Zachowujemy wszystkie interfejsy oryginału (np. EmbeddedDatabase), aby wstrzykiwanie po typie nadal działało
+        return (DataSource) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(),
+                ClassUtils.getAllInterfacesForClass(target.getClass()), new DataSourceHandler(target));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private record DataSourceHandler(DataSource target) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = RecordingDataSource.invoke(target, method, args);
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, new ConnectionHandler(connection));
+            }
+            return result;
+        }
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = RecordingDataSource.invoke(target, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, new StatementHandler(statement, sql));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, sql));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private String lastBatchSql;
+
+        private StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1) {
+                lastBatchSql = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                return RecordingDataSource.invoke(target, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text
+                    : preparedSql != null ? preparedSql : lastBatchSql;
+            long start = System.nanoTime();
+            try {
+                return RecordingDataSource.invoke(target, method, args);
+            } finally {
+                QueryRecorder.record(sql, System.nanoTime() - start);
+            }
+        }
+    }
+}